@@ -0,0 +1,69 @@
+package com.example.hack1base.EmailOutbox.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Correo ya renderizado pendiente de envío. idempotency_key único: re-encolar el mismo
+// correo (reintento o recuperación del reporte) no genera un segundo envío.
+@Entity
+@Table(name = "email_outbox", indexes = {
+        // Drenado: PENDING listos para (re)intento y leases SENDING vencidos
+        @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_email_outbox_status_lease", columnList = "status, lease_until")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_email_outbox_idempotency_key", columnNames = "idempotency_key")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmailOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(name = "idempotency_key", nullable = false, updatable = false)
+    private String idempotencyKey;
+
+    // Solicitud de reporte que originó el correo (null si no viene de report_requests)
+    @Column
+    private String reportRequestId;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String html;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EmailOutboxStatus status;
+
+    @Column
+    private int attempts;
+
+    @Column
+    private LocalDateTime nextAttemptAt;
+
+    @Column
+    private LocalDateTime leaseUntil;
+
+    @Column
+    private String lockedBy;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime sentAt;
+}
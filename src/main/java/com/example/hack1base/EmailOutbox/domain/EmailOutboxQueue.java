@@ -0,0 +1,175 @@
+package com.example.hack1base.EmailOutbox.domain;
+
+import com.example.hack1base.EmailOutbox.estructure.EmailOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Outbox persistente de correos (email.outbox.enabled=true), compartido por todos los nodos.
+// PENDING → (claim) SENDING con lease → SENT | PENDING con backoff | DEAD (rechazo o intentos agotados).
+// Métrica: email.outbox.messages{outcome}
+@Service
+@ConditionalOnProperty(name = "email.outbox.enabled", havingValue = "true")
+public class EmailOutboxQueue {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final MeterRegistry meterRegistry;
+
+    // El drainer lo renueva cada lease/3 mientras el pool SMTP tenga el correo; solo vence si el nodo cae
+    @Value("${email.outbox.lease:2m}")
+    private Duration lease = Duration.ofMinutes(2);
+
+    @Value("${email.outbox.maxAttempts:8}")
+    private int maxAttempts = 8;
+
+    @Value("${email.outbox.backoff:30s}")
+    private Duration backoff = Duration.ofSeconds(30);
+
+    @Value("${email.outbox.maxBackoff:30m}")
+    private Duration maxBackoff = Duration.ofMinutes(30);
+
+    public EmailOutboxQueue(EmailOutboxRepository emailOutboxRepository, MeterRegistry meterRegistry) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Un correo por solicitud de reporte: reintentos y recuperación reutilizan la misma fila
+    public static String reportKey(String reportRequestId) {
+        return "report:" + reportRequestId;
+    }
+
+    // Estado de entrega del resumen de una solicitud (consulta de estado del reporte)
+    public Optional<EmailOutboxMessage> findForReport(String reportRequestId) {
+        return emailOutboxRepository.findByIdempotencyKey(reportKey(reportRequestId));
+    }
+
+    // Idempotente por clave: si ya existe (incluso insertado en paralelo por otro nodo) se devuelve ese
+    public EmailOutboxMessage enqueue(String idempotencyKey, String reportRequestId,
+                                      String recipient, String subject, String html) {
+        Optional<EmailOutboxMessage> existing = emailOutboxRepository.findByIdempotencyKey(idempotencyKey);
+        if (existing.isPresent()) {
+            meterRegistry.counter("email.outbox.messages", "outcome", "duplicate").increment();
+            return existing.get();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        EmailOutboxMessage message = EmailOutboxMessage.builder()
+                .idempotencyKey(idempotencyKey)
+                .reportRequestId(reportRequestId)
+                .recipient(recipient)
+                .subject(subject)
+                .html(html)
+                .status(EmailOutboxStatus.PENDING)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+        try {
+            EmailOutboxMessage saved = emailOutboxRepository.saveAndFlush(message);
+            meterRegistry.counter("email.outbox.messages", "outcome", "enqueued").increment();
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            meterRegistry.counter("email.outbox.messages", "outcome", "duplicate").increment();
+            return emailOutboxRepository.findByIdempotencyKey(idempotencyKey).orElseThrow(() -> e);
+        }
+    }
+
+    // SKIP LOCKED + commit al salir: el lease queda escrito y los locks de fila se liberan enseguida
+    @Transactional
+    public List<EmailOutboxMessage> claimBatch(String workerId, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutboxMessage> batch = emailOutboxRepository.lockNextBatch(now, limit);
+        for (EmailOutboxMessage message : batch) {
+            if (message.getStatus() == EmailOutboxStatus.SENDING) {
+                meterRegistry.counter("email.outbox.messages", "outcome", "lease_expired").increment();
+            }
+            message.setStatus(EmailOutboxStatus.SENDING);
+            message.setAttempts(message.getAttempts() + 1);
+            message.setLockedBy(workerId);
+            message.setLeaseUntil(now.plus(lease));
+        }
+        if (!batch.isEmpty()) {
+            meterRegistry.counter("email.outbox.messages", "outcome", "claimed").increment(batch.size());
+        }
+        return batch;
+    }
+
+    // Lo que no se renueva (lease ya perdido o correo cerrado) simplemente no cuenta
+    @Transactional
+    public int renewLeases(String workerId, Collection<String> messageIds) {
+        if (messageIds.isEmpty()) {
+            return 0;
+        }
+        int renewed = emailOutboxRepository.renewLeases(messageIds, workerId, LocalDateTime.now().plus(lease));
+        meterRegistry.counter("email.outbox.messages", "outcome", "lease_renewed").increment(renewed);
+        return renewed;
+    }
+
+    public Duration lease() {
+        return lease;
+    }
+
+    @Transactional
+    public boolean markSent(String messageId, String workerId) {
+        return owned(messageId, workerId).map(message -> {
+            message.setStatus(EmailOutboxStatus.SENT);
+            message.setSentAt(LocalDateTime.now());
+            message.setLastError(null);
+            release(message);
+            meterRegistry.counter("email.outbox.messages", "outcome", "sent").increment();
+            return true;
+        }).orElse(false);
+    }
+
+    // retryable=false (destinatario rechazado) o intentos agotados → DEAD; si no, backoff · 2^(intento-1)
+    @Transactional
+    public boolean markFailed(String messageId, String workerId, String error, boolean retryable) {
+        return owned(messageId, workerId).map(message -> {
+            message.setLastError(truncate("Intento " + message.getAttempts() + ": " + error));
+            release(message);
+            if (!retryable || message.getAttempts() >= maxAttempts) {
+                message.setStatus(EmailOutboxStatus.DEAD);
+                meterRegistry.counter("email.outbox.messages", "outcome", "dead").increment();
+                return true;
+            }
+            message.setStatus(EmailOutboxStatus.PENDING);
+            message.setNextAttemptAt(LocalDateTime.now().plus(backoffFor(message.getAttempts())));
+            meterRegistry.counter("email.outbox.messages", "outcome", "retried").increment();
+            return true;
+        }).orElse(false);
+    }
+
+    Duration backoffFor(int attempt) {
+        long factor = 1L << Math.min(Math.max(attempt - 1, 0), 20);
+        Duration delay = backoff.multipliedBy(factor);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    // Si el lease venció y otro drainer reclamó el correo, este ya no puede cerrarlo
+    private Optional<EmailOutboxMessage> owned(String messageId, String workerId) {
+        Optional<EmailOutboxMessage> message = emailOutboxRepository.findById(messageId)
+                .filter(m -> m.getStatus() == EmailOutboxStatus.SENDING && workerId.equals(m.getLockedBy()));
+        if (message.isEmpty()) {
+            meterRegistry.counter("email.outbox.messages", "outcome", "lease_lost").increment();
+        }
+        return message;
+    }
+
+    private static void release(EmailOutboxMessage message) {
+        message.setLeaseUntil(null);
+        message.setLockedBy(null);
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.hack1base.EmailOutbox.domain;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD
+}
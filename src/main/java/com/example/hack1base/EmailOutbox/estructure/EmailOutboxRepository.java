@@ -0,0 +1,33 @@
+package com.example.hack1base.EmailOutbox.estructure;
+
+import com.example.hack1base.EmailOutbox.domain.EmailOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, String> {
+
+    Optional<EmailOutboxMessage> findByIdempotencyKey(String idempotencyKey);
+
+    // Reclamo por lotes: las filas bloqueadas por otro drainer se saltan en vez de esperar
+    @Query(value = "select * from email_outbox " +
+            "where (status = 'PENDING' and next_attempt_at <= :now) " +
+            "or (status = 'SENDING' and lease_until < :now) " +
+            "order by created_at, id limit :limit for update skip locked", nativeQuery = true)
+    List<EmailOutboxMessage> lockNextBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Heartbeat: solo se extiende el lease de los correos que este drainer sigue teniendo en SENDING
+    @Modifying
+    @Query(value = "update email_outbox set lease_until = :leaseUntil " +
+            "where id in (:ids) and locked_by = :workerId and status = 'SENDING'", nativeQuery = true)
+    int renewLeases(@Param("ids") Collection<String> ids, @Param("workerId") String workerId,
+                    @Param("leaseUntil") LocalDateTime leaseUntil);
+}
@@ -0,0 +1,6 @@
+package com.example.hack1base.Exceptions;
+
+// El envío pudo haberse completado o no (timeout esperando al SMTP): no se debe reintentar
+public class EmailDeliveryUnknownException extends RuntimeException {
+    public EmailDeliveryUnknownException(String message) { super(message); }
+}
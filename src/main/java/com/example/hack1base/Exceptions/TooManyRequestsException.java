@@ -0,0 +1,5 @@
+package com.example.hack1base.Exceptions;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) { super(message); }
+}
@@ -39,10 +39,12 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
 
         final String token = authHeader.substring(7);
         try {
-            String username = jwtService.extractUsername(token);
+            // Firma y expiración se verifican una sola vez; el resto usa los claims ya verificados
+            VerifiedToken verified = jwtService.verify(token);
+            String username = verified.subject();
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = accountService.loadUserByUsername(username);
-                if (jwtService.isTokenValid(token, userDetails.getUsername())) {
+                UserDetails userDetails = accountService.loadPrincipal(username);
+                if (userDetails.isEnabled() && verified.isFor(userDetails.getUsername())) {
                     UsernamePasswordAuthenticationToken authToken =
                             new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -2,10 +2,12 @@ package com.example.hack1base.JWT.security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -17,6 +19,9 @@ import java.util.Date;
 public class JwtService {
 
     private SecretKey secretKey;
+    // Parser inmutable y thread-safe: se construye una vez y se comparte entre requests
+    private JwtParser parser;
+    private VerifiedTokenCache tokenCache;
     private final String secret;
     private final Long expirationMillis;
 
@@ -26,9 +31,15 @@ public class JwtService {
         this.expirationMillis = expirationMillis;
     }
 
+    @Autowired(required = false)
+    public void setTokenCache(VerifiedTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
+    }
+
     @PostConstruct
     public void init() {
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(secretKey).build();
     }
 
     public String generateToken(String username, String role, String branch) {
@@ -45,7 +56,20 @@ public class JwtService {
     }
 
     public Claims extractAllClaims(String token) throws ExpiredJwtException {
-        return Jwts.parser().setSigningKey(secretKey).build().parseClaimsJws(token).getBody();
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    // Un solo parse + verificación HMAC por token; lanza ExpiredJwtException / JwtException.
+    // Con jwt.tokenCache.enabled=true, un token ya verificado se resuelve con un lookup.
+    public VerifiedToken verify(String token) throws ExpiredJwtException {
+        if (tokenCache != null) {
+            return tokenCache.get(token, this::parseAndVerify);
+        }
+        return parseAndVerify(token);
+    }
+
+    private VerifiedToken parseAndVerify(String token) {
+        return VerifiedToken.of(extractAllClaims(token));
     }
 
     public String extractUsername(String token) {
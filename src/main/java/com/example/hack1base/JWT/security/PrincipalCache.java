@@ -0,0 +1,76 @@
+package com.example.hack1base.JWT.security;
+
+import com.example.hack1base.JWT.domain.Account;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+// Caché acotada (tamaño + TTL) de principals por email para el filtro JWT.
+// Guarda una foto inmutable de la cuenta (sin el hash de la contraseña), nunca la entidad JPA:
+// cada request recibe su propia Account desconectada y ninguna instancia se comparte entre hilos.
+// La invalidación es local al nodo: en otras réplicas una cuenta deshabilitada sigue autenticando
+// hasta que vence su entrada (jwt.principalCache.ttlSeconds).
+// Métricas: cache.gets{cache=jwt.principals,result=hit|miss}, cache.evictions, cache.size
+@Component
+public class PrincipalCache {
+
+    public static final String CACHE_NAME = "jwt.principals";
+
+    private final Cache<String, Snapshot> cache;
+
+    public PrincipalCache(@Value("${jwt.principalCache.maxSize:10000}") long maxSize,
+                          @Value("${jwt.principalCache.ttlSeconds:300}") long ttlSeconds,
+                          MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Account get(String email, Function<String, Account> loader) {
+        return cache.get(email, key -> Snapshot.of(loader.apply(key))).toAccount();
+    }
+
+    public void invalidate(String email) {
+        if (email != null) {
+            cache.invalidate(email);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    // Lo que necesita la autorización: identidad, rol (authorities), sucursal y si está habilitada
+    private record Snapshot(Long id, String email, String role, String branch, boolean enabled, Instant createdAt) {
+
+        static Snapshot of(Account account) {
+            return new Snapshot(account.getId(), account.getEmail(), account.getRole(), account.getBranch(),
+                    account.isEnabled(), account.getCreatedAt());
+        }
+
+        Account toAccount() {
+            Account account = new Account();
+            account.setId(id);
+            account.setEmail(email);
+            account.setRole(role);
+            account.setBranch(branch);
+            account.setEnabled(enabled);
+            account.setCreatedAt(createdAt);
+            return account;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.hack1base.JWT.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+// Resultado de verificar un JWT una sola vez: firma y expiración ya comprobadas
+public record VerifiedToken(String subject, String role, String branch, Instant expiresAt) {
+
+    static VerifiedToken of(Claims claims) {
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.get("branch", String.class),
+                claims.getExpiration().toInstant()
+        );
+    }
+
+    public boolean isFor(String username) {
+        return subject != null && subject.equals(username);
+    }
+}
@@ -2,7 +2,9 @@ package com.example.hack1base.JWT.services;
 
 import com.example.hack1base.JWT.domain.Account;
 import com.example.hack1base.JWT.infraestructure.AccountRepository;
+import com.example.hack1base.JWT.security.PrincipalCache;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -10,21 +12,53 @@ import org.springframework.stereotype.Service;
 import java.util.Optional;
 
 @Service
-public class AccountService implements UserDetailsService {
+public class AccountService implements UserDetailsService, UserDetailsPasswordService {
 
     private final AccountRepository repo;
+    private final PrincipalCache principalCache;
 
-    public AccountService(AccountRepository repo) {
+    public AccountService(AccountRepository repo, PrincipalCache principalCache) {
         this.repo = repo;
+        this.principalCache = principalCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        return loadAccount(email);
+    }
+
+    // Para el filtro JWT: sirve el principal desde caché y solo va a la base en un miss.
+    // Devuelve una copia desconectada por request (sin contraseña), no la entidad gestionada
+    public UserDetails loadPrincipal(String email) throws UsernameNotFoundException {
+        return principalCache.get(email, this::loadAccount);
+    }
+
+    private Account loadAccount(String email) {
         return repo.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + email));
     }
 
+    // Re-hash transparente en el login cuando el hash guardado usa otro algoritmo o un costo menor
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Account account = repo.findByEmail(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + user.getUsername()));
+        account.setPassword(newPassword);
+        return save(account);
+    }
+
     public Optional<Account> findByEmailOpt(String email) { return repo.findByEmail(email); }
 
-    public Account save(Account account) { return repo.save(account); }
-}
\ No newline at end of file
+    public Account save(Account account) {
+        Account saved = repo.save(account);
+        principalCache.invalidate(saved.getEmail());
+        return saved;
+    }
+
+    public Account disable(String email) {
+        Account account = repo.findByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + email));
+        account.setEnabled(false);
+        return save(account);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.hack1base.JWT.services;
 
 import com.example.hack1base.JWT.domain.Account;
 import com.example.hack1base.JWT.security.JwtService;
+import com.example.hack1base.JWT.security.VerifiedToken;
 import com.example.hack1base.JWT.web.AuthResponse;
 import com.example.hack1base.JWT.web.LoginRequest;
 import com.example.hack1base.JWT.web.RegisterRequest;
@@ -35,7 +36,8 @@ public class AuthService {
         );
         Account account = (Account) auth.getPrincipal();
         String token = jwtService.generateToken(account.getEmail(), account.getRole(), account.getBranch());
-        return new AuthResponse(token, jwtService.isTokenExpired(token) ? 0L : jwtService.extractAllClaims(token).getExpiration().getTime(), account.getRole(), account.getBranch());
+        VerifiedToken verified = jwtService.verify(token);
+        return new AuthResponse(token, verified.expiresAt().toEpochMilli(), account.getRole(), account.getBranch());
     }
 
     public Account register(RegisterRequest req) {
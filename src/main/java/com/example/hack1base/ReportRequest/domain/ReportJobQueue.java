@@ -0,0 +1,126 @@
+package com.example.hack1base.ReportRequest.domain;
+
+import com.example.hack1base.ReportRequest.estructrure.ReportRequestRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Cola de trabajos sobre report_requests, compartida por todos los nodos.
+// PENDING → (claim) PROCESSING con lease → COMPLETED | PENDING con backoff | DEAD al agotar intentos.
+// Un lease vencido (worker caído) vuelve a ser reclamable sin intervención.
+@Service
+public class ReportJobQueue {
+
+    private final ReportRequestRepository reportRequestRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${reports.queue.lease:5m}")
+    private Duration lease = Duration.ofMinutes(5);
+
+    @Value("${reports.queue.maxAttempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${reports.queue.backoff:10s}")
+    private Duration backoff = Duration.ofSeconds(10);
+
+    @Value("${reports.queue.maxBackoff:10m}")
+    private Duration maxBackoff = Duration.ofMinutes(10);
+
+    public ReportJobQueue(ReportRequestRepository reportRequestRepository, MeterRegistry meterRegistry) {
+        this.reportRequestRepository = reportRequestRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // SKIP LOCKED + commit al salir: el lease queda escrito y el lock de fila se libera enseguida
+    @Transactional
+    public Optional<ReportRequest> claimNext(String workerId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ReportRequest> jobs = reportRequestRepository.lockNextJobs(now, 1);
+        if (jobs.isEmpty()) {
+            return Optional.empty();
+        }
+        ReportRequest job = jobs.get(0);
+        if (job.getStatus() == ReportStatus.PROCESSING) {
+            meterRegistry.counter("reports.queue.jobs", "outcome", "lease_expired").increment();
+        }
+        job.setStatus(ReportStatus.PROCESSING);
+        job.setAttempts(job.getAttempts() + 1);
+        job.setLockedBy(workerId);
+        job.setLeaseUntil(now.plus(lease));
+        job.setStartedAt(now);
+        job.setCompletedAt(null);
+        job.setDurationMillis(null);
+        meterRegistry.counter("reports.queue.jobs", "outcome", "claimed").increment();
+        return Optional.of(job);
+    }
+
+    @Transactional
+    public boolean complete(String jobId, String workerId, String message) {
+        return owned(jobId, workerId).map(job -> {
+            finish(job, ReportStatus.COMPLETED, message);
+            meterRegistry.counter("reports.queue.jobs", "outcome", "completed").increment();
+            return true;
+        }).orElse(false);
+    }
+
+    // Reintento con backoff exponencial (backoff · 2^(intento-1), tope maxBackoff); DEAD al agotar intentos
+    @Transactional
+    public boolean fail(String jobId, String workerId, String error) {
+        return owned(jobId, workerId).map(job -> {
+            if (job.getAttempts() >= maxAttempts) {
+                finish(job, ReportStatus.DEAD, "Sin más reintentos tras " + job.getAttempts() + " intentos: " + error);
+                meterRegistry.counter("reports.queue.jobs", "outcome", "dead").increment();
+                return true;
+            }
+            job.setStatus(ReportStatus.PENDING);
+            job.setMessage("Intento " + job.getAttempts() + " falló: " + error);
+            job.setNextAttemptAt(LocalDateTime.now().plus(backoffFor(job.getAttempts())));
+            job.setLeaseUntil(null);
+            job.setLockedBy(null);
+            meterRegistry.counter("reports.queue.jobs", "outcome", "retried").increment();
+            return true;
+        }).orElse(false);
+    }
+
+    // Fallo terminal sin reintento (p. ej. email con resultado desconocido)
+    @Transactional
+    public boolean failWithoutRetry(String jobId, String workerId, String error) {
+        return owned(jobId, workerId).map(job -> {
+            finish(job, ReportStatus.FAILED, error);
+            meterRegistry.counter("reports.queue.jobs", "outcome", "failed").increment();
+            return true;
+        }).orElse(false);
+    }
+
+    Duration backoffFor(int attempt) {
+        long factor = 1L << Math.min(Math.max(attempt - 1, 0), 20);
+        Duration delay = backoff.multipliedBy(factor);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    // Si el lease venció y otro worker reclamó el trabajo, este worker ya no puede cerrarlo.
+    // El lock de fila dura hasta el commit: nadie la reclama entre la verificación y la escritura
+    private Optional<ReportRequest> owned(String jobId, String workerId) {
+        Optional<ReportRequest> job = reportRequestRepository.lockOwnedJob(jobId, workerId, ReportStatus.PROCESSING);
+        if (job.isEmpty()) {
+            meterRegistry.counter("reports.queue.jobs", "outcome", "lease_lost").increment();
+        }
+        return job;
+    }
+
+    private void finish(ReportRequest job, ReportStatus status, String message) {
+        LocalDateTime now = LocalDateTime.now();
+        job.setStatus(status);
+        job.setMessage(message);
+        job.setCompletedAt(now);
+        job.setDurationMillis(Duration.between(job.getStartedAt() != null ? job.getStartedAt() : now, now).toMillis());
+        job.setLeaseUntil(null);
+        job.setLockedBy(null);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.hack1base.ReportRequest.domain;
+
+// Quién creó la solicitud: solo las de /sales/summary se despachan, recuperan y encolan
+public enum ReportOrigin {
+    API,
+    SUMMARY
+}
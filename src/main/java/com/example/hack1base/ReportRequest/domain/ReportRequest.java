@@ -8,7 +8,13 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "report_requests")
+@Table(name = "report_requests", indexes = {
+        // Recuperación al arrancar: solicitudes sin terminar en orden de llegada
+        @Index(name = "idx_report_requests_status_requested_at", columnList = "status, requested_at, id"),
+        // Cola de trabajos: PENDING listos para reintento y leases PROCESSING vencidos
+        @Index(name = "idx_report_requests_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_report_requests_status_lease", columnList = "status, lease_until")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,7 +26,8 @@ public class ReportRequest {
     @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
 
-    @Column(nullable = false)
+    // null = todas las sucursales (solicitudes CENTRAL)
+    @Column
     private String branch; 
 
     @Column(nullable = false)
@@ -43,6 +50,47 @@ public class ReportRequest {
     private LocalDateTime requestedAt = LocalDateTime.now();
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "requested_by", nullable = false)
+    @JoinColumn(name = "requested_by")
     private User requestedBy;
+
+    // Las solicitudes de /sales/summary vienen autenticadas como Account: se guarda su email
+    @Column(name = "requested_by_email")
+    private String requestedByEmail;
+
+    // null en filas anteriores a la columna: cuentan como API y nunca se despachan
+    @Enumerated(EnumType.STRING)
+    @Column
+    private ReportOrigin origin;
+
+    // Con DEFAULT, ddl-auto=update puede añadir la columna a una tabla con filas
+    @Column(columnDefinition = "boolean default false")
+    private boolean premium;
+
+    @Column(columnDefinition = "boolean default false")
+    private boolean includeCharts;
+
+    @Column(columnDefinition = "boolean default false")
+    private boolean attachPdf;
+
+    @Column
+    private LocalDateTime startedAt;
+
+    @Column
+    private LocalDateTime completedAt;
+
+    @Column
+    private Long durationMillis;
+
+    // Cola de trabajos (reports.dispatch=queue): intentos, próximo reintento y lease del worker
+    @Column(columnDefinition = "integer default 0")
+    private int attempts;
+
+    @Column
+    private LocalDateTime nextAttemptAt;
+
+    @Column
+    private LocalDateTime leaseUntil;
+
+    @Column
+    private String lockedBy;
 }
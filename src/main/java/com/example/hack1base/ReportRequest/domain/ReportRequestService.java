@@ -1,10 +1,15 @@
 package com.example.hack1base.ReportRequest.domain;
 
 import com.example.hack1base.ReportRequest.estructrure.ReportRequestRepository;
+import com.example.hack1base.Exceptions.ConflictException;
 import com.example.hack1base.Exceptions.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,7 +19,24 @@ public class ReportRequestService {
 
     private final ReportRequestRepository reportRequestRepository;
 
+    // CRUD: solo se copian los datos descriptivos; estado, cola y flags premium los pone el servidor
     public ReportRequest createReportRequest(ReportRequest reportRequest) {
+        return reportRequestRepository.save(ReportRequest.builder()
+                .branch(reportRequest.getBranch())
+                .fromDate(reportRequest.getFromDate())
+                .toDate(reportRequest.getToDate())
+                .emailTo(reportRequest.getEmailTo())
+                .message(reportRequest.getMessage())
+                .requestedBy(reportRequest.getRequestedBy())
+                .status(ReportStatus.PROCESSING)
+                .requestedAt(LocalDateTime.now())
+                .origin(ReportOrigin.API)
+                .build());
+    }
+
+    // Solicitudes de /sales/summary: las únicas que la recuperación y la cola pueden tomar
+    public ReportRequest trackSummaryRequest(ReportRequest reportRequest) {
+        reportRequest.setOrigin(ReportOrigin.SUMMARY);
         return reportRequestRepository.save(reportRequest);
     }
 
@@ -29,6 +51,9 @@ public class ReportRequestService {
     public ReportRequest updateReportRequest(Long id, ReportRequest updatedRequest) {
         return reportRequestRepository.findById(id)
                 .map(report -> {
+                    if (report.getOrigin() == ReportOrigin.SUMMARY) {
+                        throw new ConflictException("Las solicitudes de /sales/summary no se editan por CRUD");
+                    }
                     report.setBranch(updatedRequest.getBranch());
                     report.setFromDate(updatedRequest.getFromDate());
                     report.setToDate(updatedRequest.getToDate());
@@ -43,4 +68,44 @@ public class ReportRequestService {
     public void deleteReportRequest(Long id) {
         reportRequestRepository.deleteById(id);
     }
+
+    public Optional<ReportRequest> findByRequestId(String requestId) {
+        return reportRequestRepository.findReportById(requestId);
+    }
+
+    // Siguiente lote de solicitudes de /sales/summary en PROCESSING anteriores a 'before', después del cursor (afterAt, afterId)
+    public List<ReportRequest> findUnfinishedBatch(LocalDateTime before, LocalDateTime afterAt, String afterId, int size) {
+        return reportRequestRepository.findBatchByStatus(
+                ReportStatus.PROCESSING, ReportOrigin.SUMMARY, before, afterAt, afterId, PageRequest.of(0, size));
+    }
+
+    // true si este nodo ganó la fila para re-publicarla; false si otro nodo la tomó o sigue en curso
+    @Transactional
+    public boolean claimForRecovery(String requestId, LocalDateTime staleBefore) {
+        return reportRequestRepository.claimStale(
+                requestId, ReportStatus.PROCESSING, staleBefore, LocalDateTime.now()) == 1;
+    }
+
+    @Transactional
+    public void markStarted(String requestId) {
+        reportRequestRepository.findReportById(requestId).ifPresent(report -> {
+            report.setStatus(ReportStatus.PROCESSING);
+            report.setStartedAt(LocalDateTime.now());
+            report.setCompletedAt(null);
+            report.setDurationMillis(null);
+        });
+    }
+
+    // COMPLETED/FAILED con la duración medida desde que un worker la tomó (o desde que llegó)
+    @Transactional
+    public void markFinished(String requestId, ReportStatus status, String message) {
+        reportRequestRepository.findReportById(requestId).ifPresent(report -> {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime start = report.getStartedAt() != null ? report.getStartedAt() : report.getRequestedAt();
+            report.setStatus(status);
+            report.setMessage(message);
+            report.setCompletedAt(now);
+            report.setDurationMillis(start != null ? Duration.between(start, now).toMillis() : null);
+        });
+    }
 }
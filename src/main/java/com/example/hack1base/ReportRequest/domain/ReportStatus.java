@@ -1,7 +1,9 @@
 package com.example.hack1base.ReportRequest.domain;
 
 public enum ReportStatus {
+    PENDING,
     PROCESSING,
     COMPLETED,
-    FAILED
-}
\ No newline at end of file
+    FAILED,
+    DEAD
+}
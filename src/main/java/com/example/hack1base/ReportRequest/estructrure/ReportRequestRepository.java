@@ -1,9 +1,62 @@
 package com.example.hack1base.ReportRequest.estructrure;
 
 
+import com.example.hack1base.ReportRequest.domain.ReportOrigin;
 import com.example.hack1base.ReportRequest.domain.ReportRequest;
+import com.example.hack1base.ReportRequest.domain.ReportStatus;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface ReportRequestRepository extends JpaRepository<ReportRequest, Long> { }
+public interface ReportRequestRepository extends JpaRepository<ReportRequest, Long> {
+
+    // El id de la entidad es un UUID String: búsqueda directa por la PK
+    Optional<ReportRequest> findReportById(String id);
+
+    // Keyset sobre (requestedAt, id), servido por idx_report_requests_status_requested_at
+    @Query("select r from ReportRequest r where r.status = :status and r.origin = :origin and r.requestedAt < :before " +
+            "and (r.requestedAt > :afterAt or (r.requestedAt = :afterAt and r.id > :afterId)) " +
+            "order by r.requestedAt, r.id")
+    List<ReportRequest> findBatchByStatus(@Param("status") ReportStatus status,
+                                          @Param("origin") ReportOrigin origin,
+                                          @Param("before") LocalDateTime before,
+                                          @Param("afterAt") LocalDateTime afterAt,
+                                          @Param("afterId") String afterId,
+                                          Pageable pageable);
+
+    // Reclamo de recuperación (modo evento): UPDATE condicional, solo un nodo lo gana y solo si la fila
+    // lleva más de staleBefore sin que nadie la tome; started_at pasa a ser la marca del reclamo
+    @Modifying
+    @Query("update ReportRequest r set r.startedAt = :now where r.id = :id and r.status = :status " +
+            "and coalesce(r.startedAt, r.requestedAt) < :staleBefore")
+    int claimStale(@Param("id") String id,
+                   @Param("status") ReportStatus status,
+                   @Param("staleBefore") LocalDateTime staleBefore,
+                   @Param("now") LocalDateTime now);
+
+    // Reclamo de trabajos: las filas bloqueadas por otro worker se saltan en vez de esperar.
+    // Solo origin = 'SUMMARY': lo que entra por el CRUD nunca se ejecuta
+    @Query(value = "select * from report_requests " +
+            "where origin = 'SUMMARY' and ((status = 'PENDING' and next_attempt_at <= :now) " +
+            "or (status = 'PROCESSING' and lease_until < :now)) " +
+            "order by requested_at, id limit :limit for update skip locked", nativeQuery = true)
+    List<ReportRequest> lockNextJobs(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Cierre de un trabajo: FOR UPDATE sobre la fila solo si este worker aún tiene el lease.
+    // Un reclamo concurrente la salta (SKIP LOCKED) o, si llegó antes, la fila ya no cumple el filtro
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from ReportRequest r where r.id = :id and r.lockedBy = :workerId and r.status = :status")
+    Optional<ReportRequest> lockOwnedJob(@Param("id") String id,
+                                         @Param("workerId") String workerId,
+                                         @Param("status") ReportStatus status);
+}
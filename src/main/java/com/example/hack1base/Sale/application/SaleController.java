@@ -2,26 +2,55 @@ package com.example.hack1base.Sale.application;
 
 import com.example.hack1base.JWT.domain.Account;
 import com.example.hack1base.Sale.domain.Sale;
+import com.example.hack1base.Sale.domain.SaleCursor;
 import com.example.hack1base.Sale.domain.SaleService;
+import com.example.hack1base.Sale.domain.SaleWindow;
+import com.example.hack1base.Sale.web.SaleBatchLineResult;
+import com.example.hack1base.Sale.web.SaleBatchResponse;
+import com.example.hack1base.Sale.web.SaleCursorPage;
+import com.example.hack1base.Sale.web.SaleExportWriter;
+import com.example.hack1base.Sale.web.SaleMapper;
 import com.example.hack1base.Sale.web.SaleRequest;
 import com.example.hack1base.Sale.web.SaleResponse;
 import com.example.hack1base.Exceptions.ForbiddenException;
 import com.example.hack1base.Exceptions.ResourceNotFoundException;
 import com.example.hack1base.Exceptions.UnauthorizedException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 
 @RestController
@@ -30,7 +59,12 @@ import java.time.LocalTime;
 public class SaleController {
 
     private final SaleService saleService;
-    private final ModelMapper modelMapper;
+    private final SaleMapper saleMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${sales.batch.chunkSize:500}")
+    private int batchChunkSize;
 
     @PostMapping
     public ResponseEntity<SaleResponse> createSale(@Valid @RequestBody SaleRequest request) {
@@ -38,24 +72,84 @@ public class SaleController {
         if (current == null) {
             throw new UnauthorizedException("No autenticado");
         }
-        if ("BRANCH".equalsIgnoreCase(current.getRole())) {
-            if (request.getBranch() == null || !request.getBranch().equalsIgnoreCase(current.getBranch())) {
-                throw new ForbiddenException("No autorizado para crear ventas en otra sucursal");
-            }
+        if (!canWriteBranch(current, request.getBranch())) {
+            throw new ForbiddenException("No autorizado para crear ventas en otra sucursal");
         }
         // Mapear DTO a entidad
-        Sale toCreate = modelMapper.map(request, Sale.class);
+        Sale toCreate = saleMapper.toSale(request);
         Sale created = saleService.createSale(toCreate);
-        return ResponseEntity.ok(modelMapper.map(created, SaleResponse.class));
+        return ResponseEntity.ok(saleMapper.toResponse(created));
+    }
+
+    // Ingesta masiva: arreglo JSON o NDJSON, leído elemento a elemento y persistido por lotes
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<SaleBatchResponse> createSalesBatch(HttpServletRequest httpRequest) throws IOException {
+        Account current = getCurrentAccount();
+        if (current == null) throw new UnauthorizedException("No autenticado");
+
+        List<SaleBatchLineResult> results = new ArrayList<>();
+        Map<String, Boolean> branchDecisions = new HashMap<>();
+        List<Sale> chunk = new ArrayList<>(batchChunkSize);
+        List<Integer> chunkLines = new ArrayList<>(batchChunkSize);
+        int line = 0;
+
+        try (MappingIterator<SaleRequest> it = objectMapper.readerFor(SaleRequest.class)
+                .readValues(httpRequest.getInputStream())) {
+            while (true) {
+                SaleRequest request;
+                try {
+                    if (!it.hasNextValue()) break;
+                    request = it.nextValue();
+                } catch (JsonMappingException e) {
+                    results.add(SaleBatchLineResult.rejected(++line, "JSON inválido: " + e.getOriginalMessage()));
+                    continue;
+                } catch (JsonProcessingException e) {
+                    // Error de sintaxis: el resto del cuerpo no se puede leer
+                    results.add(SaleBatchLineResult.rejected(++line, "JSON inválido: " + e.getOriginalMessage()));
+                    break;
+                }
+                line++;
+
+                Set<ConstraintViolation<SaleRequest>> violations = validator.validate(request);
+                if (!violations.isEmpty()) {
+                    results.add(SaleBatchLineResult.rejected(line, violations.iterator().next().getMessage()));
+                    continue;
+                }
+                // La autorización se decide una sola vez por sucursal
+                String branch = request.getBranch();
+                boolean allowed = branchDecisions.computeIfAbsent(branch.toLowerCase(Locale.ROOT),
+                        b -> canWriteBranch(current, branch));
+                if (!allowed) {
+                    results.add(SaleBatchLineResult.rejected(line, "No autorizado para crear ventas en otra sucursal"));
+                    continue;
+                }
+
+                chunk.add(saleMapper.toSale(request));
+                chunkLines.add(line);
+                if (chunk.size() >= batchChunkSize) {
+                    flushBatch(chunk, chunkLines, results);
+                }
+            }
+        }
+        flushBatch(chunk, chunkLines, results);
+
+        results.sort(Comparator.comparingInt(SaleBatchLineResult::getLine));
+        int accepted = (int) results.stream()
+                .filter(r -> SaleBatchLineResult.ACCEPTED.equals(r.getStatus()))
+                .count();
+        return ResponseEntity.ok(new SaleBatchResponse(accepted, results.size() - accepted, results));
     }
 
     @GetMapping
-    public ResponseEntity<Page<SaleResponse>> getAllSales(
+    public ResponseEntity<?> getAllSales(
             @RequestParam(required = false) String from,
             @RequestParam(required = false) String to,
             @RequestParam(required = false) String branch,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "offset") String paging,
+            @RequestParam(defaultValue = "false") boolean includeTotal
     ) {
         Account current = getCurrentAccount();
         if (current == null) throw new UnauthorizedException("No autenticado");
@@ -73,12 +167,74 @@ public class SaleController {
             start = f.atStartOfDay();
             end = t.atTime(LocalTime.MAX);
         }
+
+        // Keyset: con cursor (o paging=keyset) se pagina por (soldAt, id) sin OFFSET
+        if (cursor != null || "keyset".equalsIgnoreCase(paging)) {
+            SaleCursor after = cursor != null ? SaleCursor.decode(cursor) : null;
+            SaleWindow window = saleService.scrollSales(start, end, branch, after, size, includeTotal);
+            List<SaleResponse> content = window.content().stream()
+                    .map(saleMapper::toResponse)
+                    .toList();
+            return ResponseEntity.ok(new SaleCursorPage(content, size,
+                    window.hasNext() ? window.next().encode() : null, window.hasNext(), window.totalElements()));
+        }
+
         Pageable pageable = PageRequest.of(page, size);
+        // Slice: mismas páginas por offset pero sin el count(*) del total
+        if ("slice".equalsIgnoreCase(paging)) {
+            Slice<Sale> slice = saleService.findSalesSlice(start, end, branch, pageable);
+            return ResponseEntity.ok(slice.map(saleMapper::toResponse));
+        }
         Page<Sale> result = saleService.findSales(start, end, branch, pageable);
-        Page<SaleResponse> mapped = result.map(s -> modelMapper.map(s, SaleResponse.class));
+        Page<SaleResponse> mapped = result.map(saleMapper::toResponse);
         return ResponseEntity.ok(mapped);
     }
 
+    // Exportación en streaming desde el cursor de la base: memoria constante, sin paginar
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportSales(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String branch,
+            @RequestParam(defaultValue = "csv") String format
+    ) {
+        Account current = getCurrentAccount();
+        if (current == null) throw new UnauthorizedException("No autenticado");
+
+        if ("BRANCH".equalsIgnoreCase(current.getRole())) {
+            branch = current.getBranch();
+        }
+        SaleExportWriter.Format exportFormat = switch (format.toLowerCase(Locale.ROOT)) {
+            case "csv" -> SaleExportWriter.Format.CSV;
+            case "ndjson" -> SaleExportWriter.Format.NDJSON;
+            default -> throw new IllegalArgumentException("Formato inválido. Debe ser csv o ndjson");
+        };
+
+        LocalDateTime start = null;
+        LocalDateTime end = null;
+        if (from != null && to != null) {
+            start = LocalDate.parse(from).atStartOfDay();
+            end = LocalDate.parse(to).atTime(LocalTime.MAX);
+        }
+
+        final LocalDateTime exportStart = start;
+        final LocalDateTime exportEnd = end;
+        final String exportBranch = branch;
+        StreamingResponseBody body = out -> {
+            SaleExportWriter writer = new SaleExportWriter(exportFormat, out, objectMapper.getFactory());
+            saleService.exportSales(exportStart, exportEnd, exportBranch, writer);
+            writer.finish();
+        };
+
+        boolean csv = exportFormat == SaleExportWriter.Format.CSV;
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"sales." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<SaleResponse> getSaleById(@PathVariable Long id) {
         Account current = getCurrentAccount();
@@ -89,7 +245,7 @@ public class SaleController {
         if (!canAccessSale(current, sale)) {
             throw new ForbiddenException("No autorizado para acceder a esta venta");
         }
-        return ResponseEntity.ok(modelMapper.map(sale, SaleResponse.class));
+        return ResponseEntity.ok(saleMapper.toResponse(sale));
     }
 
     @PutMapping("/{id}")
@@ -102,9 +258,9 @@ public class SaleController {
         if (!canAccessSale(current, existing)) {
             throw new ForbiddenException("No autorizado para actualizar esta venta");
         }
-        Sale updates = modelMapper.map(request, Sale.class);
+        Sale updates = saleMapper.toSale(request);
         Sale updated = saleService.updateSale(id, updates);
-        return ResponseEntity.ok(modelMapper.map(updated, SaleResponse.class));
+        return ResponseEntity.ok(saleMapper.toResponse(updated));
     }
 
     @DeleteMapping("/{id}")
@@ -119,6 +275,30 @@ public class SaleController {
         return ResponseEntity.noContent().build();
     }
 
+    private void flushBatch(List<Sale> chunk, List<Integer> chunkLines, List<SaleBatchLineResult> results) {
+        if (chunk.isEmpty()) return;
+        try {
+            List<Sale> saved = saleService.createSales(chunk);
+            for (int i = 0; i < saved.size(); i++) {
+                results.add(SaleBatchLineResult.accepted(chunkLines.get(i), saved.get(i).getId()));
+            }
+        } catch (DataAccessException | TransactionException e) {
+            // Incluye los fallos al confirmar (TransactionSystemException, UnexpectedRollbackException):
+            // los lotes anteriores ya están guardados y sus líneas deben llegar al cliente
+            String error = "Error guardando el lote: " + e.getMostSpecificCause().getMessage();
+            for (Integer chunkLine : chunkLines) {
+                results.add(SaleBatchLineResult.rejected(chunkLine, error));
+            }
+        }
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private boolean canWriteBranch(Account acc, String branch) {
+        if (!"BRANCH".equalsIgnoreCase(acc.getRole())) return true;
+        return branch != null && branch.equalsIgnoreCase(acc.getBranch());
+    }
+
     private Account getCurrentAccount() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || !(auth.getPrincipal() instanceof Account acc)) {
@@ -10,7 +10,13 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "sales")
+@Table(name = "sales", indexes = {
+        // Filtros por sucursal + rango de fechas (listados y keyset por soldAt, id)
+        @Index(name = "idx_sales_branch_sold_at", columnList = "branch, sold_at, id"),
+        @Index(name = "idx_sales_sold_at", columnList = "sold_at, id"),
+        // Cubre las agregaciones por rango: no hace falta leer la tabla
+        @Index(name = "idx_sales_aggregation", columnList = "sold_at, branch, sku, units, price")
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -0,0 +1,34 @@
+package com.example.hack1base.Sale.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición de paginación por keyset sobre (soldAt, id). Se entrega al cliente como token opaco.
+ */
+public record SaleCursor(LocalDateTime soldAt, String id) {
+
+    public static SaleCursor of(Sale sale) {
+        return new SaleCursor(sale.getSoldAt(), sale.getId());
+    }
+
+    public String encode() {
+        String raw = soldAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SaleCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep < 0 || sep == raw.length() - 1) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new SaleCursor(LocalDateTime.parse(raw.substring(0, sep)), raw.substring(sep + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
@@ -1,23 +1,69 @@
 package com.example.hack1base.Sale.domain;
 
 import com.example.hack1base.Sale.estructure.SaleRepository;
+import com.example.hack1base.Sale.web.SaleRow;
 import com.example.hack1base.Exceptions.ResourceNotFoundException;
+import com.example.hack1base.salesaggregation.domain.SalesAggregatesCache;
+import com.example.hack1base.salesaggregation.domain.SalesRollupService;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.time.LocalDateTime;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 @Service
 @RequiredArgsConstructor
 public class SaleService {
 
+    private static final Sort KEYSET_SORT = Sort.by(Sort.Order.desc("soldAt"), Sort.Order.desc("id"));
+
     private final SaleRepository saleRepository;
+    private final SalesRollupService salesRollupService;
+
+    private SalesAggregatesCache aggregatesCache;
 
+    @Autowired(required = false)
+    public void setAggregatesCache(SalesAggregatesCache aggregatesCache) {
+        this.aggregatesCache = aggregatesCache;
+    }
+
+    @Transactional
     public Sale createSale(Sale sale) {
-        return saleRepository.save(sale);
+        Sale saved = saleRepository.save(sale);
+        salesRollupService.recordSale(saved);
+        invalidateAggregates(saved);
+        return saved;
+    }
+
+    // Un lote de la ingesta masiva: Hibernate agrupa los INSERT (hibernate.jdbc.batch_size)
+    @Transactional
+    public List<Sale> createSales(List<Sale> sales) {
+        List<Sale> saved = saleRepository.saveAll(sales);
+        salesRollupService.recordSales(saved);
+        if (aggregatesCache != null) {
+            Set<SalesAggregatesCache.SaleSlot> slots = new HashSet<>();
+            for (Sale sale : saved) {
+                if (sale.getSoldAt() != null) {
+                    slots.add(new SalesAggregatesCache.SaleSlot(sale.getSoldAt().toLocalDate(), sale.getBranch()));
+                }
+            }
+            aggregatesCache.invalidateSales(slots);
+        }
+        return saved;
     }
 
     public List<Sale> getAllSales() {
@@ -28,22 +74,41 @@ public class SaleService {
         return saleRepository.findById(id);
     }
 
+    @Transactional
     public Sale updateSale(Long id, Sale saleDetails) {
         return saleRepository.findById(id)
                 .map(sale -> {
+                    // Quitar del rollup los valores previos: la venta puede cambiar de día o branch
+                    salesRollupService.retractSale(sale);
+                    invalidateAggregates(sale);
                     sale.setSku(saleDetails.getSku());
                     sale.setUnits(saleDetails.getUnits());
                     sale.setPrice(saleDetails.getPrice());
                     sale.setBranch(saleDetails.getBranch());
                     sale.setSoldAt(saleDetails.getSoldAt());
                     sale.setCreatedBy(saleDetails.getCreatedBy());
-                    return saleRepository.save(sale);
+                    Sale saved = saleRepository.save(sale);
+                    salesRollupService.recordSale(saved);
+                    invalidateAggregates(saved);
+                    return saved;
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Sale not found"));
     }
 
+    @Transactional
     public void deleteSale(Long id) {
-        saleRepository.deleteById(id);
+        saleRepository.findById(id).ifPresent(sale -> {
+            salesRollupService.retractSale(sale);
+            invalidateAggregates(sale);
+            saleRepository.delete(sale);
+        });
+    }
+
+    // Solo las ventanas cacheadas que contienen el día y la sucursal de la venta
+    private void invalidateAggregates(Sale sale) {
+        if (aggregatesCache != null && sale.getSoldAt() != null) {
+            aggregatesCache.invalidateSale(sale.getSoldAt().toLocalDate(), sale.getBranch());
+        }
     }
 
     public Page<Sale> findSales(LocalDateTime start, LocalDateTime end, String branch, Pageable pageable) {
@@ -59,4 +124,81 @@ public class SaleService {
         }
         return saleRepository.findAll(pageable);
     }
-}
\ No newline at end of file
+
+    // Igual que findSales pero sin count(*): para clientes que solo necesitan "siguiente"
+    public Slice<Sale> findSalesSlice(LocalDateTime start, LocalDateTime end, String branch, Pageable pageable) {
+        if (start != null && end != null) {
+            if (branch == null || branch.isBlank()) {
+                return saleRepository.findSliceBySoldAtBetween(start, end, pageable);
+            } else {
+                return saleRepository.findSliceByBranchAndSoldAtBetween(branch, start, end, pageable);
+            }
+        }
+        if (branch != null && !branch.isBlank()) {
+            return saleRepository.findSliceByBranch(branch, pageable);
+        }
+        return saleRepository.findSliceBy(pageable);
+    }
+
+    // Paginación por keyset sobre (soldAt desc, id desc): costo constante sin importar la profundidad.
+    // Se pide una fila extra para saber si hay página siguiente; el count solo si includeTotal.
+    public SaleWindow scrollSales(LocalDateTime start, LocalDateTime end, String branch,
+                                  SaleCursor after, int size, boolean includeTotal) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size debe ser mayor que 0");
+        }
+        Specification<Sale> filters = filters(start, end, branch);
+        Specification<Sale> spec = after == null ? filters : filters.and(after(after));
+        List<Sale> rows = saleRepository.findBy(spec, q -> q.sortBy(KEYSET_SORT).limit(size + 1).all());
+
+        SaleCursor next = null;
+        List<Sale> content = rows;
+        if (rows.size() > size) {
+            content = rows.subList(0, size);
+            next = SaleCursor.of(content.get(size - 1));
+        }
+        Long total = includeTotal ? saleRepository.count(filters) : null;
+        return new SaleWindow(content, next, total);
+    }
+
+    private static Specification<Sale> filters(LocalDateTime start, LocalDateTime end, String branch) {
+        return (root, query, cb) -> {
+            // En el select de filas se trae el creador con join; el count no lo necesita
+            if (query != null && !Long.class.equals(query.getResultType())) {
+                root.fetch("createdBy", JoinType.LEFT);
+            }
+            List<Predicate> predicates = new ArrayList<>();
+            if (start != null && end != null) {
+                predicates.add(cb.between(root.<LocalDateTime>get("soldAt"), start, end));
+            }
+            if (branch != null && !branch.isBlank()) {
+                predicates.add(cb.equal(root.<String>get("branch"), branch));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static Specification<Sale> after(SaleCursor cursor) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.<LocalDateTime>get("soldAt"), cursor.soldAt()),
+                cb.and(cb.equal(root.<LocalDateTime>get("soldAt"), cursor.soldAt()),
+                        cb.lessThan(root.<String>get("id"), cursor.id())));
+    }
+
+    // Recorre el cursor dentro de una transacción de solo lectura; cada fila va directo al consumidor
+    @Transactional(readOnly = true)
+    public void exportSales(LocalDateTime start, LocalDateTime end, String branch, Consumer<SaleRow> sink) {
+        boolean hasBranch = branch != null && !branch.isBlank();
+        Stream<SaleRow> rows;
+        if (start != null && end != null) {
+            rows = hasBranch
+                    ? saleRepository.streamRowsForBranchBetween(branch, start, end)
+                    : saleRepository.streamRowsBetween(start, end);
+        } else {
+            rows = hasBranch ? saleRepository.streamRowsForBranch(branch) : saleRepository.streamRows();
+        }
+        try (rows) {
+            rows.forEach(sink);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.hack1base.Sale.domain;
+
+import java.util.List;
+
+/**
+ * Una página de la paginación por keyset: el contenido, el cursor siguiente (null si no hay más)
+ * y el total, que solo se calcula si se pidió.
+ */
+public record SaleWindow(List<Sale> content, SaleCursor next, Long totalElements) {
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
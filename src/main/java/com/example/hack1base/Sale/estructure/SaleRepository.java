@@ -1,20 +1,113 @@
 package com.example.hack1base.Sale.estructure;
 
 import com.example.hack1base.Sale.domain.Sale;
+import com.example.hack1base.Sale.web.SaleRow;
+import com.example.hack1base.salesaggregation.domain.SalesCell;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface SaleRepository extends JpaRepository<Sale, Long> {
+public interface SaleRepository extends JpaRepository<Sale, Long>, JpaSpecificationExecutor<Sale> {
+	String AGGREGATION_FETCH_SIZE = "1000";
+	String EXPORT_FETCH_SIZE = "2000";
+
 	List<Sale> findBySoldAtBetween(LocalDateTime from, LocalDateTime to);
 	List<Sale> findByBranchAndSoldAtBetween(String branch, LocalDateTime from, LocalDateTime to);
 
+	// Listados paginados: createdBy viaja en el mismo select (sin N+1 al mapear el username)
+	@EntityGraph(attributePaths = "createdBy")
 	Page<Sale> findBySoldAtBetween(LocalDateTime from, LocalDateTime to, Pageable pageable);
+	@EntityGraph(attributePaths = "createdBy")
 	Page<Sale> findByBranchAndSoldAtBetween(String branch, LocalDateTime from, LocalDateTime to, Pageable pageable);
+	@EntityGraph(attributePaths = "createdBy")
 	Page<Sale> findByBranch(String branch, Pageable pageable);
-}
\ No newline at end of file
+	@Override
+	@EntityGraph(attributePaths = "createdBy")
+	Page<Sale> findAll(Pageable pageable);
+
+	// Variantes Slice: sin query de count, solo se pide una fila extra para saber si hay más
+	@EntityGraph(attributePaths = "createdBy")
+	Slice<Sale> findSliceBySoldAtBetween(LocalDateTime from, LocalDateTime to, Pageable pageable);
+	@EntityGraph(attributePaths = "createdBy")
+	Slice<Sale> findSliceByBranchAndSoldAtBetween(String branch, LocalDateTime from, LocalDateTime to, Pageable pageable);
+	@EntityGraph(attributePaths = "createdBy")
+	Slice<Sale> findSliceByBranch(String branch, Pageable pageable);
+	@EntityGraph(attributePaths = "createdBy")
+	Slice<Sale> findSliceBy(Pageable pageable);
+
+	// Agregaciones resueltas en la base: una fila por sku × branch, leída en streaming
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = AGGREGATION_FETCH_SIZE),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("select new com.example.hack1base.salesaggregation.domain.SalesCell(" +
+			"s.sku, s.branch, sum(s.units), sum(s.units * s.price)) " +
+			"from Sale s where s.soldAt between :from and :to group by s.sku, s.branch")
+	Stream<SalesCell> streamSalesCellsBetween(@Param("from") LocalDateTime from,
+											  @Param("to") LocalDateTime to);
+
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = AGGREGATION_FETCH_SIZE),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("select new com.example.hack1base.salesaggregation.domain.SalesCell(" +
+			"s.sku, s.branch, sum(s.units), sum(s.units * s.price)) " +
+			"from Sale s where s.branch = :branch and s.soldAt between :from and :to group by s.sku, s.branch")
+	Stream<SalesCell> streamSalesCellsForBranchBetween(@Param("branch") String branch,
+													   @Param("from") LocalDateTime from,
+													   @Param("to") LocalDateTime to);
+
+	// Exportación: filas planas con el username del creador, leídas del cursor en orden
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("select new com.example.hack1base.Sale.web.SaleRow(" +
+			"s.id, s.sku, s.units, s.price, s.branch, s.soldAt, u.username, s.createdAt) " +
+			"from Sale s left join s.createdBy u order by s.soldAt, s.id")
+	Stream<SaleRow> streamRows();
+
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("select new com.example.hack1base.Sale.web.SaleRow(" +
+			"s.id, s.sku, s.units, s.price, s.branch, s.soldAt, u.username, s.createdAt) " +
+			"from Sale s left join s.createdBy u where s.branch = :branch order by s.soldAt, s.id")
+	Stream<SaleRow> streamRowsForBranch(@Param("branch") String branch);
+
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("select new com.example.hack1base.Sale.web.SaleRow(" +
+			"s.id, s.sku, s.units, s.price, s.branch, s.soldAt, u.username, s.createdAt) " +
+			"from Sale s left join s.createdBy u where s.soldAt between :from and :to order by s.soldAt, s.id")
+	Stream<SaleRow> streamRowsBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("select new com.example.hack1base.Sale.web.SaleRow(" +
+			"s.id, s.sku, s.units, s.price, s.branch, s.soldAt, u.username, s.createdAt) " +
+			"from Sale s left join s.createdBy u " +
+			"where s.branch = :branch and s.soldAt between :from and :to order by s.soldAt, s.id")
+	Stream<SaleRow> streamRowsForBranchBetween(@Param("branch") String branch,
+											   @Param("from") LocalDateTime from,
+											   @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,24 @@
+package com.example.hack1base.Sale.web;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SaleBatchLineResult {
+    public static final String ACCEPTED = "ACCEPTED";
+    public static final String REJECTED = "REJECTED";
+
+    private final int line;
+    private final String status;
+    private final String id;
+    private final String error;
+
+    public static SaleBatchLineResult accepted(int line, String id) {
+        return new SaleBatchLineResult(line, ACCEPTED, id, null);
+    }
+
+    public static SaleBatchLineResult rejected(int line, String error) {
+        return new SaleBatchLineResult(line, REJECTED, null, error);
+    }
+}
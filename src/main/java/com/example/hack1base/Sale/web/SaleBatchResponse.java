@@ -0,0 +1,14 @@
+package com.example.hack1base.Sale.web;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class SaleBatchResponse {
+    private final int accepted;
+    private final int rejected;
+    private final List<SaleBatchLineResult> results;
+}
@@ -0,0 +1,16 @@
+package com.example.hack1base.Sale.web;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class SaleCursorPage {
+    private final List<SaleResponse> content;
+    private final int size;
+    private final String nextCursor;
+    private final boolean hasNext;
+    private final Long totalElements;
+}
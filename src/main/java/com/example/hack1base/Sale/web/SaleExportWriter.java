@@ -0,0 +1,113 @@
+package com.example.hack1base.Sale.web;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Escribe filas de venta en CSV o NDJSON a medida que llegan del cursor, sin acumularlas.
+ */
+public class SaleExportWriter implements Consumer<SaleRow> {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final String CSV_HEADER = "id,sku,units,price,branch,soldAt,createdBy,createdAt\n";
+
+    private final Format format;
+    private final Writer writer;
+    private final JsonGenerator json;
+
+    public SaleExportWriter(Format format, OutputStream out, JsonFactory jsonFactory) throws IOException {
+        this.format = format;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.NDJSON) {
+            this.json = jsonFactory.createGenerator(writer);
+            this.json.setRootValueSeparator(null);
+        } else {
+            this.json = null;
+            writer.write(CSV_HEADER);
+        }
+    }
+
+    @Override
+    public void accept(SaleRow row) {
+        try {
+            if (format == Format.NDJSON) {
+                writeJson(row);
+            } else {
+                writeCsv(row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish() throws IOException {
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+    }
+
+    private void writeCsv(SaleRow row) throws IOException {
+        writeCsvField(row.id());
+        writer.write(',');
+        writeCsvField(row.sku());
+        writer.write(',');
+        writer.write(Integer.toString(row.units()));
+        writer.write(',');
+        writer.write(Double.toString(row.price()));
+        writer.write(',');
+        writeCsvField(row.branch());
+        writer.write(',');
+        writeCsvField(toText(row.soldAt()));
+        writer.write(',');
+        writeCsvField(row.createdBy());
+        writer.write(',');
+        writeCsvField(toText(row.createdAt()));
+        writer.write('\n');
+    }
+
+    private void writeCsvField(String value) throws IOException {
+        if (value == null) return;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private void writeJson(SaleRow row) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("id", row.id());
+        json.writeStringField("sku", row.sku());
+        json.writeNumberField("units", row.units());
+        json.writeNumberField("price", row.price());
+        json.writeStringField("branch", row.branch());
+        json.writeStringField("soldAt", toText(row.soldAt()));
+        json.writeStringField("createdBy", row.createdBy());
+        json.writeStringField("createdAt", toText(row.createdAt()));
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static String toText(LocalDateTime value) {
+        return value != null ? value.toString() : null;
+    }
+}
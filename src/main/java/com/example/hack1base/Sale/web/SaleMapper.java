@@ -0,0 +1,34 @@
+package com.example.hack1base.Sale.web;
+
+import com.example.hack1base.Sale.domain.Sale;
+import com.example.hack1base.User.domain.User;
+import org.springframework.stereotype.Component;
+
+// Mapeo escrito a mano: sin reflexión ni matching de propiedades en cada request
+@Component
+public class SaleMapper {
+
+    public Sale toSale(SaleRequest request) {
+        Sale sale = new Sale();
+        sale.setSku(request.getSku());
+        sale.setUnits(request.getUnits());
+        sale.setPrice(request.getPrice());
+        sale.setBranch(request.getBranch());
+        sale.setSoldAt(request.getSoldAt());
+        return sale;
+    }
+
+    public SaleResponse toResponse(Sale sale) {
+        User createdBy = sale.getCreatedBy();
+        return new SaleResponse(
+                sale.getId(),
+                sale.getSku(),
+                sale.getUnits(),
+                sale.getPrice(),
+                sale.getBranch(),
+                sale.getSoldAt(),
+                createdBy != null ? createdBy.getUsername() : null,
+                sale.getCreatedAt()
+        );
+    }
+}
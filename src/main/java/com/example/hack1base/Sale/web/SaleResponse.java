@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 public class SaleResponse {
-    private Long id;
+    private String id;
     private String sku;
     private int units;
     private double price;
@@ -0,0 +1,11 @@
+package com.example.hack1base.Sale.web;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila plana de una venta con el username del creador, construida directamente en la consulta
+ * (sin entidades gestionadas ni mapeo por reflexión).
+ */
+public record SaleRow(String id, String sku, int units, double price, String branch,
+                      LocalDateTime soldAt, String createdBy, LocalDateTime createdAt) {
+}
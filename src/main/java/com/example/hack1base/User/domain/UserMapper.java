@@ -0,0 +1,19 @@
+package com.example.hack1base.User.domain;
+
+import org.springframework.stereotype.Component;
+
+// Mapeo escrito a mano de User a UserResponse (role como nombre del enum)
+@Component
+public class UserMapper {
+
+    public UserResponse toResponse(User user) {
+        UserResponse response = new UserResponse();
+        response.setId(user.getId());
+        response.setUsername(user.getUsername());
+        response.setEmail(user.getEmail());
+        response.setRole(user.getRole() != null ? user.getRole().name() : null);
+        response.setBranch(user.getBranch());
+        response.setCreatedAt(user.getCreatedAt());
+        return response;
+    }
+}
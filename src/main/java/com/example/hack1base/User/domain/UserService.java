@@ -2,7 +2,6 @@ package com.example.hack1base.User.domain;
 
 import com.example.hack1base.User.estructure.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -15,7 +14,7 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
 
     // ---------- REGISTRO ----------
     public UserResponse register(User user) {
@@ -26,7 +25,7 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         User savedUser = userRepository.save(user);
 
-        return modelMapper.map(savedUser, UserResponse.class);
+        return userMapper.toResponse(savedUser);
     }
 
     // ---------- LOGIN ----------
@@ -37,14 +36,14 @@ public class UserService {
             throw new RuntimeException("Invalid credentials");
         }
 
-        return modelMapper.map(user, UserResponse.class);
+        return userMapper.toResponse(user);
     }
 
     // ---------- LISTAR TODOS ----------
     public List<UserResponse> getAllUsers() {
         return userRepository.findAll()
                 .stream()
-                .map(user -> modelMapper.map(user, UserResponse.class))
+                .map(userMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
@@ -53,7 +52,7 @@ public class UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        return modelMapper.map(user, UserResponse.class);
+        return userMapper.toResponse(user);
     }
 
     // ---------- ELIMINAR ----------
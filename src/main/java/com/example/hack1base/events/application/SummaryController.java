@@ -1,11 +1,23 @@
 package com.example.hack1base.events.application;
 
+import com.example.hack1base.EmailOutbox.domain.EmailOutboxQueue;
+import com.example.hack1base.ReportRequest.domain.ReportRequest;
+import com.example.hack1base.ReportRequest.domain.ReportRequestService;
+import com.example.hack1base.ReportRequest.domain.ReportStatus;
 import com.example.hack1base.events.domain.ReportRequestedEvent;
 import com.example.hack1base.events.dto.SummaryRequest;
 import com.example.hack1base.JWT.domain.Account;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -14,9 +26,10 @@ import org.springframework.security.core.Authentication;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/sales/summary")
@@ -24,6 +37,19 @@ import java.util.UUID;
 public class SummaryController {
 
     private final ApplicationEventPublisher publisher;
+    private final MeterRegistry meterRegistry;
+    private final ReportRequestService reportRequestService;
+
+    private EmailOutboxQueue outboxQueue;
+
+    @Autowired(required = false)
+    public void setOutboxQueue(EmailOutboxQueue outboxQueue) {
+        this.outboxQueue = outboxQueue;
+    }
+
+    // event: se publica en el bus de este nodo; queue: solo se encola en report_requests (workers de todos los nodos)
+    @Value("${reports.dispatch:event}")
+    private String dispatchMode = "event";
 
     @PostMapping("/weekly")
     public ResponseEntity<Map<String, Object>> generateWeeklySummary(@RequestBody SummaryRequest request,
@@ -52,12 +78,15 @@ public class SummaryController {
             }
         }
 
-        String requestId = UUID.randomUUID().toString();
-        publisher.publishEvent(new ReportRequestedEvent(this, request, requestId, auth.getName()));
+        ReportRequest tracked = track(request, auth, false);
+        String requestId = tracked.getId();
+        if (!queued() && !submit(new ReportRequestedEvent(this, request, requestId, auth.getName()))) {
+            return saturated();
+        }
 
         Map<String, Object> response = Map.of(
                 "requestId", requestId,
-                "status", "PROCESSING",
+                "status", tracked.getStatus().name(),
                 "message", "Su solicitud de reporte está siendo procesada. Recibirá el resumen en " + request.getEmailTo() + " en unos momentos.",
                 "estimatedTime", "30-60 segundos",
                 "requestedAt", Instant.now().toString()
@@ -101,22 +130,116 @@ public class SummaryController {
             }
         }
 
-        String requestId = UUID.randomUUID().toString();
+        ReportRequest tracked = track(request, auth, true);
+        String requestId = tracked.getId();
 
-        publisher.publishEvent(new ReportRequestedEvent(
+        if (!queued() && !submit(new ReportRequestedEvent(
                 this, request, requestId, auth.getName(), true, true, true
-        ));
+        ))) {
+            return saturated();
+        }
 
+        // attachPdf se guarda con la solicitud, pero el pipeline aún no genera el PDF: no se anuncia
         Map<String, Object> response = Map.of(
                 "requestId", requestId,
-                "status", "PROCESSING",
-                "message", "Su reporte premium está siendo generado. Incluirá gráficos y PDF adjunto.",
+                "status", tracked.getStatus().name(),
+                "message", "Su reporte premium está siendo generado. Incluirá gráficos.",
                 "estimatedTime", "60-90 segundos",
-                "features", List.of("HTML_FORMAT", "CHARTS", "PDF_ATTACHMENT"),
+                "features", List.of("HTML_FORMAT", "CHARTS"),
                 "requestedAt", Instant.now().toString()
         );
 
         return ResponseEntity.accepted().body(response);
     }
-}
 
+    @GetMapping("/{requestId}")
+    public ResponseEntity<Map<String, Object>> getSummaryStatus(@PathVariable String requestId, Authentication auth) {
+        ReportRequest report = reportRequestService.findByRequestId(requestId).orElse(null);
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "error", "NOT_FOUND",
+                    "message", "No existe la solicitud " + requestId
+            ));
+        }
+
+        if (auth != null && auth.getPrincipal() instanceof Account acc
+                && auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_BRANCH"))
+                && (report.getBranch() == null || !report.getBranch().equalsIgnoreCase(acc.getBranch()))) {
+            return ResponseEntity.status(403).body(Map.of(
+                    "error", "FORBIDDEN",
+                    "message", "No puede consultar resúmenes de otra sucursal"
+            ));
+        }
+
+        // LinkedHashMap: los campos de tiempo son null mientras la solicitud no avanza
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("requestId", report.getId());
+        response.put("status", report.getStatus().name());
+        response.put("branch", report.getBranch());
+        response.put("from", report.getFromDate());
+        response.put("to", report.getToDate());
+        response.put("premium", report.isPremium());
+        response.put("message", report.getMessage());
+        response.put("requestedAt", report.getRequestedAt());
+        response.put("startedAt", report.getStartedAt());
+        response.put("completedAt", report.getCompletedAt());
+        response.put("durationMillis", report.getDurationMillis());
+        // Con email_outbox, COMPLETED solo dice que el correo quedó encolado: su entrega se ve aquí
+        if (outboxQueue != null) {
+            outboxQueue.findForReport(report.getId()).ifPresent(mail -> {
+                Map<String, Object> email = new LinkedHashMap<>();
+                email.put("status", mail.getStatus().name());
+                email.put("attempts", mail.getAttempts());
+                email.put("lastError", mail.getLastError());
+                email.put("sentAt", mail.getSentAt());
+                response.put("email", email);
+            });
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    // La solicitud queda en report_requests antes de publicarse: sobrevive a un reinicio.
+    // En modo cola nace PENDING y lista para que la reclame cualquier worker.
+    private ReportRequest track(SummaryRequest request, Authentication auth, boolean premium) {
+        LocalDateTime now = LocalDateTime.now();
+        return reportRequestService.trackSummaryRequest(ReportRequest.builder()
+                .branch(request.getBranch())
+                .fromDate(request.getFrom())
+                .toDate(request.getTo())
+                .emailTo(request.getEmailTo())
+                .status(queued() ? ReportStatus.PENDING : ReportStatus.PROCESSING)
+                .nextAttemptAt(queued() ? now : null)
+                .requestedAt(now)
+                .requestedByEmail(auth != null ? auth.getName() : null)
+                .premium(premium)
+                .includeCharts(premium)
+                .attachPdf(premium)
+                .build());
+    }
+
+    private boolean queued() {
+        return "queue".equalsIgnoreCase(dispatchMode);
+    }
+
+    // El listener corre en el pool acotado de reportes: si está lleno, el publish se rechaza
+    private boolean submit(ReportRequestedEvent event) {
+        try {
+            publisher.publishEvent(event);
+            return true;
+        } catch (TaskRejectedException e) {
+            meterRegistry.counter("reports.rejected").increment();
+            reportRequestService.markFinished(event.getRequestId(), ReportStatus.FAILED,
+                    "Rechazada: demasiados reportes en proceso");
+            return false;
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> saturated() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(Map.of(
+                        "error", "TOO_MANY_REQUESTS",
+                        "message", "Hay demasiados reportes en proceso, reintente en unos segundos"
+                ));
+    }
+}
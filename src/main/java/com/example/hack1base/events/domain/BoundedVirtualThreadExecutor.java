@@ -0,0 +1,69 @@
+package com.example.hack1base.events.domain;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Un virtual thread por reporte: las esperas de JPA, LLM y SMTP no retienen hilos de plataforma.
+// El límite de reportes en vuelo lo pone un semáforo; al agotarse se rechaza (429) como en el pool.
+public class BoundedVirtualThreadExecutor implements AsyncTaskExecutor, AutoCloseable {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxInFlight;
+
+    public BoundedVirtualThreadExecutor(String threadNamePrefix, int maxInFlight) {
+        this.executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+        this.permits = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submit(task);
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        if (!permits.tryAcquire()) {
+            throw new TaskRejectedException("Límite de reportes en vuelo alcanzado (" + maxInFlight + ")");
+        }
+        try {
+            return executor.submit(() -> {
+                try {
+                    return task.call();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw new TaskRejectedException("Executor de reportes no aceptó la tarea", e);
+        }
+    }
+
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.hack1base.events.domain;
+
+import com.example.hack1base.EmailOutbox.domain.EmailOutboxMessage;
+import com.example.hack1base.EmailOutbox.domain.EmailOutboxQueue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Drainer de email_outbox (email.outbox.enabled=true): cada hilo reclama un lote con SKIP LOCKED,
+// lo despacha entero (en paralelo sobre las conexiones del pool SMTP) y cierra cada correo
+// como SENT, reintento o DEAD. El cómputo de reportes ya no espera al servidor de correo.
+// Mientras el pool SMTP tenga un correo, un heartbeat renueva su lease: ningún otro drainer
+// lo reclama (y lo reenvía) aunque los reintentos SMTP duren más que el lease.
+@Component
+@ConditionalOnProperty(name = "email.outbox.enabled", havingValue = "true")
+public class EmailOutboxDrainer implements SmartLifecycle {
+
+    private final EmailOutboxQueue outboxQueue;
+    private final EmailService emailService;
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+
+    @Value("${email.outbox.workers:2}")
+    private int workers = 2;
+
+    @Value("${email.outbox.batchSize:20}")
+    private int batchSize = 20;
+
+    @Value("${email.outbox.pollInterval:1s}")
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    // Espera máxima por un lote. Un correo que ya salió hacia el SMTP no se suelta al vencer:
+    // sigue con el lease renovado y se cierra cuando el pool SMTP informe el resultado
+    @Value("${email.outbox.sendTimeout:60s}")
+    private Duration sendTimeout = Duration.ofSeconds(60);
+
+    // Correos reclamados cuyo envío sigue abierto → worker que tiene su lease
+    private final Map<String, String> inFlight = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private ExecutorService pool;
+    private ScheduledExecutorService heartbeat;
+
+    public EmailOutboxDrainer(EmailOutboxQueue outboxQueue, EmailService emailService) {
+        this.outboxQueue = outboxQueue;
+        this.emailService = emailService;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        pool = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("email-drainer-"));
+        for (int i = 0; i < workers; i++) {
+            String workerId = nodeId + "/" + UUID.randomUUID().toString().substring(0, 8);
+            pool.execute(() -> loop(workerId));
+        }
+        long every = Math.max(1, outboxQueue.lease().dividedBy(3).toMillis());
+        heartbeat = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("email-lease-"));
+        heartbeat.scheduleAtFixedRate(this::renewLeasesQuietly, every, every, TimeUnit.MILLISECONDS);
+    }
+
+    // Un lote interrumpido por el apagado no se cierra: su lease vence y otro nodo lo retoma
+    @Override
+    public void stop() {
+        running = false;
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+        if (pool != null) {
+            pool.shutdownNow();
+            try {
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void loop(String workerId) {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                if (drainOnce(workerId) == 0) {
+                    Thread.sleep(pollInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                System.err.println("❌ Error en drainer de correos " + workerId + ": " + e.getMessage());
+                sleepQuietly();
+            }
+        }
+    }
+
+    // Reclama y despacha un lote; devuelve cuántos correos había listos
+    int drainOnce(String workerId) throws InterruptedException {
+        List<EmailOutboxMessage> batch = outboxQueue.claimBatch(workerId, batchSize);
+        Map<String, CompletableFuture<MailDelivery>> sends = new LinkedHashMap<>();
+        for (EmailOutboxMessage message : batch) {
+            String messageId = message.getId();
+            inFlight.put(messageId, workerId);
+            CompletableFuture<MailDelivery> send = emailService.dispatch(
+                    message.getRecipient(), message.getSubject(), message.getHtml(), message.getIdempotencyKey());
+            // Con el resultado (o la cancelación) ya no hace falta renovar: el cierre es inmediato
+            send.whenComplete((delivery, error) -> inFlight.remove(messageId));
+            sends.put(messageId, send);
+        }
+
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        for (Map.Entry<String, CompletableFuture<MailDelivery>> send : sends.entrySet()) {
+            String messageId = send.getKey();
+            CompletableFuture<MailDelivery> pending = send.getValue();
+            try {
+                close(messageId, workerId, pending.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS), null);
+            } catch (ExecutionException e) {
+                close(messageId, workerId, null, e.getCause());
+            } catch (TimeoutException e) {
+                if (pending.cancel(false)) {
+                    // No llegó a salir hacia el servidor: reintentar no duplica
+                    outboxQueue.markFailed(messageId, workerId, "Sin respuesta SMTP en " + sendTimeout, true);
+                } else {
+                    // Ya está en manos del SMTP: la fila sigue SENDING bajo este lease y se cierra
+                    // con el resultado real; un reintento ahora podría mandar el correo dos veces
+                    pending.whenComplete((delivery, error) -> closeQuietly(messageId, workerId, delivery, error));
+                }
+            }
+        }
+        return batch.size();
+    }
+
+    // Extiende el lease de todo lo que el pool SMTP aún tiene, agrupado por worker
+    void renewLeases() {
+        Map<String, List<String>> byWorker = inFlight.entrySet().stream()
+                .collect(Collectors.groupingBy(Map.Entry::getValue,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+        byWorker.forEach(outboxQueue::renewLeases);
+    }
+
+    private void renewLeasesQuietly() {
+        try {
+            renewLeases();
+        } catch (RuntimeException e) {
+            System.err.println("❌ No se pudo renovar el lease de correos en envío: " + e.getMessage());
+        }
+    }
+
+    private void close(String messageId, String workerId, MailDelivery delivery, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            outboxQueue.markFailed(messageId, workerId, String.valueOf(cause.getMessage()), true);
+        } else if (delivery.delivered()) {
+            outboxQueue.markSent(messageId, workerId);
+        } else {
+            // Un rechazo 5xx no se arregla reintentando
+            boolean rejected = delivery.recipients().containsValue(MailDelivery.RecipientStatus.REJECTED);
+            outboxQueue.markFailed(messageId, workerId, delivery.describe(), !rejected);
+        }
+    }
+
+    // Cierre tardío desde un hilo del pool SMTP: un error aquí no tiene a quién propagarse
+    private void closeQuietly(String messageId, String workerId, MailDelivery delivery, Throwable error) {
+        try {
+            close(messageId, workerId, delivery, error);
+        } catch (RuntimeException e) {
+            System.err.println("❌ No se pudo cerrar el correo " + messageId + ": " + e.getMessage());
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(pollInterval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
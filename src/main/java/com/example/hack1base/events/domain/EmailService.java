@@ -1,56 +1,154 @@
 package com.example.hack1base.events.domain;
 
+import com.example.hack1base.EmailOutbox.domain.EmailOutboxQueue;
+import com.example.hack1base.Exceptions.EmailDeliveryUnknownException;
 import com.example.hack1base.salesaggregation.domain.SalesAggregates;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
+    public static final String IDEMPOTENCY_HEADER = "X-Idempotency-Key";
+
     private final JavaMailSender mailSender;
+    private final SummaryEmailTemplates templates;
 
     @Value("${closetsale.mail.from:no-reply@oreo.com}")
     private String from;
 
+    // Espera máxima por la entrega vía pool SMTP; por debajo del timeout de la etapa email
+    @Value("${mail.pool.sendTimeout:25s}")
+    private Duration outboxTimeout = Duration.ofSeconds(25);
+
+    // Con mail.pool.enabled=true los envíos van por el pool SMTP (conexiones reutilizadas)
+    private MailOutbox outbox;
+
+    // Con email.outbox.enabled=true los reportes solo encolan en email_outbox y el drainer envía
+    private EmailOutboxQueue outboxQueue;
+
+    @Autowired(required = false)
+    public void setOutbox(MailOutbox outbox) {
+        this.outbox = outbox;
+    }
+
+    @Autowired(required = false)
+    public void setOutboxQueue(EmailOutboxQueue outboxQueue) {
+        this.outboxQueue = outboxQueue;
+    }
+
+    // true si deliverSummaryEmail solo encola: el envío real se ve en email_outbox
+    public boolean queuesSummaries() {
+        return outboxQueue != null;
+    }
+
+    // true si el resumen de esa solicitud ya está en email_outbox (en cualquier estado)
+    public boolean summaryQueued(String requestId) {
+        return outboxQueue != null && requestId != null && outboxQueue.findForReport(requestId).isPresent();
+    }
+
+    // Entrega del resumen desde el pipeline de reportes: encolado persistente si está activo
+    // (clave EmailOutboxQueue.reportKey, idempotente ante reintentos y recuperación), si no envío directo.
+    // El insert se confirma en su propia transacción, antes y por separado del COMPLETED del reporte:
+    // si algo falla entre ambos, quien cierra el reporte consulta summaryQueued y lo da por completado.
+    public void deliverSummaryEmail(String requestId, String to, LocalDate fromDate, LocalDate toDate,
+                                    SalesAggregates aggregates, String summaryText, SummaryLayout layout) {
+        if (outboxQueue == null) {
+            sendSummaryEmail(to, fromDate, toDate, aggregates, summaryText, layout);
+            return;
+        }
+        String subject = templates.subject(fromDate, toDate);
+        String html = templates.render(fromDate, toDate, aggregates, summaryText, layout);
+        String key = requestId != null ? EmailOutboxQueue.reportKey(requestId) : "summary:" + sha256(to + "\n" + subject + "\n" + html);
+        outboxQueue.enqueue(key, requestId, to, subject, html);
+    }
+
     public void sendSummaryEmail(String to, LocalDate fromDate, LocalDate toDate,
                                  SalesAggregates aggregates, String summaryText) {
+        sendSummaryEmail(to, fromDate, toDate, aggregates, summaryText, SummaryLayout.STANDARD);
+    }
+
+    public void sendSummaryEmail(String to, LocalDate fromDate, LocalDate toDate,
+                                 SalesAggregates aggregates, String summaryText, SummaryLayout layout) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-            helper.setTo(to);
-            helper.setSubject("Reporte Semanal Oreo - " + fromDate + " a " + toDate);
-            helper.setFrom(from);
-
-            String html = """
-                <html>
-                <body style="font-family:Arial,sans-serif;">
-                    <h2>🍪 Reporte Semanal Oreo</h2>
-                    <p>%s</p>
-                    <h4>Resumen de ventas:</h4>
-                    <ul>
-                        <li><b>Total unidades:</b> %d</li>
-                        <li><b>Ingresos totales:</b> $%.2f</li>
-                        <li><b>SKU más vendido:</b> %s</li>
-                        <li><b>Sucursal top:</b> %s</li>
-                    </ul>
-                </body>
-                </html>
-            """.formatted(summaryText, aggregates.getTotalUnits(), aggregates.getTotalRevenue(),
-                    aggregates.getTopSku(), aggregates.getTopBranch());
-
-            helper.setText(html, true);
-            mailSender.send(message);
+            MimeMessage message = buildMessage(to, templates.subject(fromDate, toDate),
+                    templates.render(fromDate, toDate, aggregates, summaryText, layout));
+            send(message);
 
+        } catch (EmailDeliveryUnknownException e) {
+            throw e;
         } catch (Exception e) {
             throw new com.example.hack1base.Exceptions.ServiceUnavailableException("Error enviando email: " + e.getMessage());
         }
     }
-}
 
+    // Envío de un correo ya renderizado (drainer de email_outbox). Con el outbox SMTP la entrega es
+    // asíncrona y un lote se reparte entre sus conexiones; sin él, se envía en el hilo que llama.
+    public CompletableFuture<MailDelivery> dispatch(String to, String subject, String html, String idempotencyKey) {
+        try {
+            MimeMessage message = buildMessage(to, subject, html);
+            message.setHeader(IDEMPOTENCY_HEADER, idempotencyKey);
+            if (outbox != null) {
+                return outbox.submit(message);
+            }
+            mailSender.send(message);
+            return CompletableFuture.completedFuture(
+                    new MailDelivery(Map.of(to, MailDelivery.RecipientStatus.SENT), 1, null));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private MimeMessage buildMessage(String to, String subject, String html) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setFrom(from);
+        helper.setText(html, true);
+        return message;
+    }
+
+    private void send(MimeMessage message) throws Exception {
+        if (outbox == null) {
+            mailSender.send(message);
+            return;
+        }
+        MailDelivery delivery;
+        try {
+            delivery = outbox.submit(message).get(outboxTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // El mensaje sigue en el outbox y puede salir después: reintentar lo duplicaría
+            throw new EmailDeliveryUnknownException("Envío de email sin confirmar tras " + outboxTimeout.toSeconds() + "s");
+        }
+        if (!delivery.delivered()) {
+            throw new IllegalStateException(delivery.describe());
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
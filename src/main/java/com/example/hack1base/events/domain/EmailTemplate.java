@@ -0,0 +1,148 @@
+package com.example.hack1base.events.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Plantilla HTML compilada una sola vez: texto literal y accesores ya resueltos, así que
+// renderizar es recorrer un arreglo de nodos sin parsear ni buscar por nombre.
+// Sintaxis (subconjunto de Mustache): {{x}} escapado, {{&x}} sin escapar, {{#x}}…{{/x}} sección
+// (flag o lista), {{^x}}…{{/x}} sección invertida. Un nombre desconocido falla al compilar.
+final class EmailTemplate<T> {
+
+    interface Node<T> {
+        void render(T model, StringBuilder out);
+    }
+
+    private final String name;
+    private final Node<T>[] nodes;
+
+    private EmailTemplate(String name, Node<T>[] nodes) {
+        this.name = name;
+        this.nodes = nodes;
+    }
+
+    static <T> EmailTemplate<T> compile(String name, String source, TemplateBindings<T> bindings) {
+        int[] position = {0};
+        List<Node<T>> nodes = parse(name, source, position, bindings, null);
+        return new EmailTemplate<>(name, toArray(nodes));
+    }
+
+    String name() {
+        return name;
+    }
+
+    void render(T model, StringBuilder out) {
+        for (Node<T> node : nodes) {
+            node.render(model, out);
+        }
+    }
+
+    private static <T> List<Node<T>> parse(String name, String source, int[] position,
+                                           TemplateBindings<T> bindings, String closing) {
+        List<Node<T>> nodes = new ArrayList<>();
+        while (position[0] < source.length()) {
+            int open = source.indexOf("{{", position[0]);
+            if (open < 0) {
+                addText(nodes, source.substring(position[0]));
+                position[0] = source.length();
+                break;
+            }
+            addText(nodes, source.substring(position[0], open));
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalStateException(name + ": '{{' sin cerrar en la posición " + open);
+            }
+            String tag = source.substring(open + 2, close).trim();
+            position[0] = close + 2;
+            if (tag.isEmpty()) {
+                throw new IllegalStateException(name + ": etiqueta vacía en la posición " + open);
+            }
+            String key = tag.substring(1).trim();
+            switch (tag.charAt(0)) {
+                case '/' -> {
+                    if (!key.equals(closing)) {
+                        throw new IllegalStateException(name + ": cierre {{/" + key + "}} inesperado");
+                    }
+                    return nodes;
+                }
+                case '#' -> nodes.add(section(name, source, position, bindings, key));
+                case '^' -> {
+                    Predicate<T> flag = requireFlag(name, bindings, key);
+                    Node<T>[] body = toArray(parse(name, source, position, bindings, key));
+                    nodes.add((model, out) -> {
+                        if (!flag.test(model)) {
+                            renderAll(body, model, out);
+                        }
+                    });
+                }
+                case '&' -> nodes.add(valueNode(name, bindings, key, false));
+                default -> nodes.add(valueNode(name, bindings, tag, true));
+            }
+        }
+        if (closing != null) {
+            throw new IllegalStateException(name + ": falta {{/" + closing + "}}");
+        }
+        return nodes;
+    }
+
+    private static <T> Node<T> section(String name, String source, int[] position,
+                                       TemplateBindings<T> bindings, String key) {
+        TemplateBindings.ListBinding<T, ?> list = bindings.list(key);
+        if (list != null) {
+            return listNode(name, source, position, list, key);
+        }
+        Predicate<T> flag = requireFlag(name, bindings, key);
+        Node<T>[] body = toArray(parse(name, source, position, bindings, key));
+        return (model, out) -> {
+            if (flag.test(model)) {
+                renderAll(body, model, out);
+            }
+        };
+    }
+
+    private static <T, R> Node<T> listNode(String name, String source, int[] position,
+                                           TemplateBindings.ListBinding<T, R> list, String key) {
+        Node<R>[] body = toArray(parse(name, source, position, list.bindings(), key));
+        Function<T, List<R>> rows = list.rows();
+        return (model, out) -> {
+            for (R row : rows.apply(model)) {
+                renderAll(body, row, out);
+            }
+        };
+    }
+
+    private static <T> Node<T> valueNode(String name, TemplateBindings<T> bindings, String key, boolean escape) {
+        TemplateBindings.ValueWriter<T> writer = bindings.value(key);
+        if (writer == null) {
+            throw new IllegalStateException(name + ": variable desconocida '" + key + "'");
+        }
+        return (model, out) -> writer.write(model, out, escape);
+    }
+
+    private static <T> Predicate<T> requireFlag(String name, TemplateBindings<T> bindings, String key) {
+        Predicate<T> flag = bindings.flag(key);
+        if (flag == null) {
+            throw new IllegalStateException(name + ": sección desconocida '" + key + "'");
+        }
+        return flag;
+    }
+
+    private static <T> void addText(List<Node<T>> nodes, String text) {
+        if (!text.isEmpty()) {
+            nodes.add((model, out) -> out.append(text));
+        }
+    }
+
+    private static <T> void renderAll(Node<T>[] nodes, T model, StringBuilder out) {
+        for (Node<T> node : nodes) {
+            node.render(model, out);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[] toArray(List<Node<T>> nodes) {
+        return nodes.toArray(new Node[0]);
+    }
+}
@@ -1,21 +1,44 @@
 package com.example.hack1base.events.domain;
 
 import com.example.hack1base.salesaggregation.domain.SalesAggregates;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @RequiredArgsConstructor
 public class GithubModelsClients {
 
+        public static final String CACHE_NAME = "github.models.summaries";
+
         @Value("${GITHUB_MODELS_URL}")
         private String modelsUrl;
 
@@ -25,56 +48,282 @@ public class GithubModelsClients {
         @Value("${GITHUB_TOKEN}")
         private String githubToken;
 
-        private final WebClient webClient = WebClient.create();
+        @Value("${github.models.connectTimeout:2s}")
+        private Duration connectTimeout = Duration.ofSeconds(2);
 
-        public String generateSummary(SalesAggregates aggregates) {
-                String prompt = String.format(
-                                "Con estos datos: totalUnits=%d, totalRevenue=%.2f, topSku=%s, topBranch=%s. Devuelve un resumen ≤120 palabras en español para enviar por email.",
-                                aggregates.getTotalUnits(), aggregates.getTotalRevenue(), aggregates.getTopSku(), aggregates.getTopBranch()
-                );
+        @Value("${github.models.readTimeout:10s}")
+        private Duration readTimeout = Duration.ofSeconds(10);
+
+        // SLA del resumen: pasado este tiempo se responde con el resumen local
+        @Value("${github.models.timeout:8s}")
+        private Duration timeout = Duration.ofSeconds(8);
+
+        @Value("${github.models.maxConnections:20}")
+        private int maxConnections = 20;
+
+        @Value("${github.models.maxConcurrency:8}")
+        private int maxConcurrency = 8;
+
+        @Value("${github.models.ratePerSecond:5}")
+        private double ratePerSecond = 5;
+
+        @Value("${github.models.burst:10}")
+        private int burst = 10;
+
+        @Value("${github.models.cache.maxSize:1000}")
+        private long cacheMaxSize = 1000;
+
+        @Value("${github.models.cache.ttl:24h}")
+        private Duration cacheTtl = Duration.ofHours(24);
+
+        // Circuit breaker: ventana de llamadas, tasa de fallo que abre, tiempo abierto y sondas en half-open
+        @Value("${github.models.breaker.windowSize:20}")
+        private int breakerWindowSize = 20;
+
+        @Value("${github.models.breaker.minCalls:10}")
+        private int breakerMinCalls = 10;
+
+        @Value("${github.models.breaker.failureRate:0.5}")
+        private double breakerFailureRate = 0.5;
+
+        @Value("${github.models.breaker.openDuration:30s}")
+        private Duration breakerOpenDuration = Duration.ofSeconds(30);
+
+        @Value("${github.models.breaker.halfOpenProbes:3}")
+        private int breakerHalfOpenProbes = 3;
+
+        // Hedging: segunda llamada si la primera supera el p99 observado (initialDelay hasta tener minSamples)
+        @Value("${github.models.hedge.enabled:true}")
+        private boolean hedgeEnabled = true;
+
+        @Value("${github.models.hedge.initialDelay:2s}")
+        private Duration hedgeInitialDelay = Duration.ofSeconds(2);
+
+        @Value("${github.models.hedge.minDelay:200ms}")
+        private Duration hedgeMinDelay = Duration.ofMillis(200);
+
+        @Value("${github.models.hedge.minSamples:50}")
+        private long hedgeMinSamples = 50;
+
+        private final MeterRegistry meterRegistry;
+
+        private ConnectionProvider connectionProvider;
+        private WebClient webClient;
+        private ModelCallLimiter limiter;
+        private ModelCircuitBreaker breaker;
+        private AsyncCache<String, String> summaries;
+        private Timer successLatency;
+        private Timer failureLatency;
+
+        // Pool de conexiones propio con timeouts de conexión/lectura; caché y limitador según configuración
+        @PostConstruct
+        public void init() {
+                connectionProvider = ConnectionProvider.builder("github-models")
+                                .maxConnections(maxConnections)
+                                .pendingAcquireTimeout(connectTimeout)
+                                .build();
+                HttpClient httpClient = HttpClient.create(connectionProvider)
+                                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                                .responseTimeout(readTimeout);
+                webClient = WebClient.builder()
+                                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                                .build();
+
+                limiter = new ModelCallLimiter(maxConcurrency, ratePerSecond, burst);
+                Gauge.builder("github.models.available", limiter, ModelCallLimiter::availableConcurrency)
+                                .register(meterRegistry);
+
+                // Métrica: github.models.breaker.state (0 closed, 1 half-open, 2 open) y transiciones por estado
+                breaker = new ModelCircuitBreaker(breakerWindowSize, breakerMinCalls, breakerFailureRate,
+                                breakerOpenDuration, breakerHalfOpenProbes, Clock.systemUTC(),
+                                to -> meterRegistry.counter("github.models.breaker.transitions", "to", to.name().toLowerCase()).increment());
+                Gauge.builder("github.models.breaker.state", breaker, b -> b.state().ordinal())
+                                .register(meterRegistry);
+
+                // Histograma de latencia por llamada remota; el p99 de éxitos fija el umbral de hedging
+                successLatency = latencyTimer("success");
+                failureLatency = latencyTimer("failure");
+
+                summaries = Caffeine.newBuilder()
+                                .maximumSize(cacheMaxSize)
+                                .expireAfterWrite(cacheTtl)
+                                .recordStats()
+                                .buildAsync();
+                CaffeineCacheMetrics.monitor(meterRegistry, summaries, CACHE_NAME);
+        }
+
+        @PreDestroy
+        public void close() {
+                if (connectionProvider != null) {
+                        connectionProvider.dispose();
+                }
+        }
+
+        // Caché por contenido (modelo + prompt normalizado): agregados iguales comparten el resumen,
+        // incluso mientras la primera llamada sigue en vuelo. Lento, saturado, breaker abierto o cualquier
+        // error remoto (5xx, conexión, cuerpo inválido) → resumen local; el breaker ya contó el fallo en callModel.
+        public Mono<String> generateSummary(SalesAggregates aggregates) {
+                String prompt = SummaryPrompt.render(aggregates);
+                String key = SummaryPrompt.key(modelId, prompt);
+
+                // suppressCancel: el timeout de un llamador no cancela la llamada compartida.
+                // Un fallo se saca de la caché antes de llegar al llamador: la siguiente llamada vuelve a HTTP
+                return Mono.defer(() -> {
+                                        CompletableFuture<String> future = summaries.get(key, (k, executor) -> callModel(prompt).toFuture());
+                                        return Mono.fromFuture(future, true)
+                                                        .doOnError(e -> summaries.asMap().remove(key, future));
+                                })
+                                .timeout(timeout)
+                                .onErrorResume(e -> fallback(aggregates, fallbackReason(e)));
+        }
+
+        // Breaker alrededor del resultado final (primaria o hedge); lo rechazado localmente no cuenta como fallo
+        private Mono<String> callModel(String prompt) {
+                if (!breaker.tryAcquire()) {
+                        return Mono.error(new ModelUnavailableException("breaker_open"));
+                }
+                return hedged(prompt)
+                                .doOnSuccess(v -> breaker.onSuccess())
+                                .doOnError(e -> {
+                                        if (e instanceof ModelUnavailableException) {
+                                                breaker.onIgnored();
+                                        } else {
+                                                breaker.onFailure();
+                                        }
+                                })
+                                .doOnCancel(breaker::onIgnored);
+        }
+
+        // Primaria y, si no respondió al cumplirse el umbral, una segunda llamada: gana la primera respuesta
+        // con valor y solo se falla si fallan las dos. Si la primaria falla antes del umbral no hay hedge
+        // en vuelo y su error se propaga enseguida.
+        private Mono<String> hedged(String prompt) {
+                if (!hedgeEnabled) {
+                        return attempt(prompt);
+                }
+                AtomicReference<Throwable> primaryError = new AtomicReference<>();
+                AtomicReference<Throwable> hedgeError = new AtomicReference<>();
+                Sinks.One<Boolean> primaryFailed = Sinks.one();
+                Mono<String> primary = attempt(prompt)
+                                .doOnError(e -> {
+                                        primaryError.set(e);
+                                        primaryFailed.tryEmitValue(Boolean.TRUE);
+                                });
+                Mono<String> hedge = Mono.delay(hedgeDelay())
+                                .takeUntilOther(primaryFailed.asMono())
+                                .flatMap(tick -> {
+                                        meterRegistry.counter("github.models.hedges", "result", "fired").increment();
+                                        return attempt(prompt)
+                                                        .doOnSuccess(v -> meterRegistry.counter("github.models.hedges", "result", "won").increment())
+                                                        .doOnError(hedgeError::set);
+                                });
+                return Mono.firstWithValue(primary, hedge)
+                                .onErrorMap(NoSuchElementException.class, e -> bothFailed(primaryError.get(), hedgeError.get(), e));
+        }
+
+        // Se prefiere un fallo remoto a un rechazo local: es el que debe contar el breaker
+        private static Throwable bothFailed(Throwable primary, Throwable hedge, Throwable fallback) {
+                if (primary == null) {
+                        return hedge != null ? hedge : fallback;
+                }
+                if (primary instanceof ModelUnavailableException && hedge != null) {
+                        return hedge;
+                }
+                return primary;
+        }
+
+        Duration hedgeDelay() {
+                if (successLatency.count() < hedgeMinSamples) {
+                        return hedgeInitialDelay;
+                }
+                double p99 = hedgeInitialDelay.toMillis();
+                for (ValueAtPercentile value : successLatency.takeSnapshot().percentileValues()) {
+                        if (value.percentile() == 0.99) {
+                                p99 = value.value(TimeUnit.MILLISECONDS);
+                        }
+                }
+                Duration delay = Duration.ofMillis((long) Math.ceil(p99));
+                return delay.compareTo(hedgeMinDelay) < 0 ? hedgeMinDelay : delay;
+        }
+
+        private Mono<String> attempt(String prompt) {
+                if (!limiter.tryAcquire()) {
+                        return Mono.error(new ModelUnavailableException("saturated"));
+                }
 
                 Map<String, Object> body = Map.of(
                                 "model", modelId,
                                 "messages", List.of(
-                                                Map.of("role", "system", "content", "Eres un analista que escribe resúmenes breves y claros para emails corporativos."),
+                                                Map.of("role", "system", "content", SummaryPrompt.SYSTEM),
                                                 Map.of("role", "user", "content", prompt)
                                 ),
                                 "max_tokens", 200
                 );
 
-                try {
-                        Map<String, Object> response = webClient.post()
-                                        .uri(modelsUrl)
-                                        .header("Authorization", "Bearer " + githubToken)
-                                        .contentType(MediaType.APPLICATION_JSON)
-                                        .bodyValue(body)
-                                        .retrieve()
-                                        .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                                        .block();
-
-                        if (response == null) {
-                                throw new IllegalStateException("Respuesta vacía de GitHub Models");
-                        }
-                        Object choicesObj = response.get("choices");
-                        if (!(choicesObj instanceof List<?> choices) || choices.isEmpty()) {
-                                throw new IllegalStateException("Estructura inválida: choices vacío");
-                        }
-                        Object first = choices.get(0);
-                        if (!(first instanceof Map<?, ?> firstMap)) {
-                                throw new IllegalStateException("Estructura inválida en choice[0]");
-                        }
-                        Object messageObj = firstMap.get("message");
-                        if (!(messageObj instanceof Map<?, ?> messageMap)) {
-                                throw new IllegalStateException("Estructura inválida: falta message");
-                        }
-                        Object content = messageMap.get("content");
-                        if (content == null) {
-                                throw new IllegalStateException("Estructura inválida: falta content");
-                        }
-                        return content.toString();
+                Timer.Sample sample = Timer.start(meterRegistry);
+                return webClient.post()
+                                .uri(modelsUrl)
+                                .header("Authorization", "Bearer " + githubToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .bodyValue(body)
+                                .retrieve()
+                                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                                .switchIfEmpty(Mono.error(new IllegalStateException("Respuesta vacía de GitHub Models")))
+                                .map(GithubModelsClients::extractContent)
+                                .doOnSuccess(v -> sample.stop(successLatency))
+                                .doOnError(e -> sample.stop(failureLatency))
+                                .doFinally(signal -> limiter.release())
+                                .onErrorMap(e -> new RuntimeException("Error consultando GitHub Models: " + e.getMessage()));
+        }
+
+        private Timer latencyTimer(String outcome) {
+                return Timer.builder("github.models.latency")
+                                .tag("outcome", outcome)
+                                .publishPercentiles(0.5, 0.95, 0.99)
+                                .publishPercentileHistogram()
+                                .register(meterRegistry);
+        }
+
+        private static String fallbackReason(Throwable e) {
+                if (e instanceof ModelUnavailableException unavailable) {
+                        return unavailable.reason;
+                }
+                return e instanceof TimeoutException ? "timeout" : "error";
+        }
+
+        // Métrica: github.models.fallback{reason=timeout|saturated|breaker_open|error}
+        private Mono<String> fallback(SalesAggregates aggregates, String reason) {
+                meterRegistry.counter("github.models.fallback", "reason", reason).increment();
+                return Mono.just(SummaryPrompt.localSummary(aggregates));
+        }
+
+        private static String extractContent(Map<String, Object> response) {
+                Object choicesObj = response.get("choices");
+                if (!(choicesObj instanceof List<?> choices) || choices.isEmpty()) {
+                        throw new IllegalStateException("Estructura inválida: choices vacío");
+                }
+                Object first = choices.get(0);
+                if (!(first instanceof Map<?, ?> firstMap)) {
+                        throw new IllegalStateException("Estructura inválida en choice[0]");
+                }
+                Object messageObj = firstMap.get("message");
+                if (!(messageObj instanceof Map<?, ?> messageMap)) {
+                        throw new IllegalStateException("Estructura inválida: falta message");
+                }
+                Object content = messageMap.get("content");
+                if (content == null) {
+                        throw new IllegalStateException("Estructura inválida: falta content");
+                }
+                return content.toString();
+        }
+
+        // Sin cupo en el limitador o con el breaker abierto: no se encola, se responde con el resumen local
+        static class ModelUnavailableException extends RuntimeException {
+                final String reason;
 
-                } catch (Exception e) {
-                        throw new RuntimeException("Error consultando GitHub Models: " + e.getMessage());
+                ModelUnavailableException(String reason) {
+                        super("GitHub Models no disponible: " + reason);
+                        this.reason = reason;
                 }
         }
 }
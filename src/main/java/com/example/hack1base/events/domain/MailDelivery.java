@@ -0,0 +1,21 @@
+package com.example.hack1base.events.domain;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Resultado de un envío por el outbox: estado por destinatario, intentos y último error SMTP
+public record MailDelivery(Map<String, RecipientStatus> recipients, int attempts, String lastError) {
+
+    public enum RecipientStatus { SENT, REJECTED, FAILED }
+
+    public boolean delivered() {
+        return recipients.values().stream().allMatch(status -> status == RecipientStatus.SENT);
+    }
+
+    public String describe() {
+        return recipients.entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining(", "))
+                + (lastError == null ? "" : " (" + lastError + ")");
+    }
+}
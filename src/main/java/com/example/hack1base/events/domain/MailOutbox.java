@@ -0,0 +1,293 @@
+package com.example.hack1base.events.domain;
+
+import com.example.hack1base.Exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Pool SMTP (mail.pool.enabled=true; no confundir con email_outbox/email.outbox.*): los mensajes se encolan y `connections` hilos los envían
+// por lotes, cada uno sobre su propio Transport que queda abierto entre lotes (sin handshake
+// TCP+STARTTLS+AUTH por correo). Se cierra tras idleTimeout sin tráfico o ante un error de conexión.
+// Destinatarios rechazados (5xx) quedan REJECTED; los no enviados se reintentan con backoff
+// exponencial hasta maxAttempts y luego quedan FAILED. El future de submit solo se puede cancelar
+// mientras el mensaje no haya salido hacia el servidor.
+@Component
+@ConditionalOnProperty(name = "mail.pool.enabled", havingValue = "true")
+public class MailOutbox implements SmartLifecycle {
+
+    private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${mail.pool.connections:2}")
+    private int connections = 2;
+
+    @Value("${mail.pool.batchSize:50}")
+    private int batchSize = 50;
+
+    @Value("${mail.pool.queueCapacity:10000}")
+    private int queueCapacity = 10000;
+
+    @Value("${mail.pool.maxAttempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${mail.pool.backoff:1s}")
+    private Duration backoff = Duration.ofSeconds(1);
+
+    @Value("${mail.pool.maxBackoff:30s}")
+    private Duration maxBackoff = Duration.ofSeconds(30);
+
+    @Value("${mail.pool.idleTimeout:30s}")
+    private Duration idleTimeout = Duration.ofSeconds(30);
+
+    // Los reintentos esperan en la misma cola hasta su notBefore
+    private final DelayQueue<Pending> queue = new DelayQueue<>();
+    private volatile boolean running;
+    private ExecutorService pool;
+    private JavaMailSenderImpl smtp;
+    private Session session;
+
+    public MailOutbox(JavaMailSender mailSender, MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Métricas: mail.pool.queued, mail.pool.connections (aperturas), mail.pool.recipients{status}
+    @Override
+    public void start() {
+        if (!(mailSender instanceof JavaMailSenderImpl impl)) {
+            throw new IllegalStateException("El outbox SMTP requiere un JavaMailSenderImpl");
+        }
+        smtp = impl;
+        Properties props = new Properties();
+        props.putAll(impl.getJavaMailProperties());
+        // Con varios destinatarios, un rechazo no impide entregar al resto
+        props.setProperty("mail." + protocol() + ".sendpartial", "true");
+        session = Session.getInstance(props);
+
+        Gauge.builder("mail.pool.queued", queue, DelayQueue::size).register(meterRegistry);
+        running = true;
+        pool = Executors.newFixedThreadPool(connections, new CustomizableThreadFactory("mail-outbox-"));
+        for (int i = 0; i < connections; i++) {
+            pool.execute(this::loop);
+        }
+    }
+
+    // Lo que siga en cola al apagar se completa como FAILED
+    @Override
+    public void stop() {
+        running = false;
+        if (pool != null) {
+            pool.shutdownNow();
+            try {
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Pending pending : queue.toArray(new Pending[0])) {
+            queue.remove(pending);
+            pending.lastError = "Outbox detenido";
+            finish(pending);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public CompletableFuture<MailDelivery> submit(MimeMessage message) {
+        Pending pending;
+        try {
+            message.saveChanges();
+            pending = new Pending(message);
+        } catch (MessagingException e) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Mensaje inválido: " + e.getMessage(), e));
+        }
+        if (!running || queue.size() >= queueCapacity) {
+            return CompletableFuture.failedFuture(new ServiceUnavailableException("Outbox de correo no disponible o lleno"));
+        }
+        queue.offer(pending);
+        pending.result.whenComplete((delivery, error) -> {
+            if (pending.result.isCancelled()) {
+                queue.remove(pending);
+            }
+        });
+        return pending.result;
+    }
+
+    int queued() {
+        return queue.size();
+    }
+
+    private void loop() {
+        Transport transport = null;
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                Pending first = queue.poll(idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    transport = closeQuietly(transport);
+                    continue;
+                }
+                List<Pending> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                for (Pending pending : batch) {
+                    transport = deliver(transport, pending);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                System.err.println("❌ Error en outbox de correo: " + e.getMessage());
+                transport = closeQuietly(transport);
+            }
+        }
+        closeQuietly(transport);
+    }
+
+    private Transport deliver(Transport transport, Pending pending) {
+        if (pending.attempts == 0 && !pending.started.compareAndSet(false, true)) {
+            return transport; // cancelado antes del primer intento
+        }
+        pending.attempts++;
+        Address[] targets = pending.unsent.toArray(new Address[0]);
+        try {
+            transport = connected(transport);
+            transport.sendMessage(pending.message, targets);
+            mark(pending, targets, MailDelivery.RecipientStatus.SENT);
+        } catch (SendFailedException e) {
+            mark(pending, e.getValidSentAddresses(), MailDelivery.RecipientStatus.SENT);
+            mark(pending, e.getInvalidAddresses(), MailDelivery.RecipientStatus.REJECTED);
+            if (e.getValidSentAddresses() == null && e.getInvalidAddresses() == null && e.getValidUnsentAddresses() == null) {
+                transport = closeQuietly(transport);
+            }
+            pending.lastError = e.getMessage();
+        } catch (MessagingException e) {
+            transport = closeQuietly(transport);
+            pending.lastError = e.getMessage();
+        }
+
+        if (pending.unsent.isEmpty() || pending.attempts >= maxAttempts) {
+            finish(pending);
+        } else {
+            pending.notBefore = System.nanoTime() + retryDelay(pending.attempts).toNanos();
+            queue.offer(pending);
+        }
+        return transport;
+    }
+
+    private Transport connected(Transport transport) throws MessagingException {
+        if (transport != null && transport.isConnected()) {
+            return transport;
+        }
+        closeQuietly(transport);
+        Transport fresh = session.getTransport(protocol());
+        fresh.connect(smtp.getHost(), smtp.getPort(), smtp.getUsername(), smtp.getPassword());
+        meterRegistry.counter("mail.pool.connections").increment();
+        return fresh;
+    }
+
+    private Duration retryDelay(int attempts) {
+        long factor = 1L << Math.min(attempts - 1, 20);
+        Duration delay = backoff.multipliedBy(factor);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private void mark(Pending pending, Address[] addresses, MailDelivery.RecipientStatus status) {
+        if (addresses == null) {
+            return;
+        }
+        for (Address address : addresses) {
+            if (pending.unsent.remove(address)) {
+                pending.statuses.put(address.toString(), status);
+            }
+        }
+    }
+
+    private void finish(Pending pending) {
+        for (Address address : pending.unsent) {
+            pending.statuses.put(address.toString(), MailDelivery.RecipientStatus.FAILED);
+        }
+        pending.unsent.clear();
+        pending.statuses.values().forEach(status ->
+                meterRegistry.counter("mail.pool.recipients", "status", status.name().toLowerCase()).increment());
+        pending.result.complete(new MailDelivery(Map.copyOf(pending.statuses), pending.attempts, pending.lastError));
+    }
+
+    private String protocol() {
+        return smtp.getProtocol() != null ? smtp.getProtocol() : "smtp";
+    }
+
+    private static Transport closeQuietly(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException ignored) {
+                // la conexión ya estaba rota
+            }
+        }
+        return null;
+    }
+
+    private static final class Pending implements Delayed {
+        final MimeMessage message;
+        final AtomicBoolean started = new AtomicBoolean();
+        final CompletableFuture<MailDelivery> result = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                return started.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+            }
+        };
+        final List<Address> unsent;
+        final Map<String, MailDelivery.RecipientStatus> statuses = new LinkedHashMap<>();
+        int attempts;
+        long notBefore = System.nanoTime();
+        String lastError;
+
+        Pending(MimeMessage message) throws MessagingException {
+            Address[] recipients = message.getAllRecipients();
+            if (recipients == null || recipients.length == 0) {
+                throw new MessagingException("sin destinatarios");
+            }
+            this.message = message;
+            this.unsent = new ArrayList<>(Arrays.asList(recipients));
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(notBefore - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.hack1base.events.domain;
+
+import java.util.concurrent.Semaphore;
+
+// Admisión de llamadas al modelo: tope de concurrencia + token bucket (ratePerSecond, ráfaga burst).
+// No espera: si no hay permiso o token, el llamador usa el resumen local.
+class ModelCallLimiter {
+
+    private final Semaphore concurrency;
+    private final double ratePerNano;
+    private final double burst;
+
+    private double tokens;
+    private long lastRefill;
+
+    ModelCallLimiter(int maxConcurrency, double ratePerSecond, int burst) {
+        this.concurrency = new Semaphore(Math.max(1, maxConcurrency));
+        this.ratePerNano = Math.max(ratePerSecond, 0.001) / 1_000_000_000d;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    // true = puede llamar; debe llamar a release() al terminar
+    boolean tryAcquire() {
+        if (!concurrency.tryAcquire()) {
+            return false;
+        }
+        if (!tryConsumeToken()) {
+            concurrency.release();
+            return false;
+        }
+        return true;
+    }
+
+    void release() {
+        concurrency.release();
+    }
+
+    int availableConcurrency() {
+        return concurrency.availablePermits();
+    }
+
+    private synchronized boolean tryConsumeToken() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.hack1base.events.domain;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+// Circuit breaker por conteo para las llamadas al modelo.
+// CLOSED: ventana de las últimas windowSize llamadas; con minCalls o más y tasa de fallo ≥ failureRate → OPEN.
+// OPEN: rechaza todo durante openDuration. HALF_OPEN: deja pasar halfOpenProbes sondas;
+// todas bien → CLOSED, una mal → OPEN otra vez.
+class ModelCircuitBreaker {
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    interface Listener {
+        void onTransition(State to);
+    }
+
+    private final int windowSize;
+    private final int minCalls;
+    private final double failureRate;
+    private final Duration openDuration;
+    private final int halfOpenProbes;
+    private final Clock clock;
+    private final Listener listener;
+
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private Instant openUntil = Instant.MIN;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    ModelCircuitBreaker(int windowSize, int minCalls, double failureRate, Duration openDuration,
+                        int halfOpenProbes, Clock clock, Listener listener) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minCalls = Math.max(1, Math.min(minCalls, this.windowSize));
+        this.failureRate = failureRate;
+        this.openDuration = openDuration;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.clock = clock;
+        this.listener = listener;
+        this.window = new boolean[this.windowSize];
+    }
+
+    // true = la llamada puede salir; debe cerrarse con onSuccess, onFailure u onIgnored
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.instant().isBefore(openUntil)) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight + probeSuccesses >= halfOpenProbes) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+            if (++probeSuccesses >= halfOpenProbes) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN);
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (windowCount >= minCalls && (double) windowFailures / windowCount >= failureRate) {
+                transition(State.OPEN);
+            }
+        }
+    }
+
+    // La llamada no llegó al modelo (p. ej. limitador local): no cuenta, solo libera la sonda
+    synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == windowSize) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % windowSize;
+    }
+
+    private void transition(State to) {
+        state = to;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+        if (to == State.OPEN) {
+            openUntil = clock.instant().plus(openDuration);
+        }
+        if (to == State.CLOSED) {
+            windowIndex = 0;
+            windowCount = 0;
+            windowFailures = 0;
+        }
+        listener.onTransition(to);
+    }
+}
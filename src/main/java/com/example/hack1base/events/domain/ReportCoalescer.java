@@ -0,0 +1,64 @@
+package com.example.hack1base.events.domain;
+
+import com.example.hack1base.salesaggregation.domain.SalesAggregates;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Deduplicación en vuelo: reportes concurrentes con la misma (branch, from, to, premium) comparten
+// una sola agregación y un solo resumen LLM. La entrada se libera al terminar: no es un caché,
+// un pedido posterior vuelve a calcular.
+class ReportCoalescer {
+
+    record Key(String branch, LocalDate from, LocalDate to, boolean premium) {
+        static Key of(ReportRequestedEvent event) {
+            return new Key(event.getRequest().getBranch(), event.getRequest().getFrom(),
+                    event.getRequest().getTo(), event.isPremium());
+        }
+    }
+
+    record Shared(SalesAggregates aggregates, String summary) { }
+
+    private final ConcurrentMap<Key, Mono<Shared>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+
+    // Métricas: reports.coalesce{role=leader|follower}, reports.coalesce.ratio (followers / total)
+    ReportCoalescer(MeterRegistry meterRegistry) {
+        this.leaders = meterRegistry.counter("reports.coalesce", "role", "leader");
+        this.followers = meterRegistry.counter("reports.coalesce", "role", "follower");
+        Gauge.builder("reports.coalesce.ratio", this, ReportCoalescer::ratio).register(meterRegistry);
+        Gauge.builder("reports.coalesce.inflight", inFlight, ConcurrentMap::size).register(meterRegistry);
+    }
+
+    // El primero (leader) ejecuta 'work'; los que llegan mientras corre se suscriben al mismo resultado
+    Mono<Shared> join(Key key, Supplier<Mono<Shared>> work) {
+        return Mono.defer(() -> {
+            AtomicReference<Mono<Shared>> self = new AtomicReference<>();
+            Mono<Shared> candidate = Mono.defer(work)
+                    .doFinally(signal -> inFlight.remove(key, self.get()))
+                    .cache();
+            self.set(candidate);
+
+            Mono<Shared> running = inFlight.putIfAbsent(key, candidate);
+            if (running != null) {
+                followers.increment();
+                return running;
+            }
+            leaders.increment();
+            return candidate;
+        });
+    }
+
+    double ratio() {
+        double total = leaders.count() + followers.count();
+        return total == 0 ? 0 : followers.count() / total;
+    }
+}
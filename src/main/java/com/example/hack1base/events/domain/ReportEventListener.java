@@ -1,36 +1,209 @@
 package com.example.hack1base.events.domain;
 
+import com.example.hack1base.Exceptions.EmailDeliveryUnknownException;
+import com.example.hack1base.ReportRequest.domain.ReportRequestService;
+import com.example.hack1base.ReportRequest.domain.ReportStatus;
 import com.example.hack1base.events.dto.SummaryRequest;
 import com.example.hack1base.salesaggregation.domain.SalesAggregates;
 import com.example.hack1base.salesaggregation.domain.SalesAggregationService;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Service
-@RequiredArgsConstructor
 public class ReportEventListener {
 
     private final SalesAggregationService aggregationService;
     private final GithubModelsClients githubModelsClient;
     private final EmailService emailService;
+    private final MeterRegistry meterRegistry;
+    private final AsyncTaskExecutor reportExecutor;
+    private final ReportRequestService reportRequestService;
+    private final ReportCoalescer coalescer;
+
+    // blocking: cada reporte ocupa un hilo del reportExecutor (platform o virtual)
+    // reactive: pipeline no bloqueante; DB y SMTP en boundedElastic, LLM sobre WebClient
+    @Value("${reports.pipeline.mode:blocking}")
+    private String pipelineMode = "blocking";
+
+    @Value("${reports.timeout.aggregation:30s}")
+    private Duration aggregationTimeout = Duration.ofSeconds(30);
+
+    @Value("${reports.timeout.summary:20s}")
+    private Duration summaryTimeout = Duration.ofSeconds(20);
+
+    @Value("${reports.timeout.email:30s}")
+    private Duration emailTimeout = Duration.ofSeconds(30);
 
-    @Async
+    // Reportes idénticos en vuelo comparten agregación y resumen; solo el email es por solicitud
+    @Value("${reports.coalesce.enabled:true}")
+    private boolean coalesce = true;
+
+    // Admisión del modo reactivo: reportes en vuelo sin hilo asignado
+    private Semaphore reactiveInFlight = new Semaphore(1000);
+
+    // Lleva el timeout de agregación a la base como query timeout de JDBC
+    private PlatformTransactionManager transactionManager;
+
+    public ReportEventListener(SalesAggregationService aggregationService,
+                               GithubModelsClients githubModelsClient,
+                               EmailService emailService,
+                               MeterRegistry meterRegistry,
+                               @Qualifier(ReportExecutorConfig.REPORT_EXECUTOR) AsyncTaskExecutor reportExecutor,
+                               ReportRequestService reportRequestService) {
+        this.aggregationService = aggregationService;
+        this.githubModelsClient = githubModelsClient;
+        this.emailService = emailService;
+        this.meterRegistry = meterRegistry;
+        this.reportExecutor = reportExecutor;
+        this.reportRequestService = reportRequestService;
+        this.coalescer = new ReportCoalescer(meterRegistry);
+    }
+
+    @Value("${reports.reactive.maxInFlight:1000}")
+    void setReactiveMaxInFlight(int maxInFlight) {
+        this.reactiveInFlight = new Semaphore(Math.max(1, maxInFlight));
+    }
+
+    @Autowired(required = false)
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    // Se ejecuta en el hilo del publish: solo admite o rechaza (TaskRejectedException → 429)
     @EventListener
+    public void onReportRequested(ReportRequestedEvent event) {
+        if ("reactive".equalsIgnoreCase(pipelineMode)) {
+            if (!reactiveInFlight.tryAcquire()) {
+                throw new TaskRejectedException("Límite de reportes reactivos en vuelo alcanzado");
+            }
+            process(event, Schedulers.boundedElastic())
+                    .doFinally(signal -> reactiveInFlight.release())
+                    .subscribe();
+            return;
+        }
+        reportExecutor.execute(() -> handleReportRequest(event));
+    }
+
+    // Modo bloqueante: mismo pipeline, sin saltos de hilo (corre en el hilo del reportExecutor).
+    // timeout() no puede soltar un hilo bloqueado en JDBC o SMTP: esas etapas se cortan en el origen
+    // (query timeout de la transacción, mail.smtp.timeout/writetimeout).
     public void handleReportRequest(ReportRequestedEvent event) {
+        process(event, Schedulers.immediate()).block();
+    }
+
+    // Modo evento: registra inicio y fin en report_requests; los errores se absorben
+    // y el reporte queda FAILED sin afectar al resto, salvo que su correo ya esté encolado.
+    Mono<Void> process(ReportRequestedEvent event, Scheduler blockingScheduler) {
         SummaryRequest req = event.getRequest();
+        return track(event, blockingScheduler, () -> reportRequestService.markStarted(event.getRequestId()))
+                .then(execute(event, blockingScheduler))
+                .then(track(event, blockingScheduler, () -> reportRequestService.markFinished(
+                        event.getRequestId(), ReportStatus.COMPLETED, completionMessage(req.getEmailTo()))))
+                .onErrorResume(e -> track(event, blockingScheduler, () -> {
+                    if (emailQueued(event.getRequestId())) {
+                        reportRequestService.markFinished(
+                                event.getRequestId(), ReportStatus.COMPLETED, completionMessage(req.getEmailTo()));
+                    } else {
+                        reportRequestService.markFinished(event.getRequestId(), ReportStatus.FAILED, e.getMessage());
+                    }
+                }));
+    }
+
+    // El correo se encola en su propia transacción: un fallo posterior (timeout de la etapa email,
+    // error al registrar COMPLETED) no debe dejar FAILED un reporte cuyo correo ya va a salir.
+    // Queda una ventana: un insert que confirma después de esta consulta deja el reporte FAILED con correo.
+    public boolean emailQueued(String requestId) {
+        return emailService.summaryQueued(requestId);
+    }
+
+    // Con email_outbox el reporte termina al encolar el correo; la entrega se consulta aparte
+    public String completionMessage(String emailTo) {
+        return (emailService.queuesSummaries() ? "Resumen encolado para " : "Resumen enviado a ") + emailTo;
+    }
 
-        try {
-            SalesAggregates aggregates = aggregationService.calculateAggregates(req.getFrom(), req.getTo(), req.getBranch());
+    // Agregación → resumen LLM → email, con timeout y latencia por etapa.
+    // Propaga el error: el modo evento lo absorbe, la cola de trabajos decide si reintenta.
+    public Mono<Void> execute(ReportRequestedEvent event, Scheduler blockingScheduler) {
+        SummaryRequest req = event.getRequest();
+        return Mono.defer(() -> {
+            Timer.Sample total = Timer.start(meterRegistry);
+            return summarize(event, blockingScheduler)
+                    .flatMap(shared -> stage("email",
+                            Mono.<Void>fromRunnable(() -> emailService.deliverSummaryEmail(
+                                    event.getRequestId(), req.getEmailTo(), req.getFrom(), req.getTo(), shared.aggregates(), shared.summary(),
+                                    SummaryLayout.of(event)))
+                                    .subscribeOn(blockingScheduler), emailTimeout)
+                            // El SMTP pudo haber aceptado el correo: resultado desconocido, no reintentable
+                            .onErrorMap(TimeoutException.class, e -> new EmailDeliveryUnknownException(
+                                    "Envío de email sin confirmar tras " + emailTimeout.toSeconds() + "s")))
+                    .doOnSuccess(v -> total.stop(meterRegistry.timer("reports.processing", "outcome", "success")))
+                    .doOnError(e -> {
+                        total.stop(meterRegistry.timer("reports.processing", "outcome", "failure"));
+                        System.err.println("❌ Error procesando resumen: " + e.getMessage());
+                    });
+        });
+    }
 
-            String summary = githubModelsClient.generateSummary(aggregates);
+    // Agregación + resumen LLM, compartidos con las solicitudes idénticas que estén en vuelo
+    private Mono<ReportCoalescer.Shared> summarize(ReportRequestedEvent event, Scheduler blockingScheduler) {
+        SummaryRequest req = event.getRequest();
+        Supplier<Mono<ReportCoalescer.Shared>> work = () -> stage("aggregation",
+                Mono.fromCallable(() -> aggregate(req))
+                        .subscribeOn(blockingScheduler), aggregationTimeout)
+                .flatMap(aggregates -> stage("summary",
+                        Mono.defer(() -> githubModelsClient.generateSummary(aggregates)), summaryTimeout)
+                        .map(summary -> new ReportCoalescer.Shared(aggregates, summary)));
+        return coalesce ? coalescer.join(ReportCoalescer.Key.of(event), work) : Mono.defer(work);
+    }
 
-            emailService.sendSummaryEmail(req.getEmailTo(), req.getFrom(), req.getTo(), aggregates, summary);
+    // Transacción de solo lectura con el timeout de la etapa: Hibernate lo aplica a cada consulta
+    private SalesAggregates aggregate(SummaryRequest req) {
+        if (transactionManager == null) {
+            return aggregationService.calculateAggregates(req.getFrom(), req.getTo(), req.getBranch());
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        tx.setTimeout((int) Math.max(1, (aggregationTimeout.toMillis() + 999) / 1000));
+        return tx.execute(status -> aggregationService.calculateAggregates(req.getFrom(), req.getTo(), req.getBranch()));
+    }
 
-        } catch (Exception e) {
-            System.err.println("❌ Error procesando resumen: " + e.getMessage());
+    // Transición en report_requests (JPA bloqueante); un fallo al registrar no tumba el pipeline
+    private Mono<Void> track(ReportRequestedEvent event, Scheduler blockingScheduler, Runnable update) {
+        if (event.getRequestId() == null) {
+            return Mono.empty();
         }
+        return Mono.<Void>fromRunnable(update)
+                .subscribeOn(blockingScheduler)
+                .onErrorResume(e -> {
+                    System.err.println("❌ Error registrando estado del reporte " + event.getRequestId() + ": " + e.getMessage());
+                    return Mono.empty();
+                });
     }
-}
 
+    // Métrica: reports.stage{stage=aggregation|summary|email, outcome=success|failure}
+    private <T> Mono<T> stage(String name, Mono<T> mono, Duration timeout) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return mono.timeout(timeout)
+                    .doOnSuccess(v -> sample.stop(meterRegistry.timer("reports.stage", "stage", name, "outcome", "success")))
+                    .doOnError(e -> sample.stop(meterRegistry.timer("reports.stage", "stage", name, "outcome", "failure")));
+        });
+    }
+}
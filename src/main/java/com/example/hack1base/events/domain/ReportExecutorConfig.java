@@ -0,0 +1,61 @@
+package com.example.hack1base.events.domain;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+
+@Configuration
+public class ReportExecutorConfig {
+
+    public static final String REPORT_EXECUTOR = "reportExecutor";
+
+    // Executor exclusivo del pipeline de reportes, según reports.executor.mode:
+    //  - platform: pool de tamaño y cola acotados; con la cola llena el submit lanza TaskRejectedException
+    //  - virtual: un virtual thread por reporte, acotado por reports.executor.virtual.maxInFlight
+    // En ambos casos el rechazo llega a SummaryController como 429.
+    // Métricas: executor.* {name=reportExecutor} (platform) o reports.inflight (virtual)
+    @Bean(name = REPORT_EXECUTOR)
+    public AsyncTaskExecutor reportExecutor(
+            @Value("${reports.executor.mode:platform}") String mode,
+            @Value("${reports.executor.poolSize:4}") int poolSize,
+            @Value("${reports.executor.queueCapacity:100}") int queueCapacity,
+            @Value("${reports.executor.virtual.maxInFlight:1000}") int maxInFlight,
+            MeterRegistry meterRegistry) {
+        if ("virtual".equalsIgnoreCase(mode)) {
+            BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("report-vt-", maxInFlight);
+            Gauge.builder("reports.inflight", executor, BoundedVirtualThreadExecutor::getInFlight)
+                    .register(meterRegistry);
+            return executor;
+        }
+        if (!"platform".equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("reports.executor.mode inválido: " + mode);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        ExecutorServiceMetrics.monitor(meterRegistry, executor.getThreadPoolExecutor(), REPORT_EXECUTOR, List.of());
+        return executor;
+    }
+
+    // Al declarar un executor propio Boot deja de crear el suyo; se mantiene el executor
+    // por defecto para el resto de @Async y para las respuestas asíncronas de MVC (export)
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    @Primary
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.hack1base.events.domain;
+
+import com.example.hack1base.Exceptions.EmailDeliveryUnknownException;
+import com.example.hack1base.ReportRequest.domain.ReportJobQueue;
+import com.example.hack1base.ReportRequest.domain.ReportRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Workers de la cola de reportes (reports.dispatch=queue): cada hilo reclama un trabajo con
+// SKIP LOCKED, lo ejecuta y vuelve a reclamar; sin trabajo, espera pollInterval.
+// N nodos × reports.queue.workers hilos se reparten la cola sin coordinarse entre sí.
+@Component
+@ConditionalOnProperty(name = "reports.dispatch", havingValue = "queue")
+public class ReportQueueWorker implements SmartLifecycle {
+
+    private final ReportJobQueue jobQueue;
+    private final ReportEventListener pipeline;
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+
+    @Value("${reports.queue.workers:4}")
+    private int workers = 4;
+
+    @Value("${reports.queue.pollInterval:2s}")
+    private Duration pollInterval = Duration.ofSeconds(2);
+
+    private volatile boolean running;
+    private ExecutorService pool;
+
+    public ReportQueueWorker(ReportJobQueue jobQueue, ReportEventListener pipeline) {
+        this.jobQueue = jobQueue;
+        this.pipeline = pipeline;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        pool = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("report-worker-"));
+        for (int i = 0; i < workers; i++) {
+            String workerId = nodeId + "/" + UUID.randomUUID().toString().substring(0, 8);
+            pool.execute(() -> loop(workerId));
+        }
+    }
+
+    // Un trabajo interrumpido por el apagado no se cierra: su lease vence y otro nodo lo retoma
+    @Override
+    public void stop() {
+        running = false;
+        if (pool != null) {
+            pool.shutdownNow();
+            try {
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void loop(String workerId) {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                if (!pollOnce(workerId)) {
+                    Thread.sleep(pollInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                System.err.println("❌ Error en worker de reportes " + workerId + ": " + e.getMessage());
+                sleepQuietly();
+            }
+        }
+    }
+
+    // Reclama y ejecuta un trabajo; false si la cola no tenía nada listo
+    boolean pollOnce(String workerId) {
+        Optional<ReportRequest> claimed = jobQueue.claimNext(workerId);
+        if (claimed.isEmpty()) {
+            return false;
+        }
+        ReportRequest job = claimed.get();
+        try {
+            pipeline.execute(ReportRequestedEvent.from(this, job), Schedulers.immediate()).block();
+            jobQueue.complete(job.getId(), workerId, pipeline.completionMessage(job.getEmailTo()));
+        } catch (EmailDeliveryUnknownException e) {
+            // Reintentar podría mandar el correo dos veces
+            if (!completeIfEmailQueued(job, workerId)) {
+                jobQueue.failWithoutRetry(job.getId(), workerId, e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            if (!completeIfEmailQueued(job, workerId)) {
+                jobQueue.fail(job.getId(), workerId, e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    // Con el correo ya en email_outbox el trabajo tiene su resultado: no se falla ni se reintenta
+    private boolean completeIfEmailQueued(ReportRequest job, String workerId) {
+        if (!pipeline.emailQueued(job.getId())) {
+            return false;
+        }
+        jobQueue.complete(job.getId(), workerId, pipeline.completionMessage(job.getEmailTo()));
+        return true;
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(pollInterval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
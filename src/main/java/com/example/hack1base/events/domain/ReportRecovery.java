@@ -0,0 +1,134 @@
+package com.example.hack1base.events.domain;
+
+import com.example.hack1base.ReportRequest.domain.ReportRequest;
+import com.example.hack1base.ReportRequest.domain.ReportRequestService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Al arrancar, re-encola las solicitudes que quedaron en PROCESSING (el reinicio perdió su evento).
+// Lotes acotados y pausa ante rechazo: no desborda el pool de reportes que también atiende tráfico nuevo.
+// Con varios nodos cada fila se reclama antes de re-publicarla (UPDATE condicional sobre started_at):
+// un reinicio escalonado no regenera el mismo reporte una vez por nodo, y lo que otro nodo tomó hace
+// menos de staleAfter se deja en paz. Si se saltó algo por reciente, hay una segunda pasada tras staleAfter.
+@Component
+public class ReportRecovery {
+
+    private static final LocalDateTime NO_CURSOR = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ReportRequestService reportRequestService;
+    private final ApplicationEventPublisher publisher;
+    private final MeterRegistry meterRegistry;
+
+    // Corte tomado antes de que el servidor web acepte tráfico: lo nuevo ya tiene su evento
+    private final LocalDateTime bootTime = LocalDateTime.now();
+
+    @Value("${reports.recovery.enabled:true}")
+    private boolean enabled = true;
+
+    // En modo cola no hay eventos que re-publicar: los leases vencidos se reclaman solos
+    @Value("${reports.dispatch:event}")
+    private String dispatchMode = "event";
+
+    @Value("${reports.recovery.batchSize:50}")
+    private int batchSize = 50;
+
+    @Value("${reports.recovery.rejectionPause:2s}")
+    private Duration rejectionPause = Duration.ofSeconds(2);
+
+    @Value("${reports.recovery.maxRejections:30}")
+    private int maxRejections = 30;
+
+    // Debe superar la suma de reports.timeout.* más la espera en el pool: una fila tomada hace menos
+    // puede seguir en curso en otro nodo
+    @Value("${reports.recovery.staleAfter:5m}")
+    private Duration staleAfter = Duration.ofMinutes(5);
+
+    private int skippedRecent;
+
+    public ReportRecovery(ReportRequestService reportRequestService,
+                          ApplicationEventPublisher publisher,
+                          MeterRegistry meterRegistry) {
+        this.reportRequestService = reportRequestService;
+        this.publisher = publisher;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled && !"queue".equalsIgnoreCase(dispatchMode)) {
+            recover(bootTime);
+            if (skippedRecent > 0) {
+                CompletableFuture.runAsync(() -> recover(bootTime),
+                        CompletableFuture.delayedExecutor(staleAfter.toMillis(), TimeUnit.MILLISECONDS));
+            }
+        }
+    }
+
+    // Recorre por keyset (requestedAt, id) solo lo anterior a 'before'; devuelve cuántas re-encoló
+    public int recover(LocalDateTime before) {
+        LocalDateTime afterAt = NO_CURSOR;
+        String afterId = "";
+        LocalDateTime staleBefore = LocalDateTime.now().minus(staleAfter);
+        int requeued = 0;
+        int rejections = 0;
+        skippedRecent = 0;
+
+        List<ReportRequest> batch;
+        do {
+            batch = reportRequestService.findUnfinishedBatch(before, afterAt, afterId, batchSize);
+            for (ReportRequest report : batch) {
+                afterAt = report.getRequestedAt();
+                afterId = report.getId();
+                if (!reportRequestService.claimForRecovery(report.getId(), staleBefore)) {
+                    skippedRecent++;
+                    meterRegistry.counter("reports.recovery.skipped").increment();
+                    continue;
+                }
+                while (!requeue(report)) {
+                    if (++rejections > maxRejections || !pause()) {
+                        System.err.println("⚠️ Recuperación de reportes interrumpida tras " + requeued
+                                + " re-encolados; el resto queda en PROCESSING para el próximo arranque");
+                        return requeued;
+                    }
+                }
+                requeued++;
+            }
+        } while (batch.size() == batchSize);
+
+        if (requeued > 0) {
+            System.out.println("♻️ Reportes recuperados al arrancar: " + requeued);
+        }
+        return requeued;
+    }
+
+    private boolean requeue(ReportRequest report) {
+        try {
+            publisher.publishEvent(ReportRequestedEvent.from(this, report));
+            meterRegistry.counter("reports.recovered").increment();
+            return true;
+        } catch (TaskRejectedException e) {
+            return false;
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(rejectionPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.hack1base.events.domain;
 
+import com.example.hack1base.ReportRequest.domain.ReportRequest;
 import com.example.hack1base.events.dto.SummaryRequest;
 import lombok.Getter;
 import org.springframework.context.ApplicationEvent;
@@ -29,5 +30,12 @@ public class ReportRequestedEvent extends ApplicationEvent {
         this.includeCharts = includeCharts;
         this.attachPdf = attachPdf;
     }
-}
 
+    // Reconstruye el evento desde la fila persistida (recuperación al arrancar y cola de trabajos)
+    public static ReportRequestedEvent from(Object source, ReportRequest report) {
+        SummaryRequest request = new SummaryRequest(
+                report.getFromDate(), report.getToDate(), report.getBranch(), report.getEmailTo());
+        return new ReportRequestedEvent(source, request, report.getId(), report.getRequestedByEmail(),
+                report.isPremium(), report.isIncludeCharts(), report.isAttachPdf());
+    }
+}
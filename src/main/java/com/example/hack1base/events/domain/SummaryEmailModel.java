@@ -0,0 +1,10 @@
+package com.example.hack1base.events.domain;
+
+import com.example.hack1base.salesaggregation.domain.SalesAggregates;
+
+import java.time.LocalDate;
+
+// Datos que ve la plantilla del email de resumen
+record SummaryEmailModel(LocalDate from, LocalDate to, SalesAggregates aggregates, String summary,
+                         SummaryLayout layout) {
+}
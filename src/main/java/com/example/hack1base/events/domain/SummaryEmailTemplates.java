@@ -0,0 +1,101 @@
+package com.example.hack1base.events.domain;
+
+import com.example.hack1base.salesaggregation.domain.SalesAggregates;
+import com.example.hack1base.salesaggregation.domain.SkuSales;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+// Plantillas del email de resumen (standard y premium), leídas y compiladas una vez al crear
+// el bean: un error de sintaxis o un nombre desconocido tumba el arranque, no un envío.
+// Se renderiza sobre un StringBuilder reutilizado por hilo; los muy grandes no se retienen.
+@Component
+public class SummaryEmailTemplates {
+
+    static final String STANDARD = "email-templates/summary-standard.html";
+    static final String PREMIUM = "email-templates/summary-premium.html";
+
+    // Tope de filas de la tabla premium (las de más unidades)
+    static final int MAX_ROWS = 50;
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_RETAINED_BUFFER = 256 * 1024;
+
+    private final EmailTemplate<SummaryEmailModel> standard;
+    private final EmailTemplate<SummaryEmailModel> premium;
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(BUFFER_SIZE));
+
+    public SummaryEmailTemplates() {
+        TemplateBindings<SummaryEmailModel> bindings = bindings();
+        this.standard = EmailTemplate.compile(STANDARD, load(STANDARD), bindings);
+        this.premium = EmailTemplate.compile(PREMIUM, load(PREMIUM), bindings);
+    }
+
+    public String subject(LocalDate from, LocalDate to) {
+        return "Reporte Semanal Oreo - " + from + " a " + to;
+    }
+
+    public String render(LocalDate from, LocalDate to, SalesAggregates aggregates, String summary, SummaryLayout layout) {
+        return render(new SummaryEmailModel(from, to, aggregates, summary, layout));
+    }
+
+    String render(SummaryEmailModel model) {
+        EmailTemplate<SummaryEmailModel> template = model.layout().premium() ? premium : standard;
+        StringBuilder out = buffers.get();
+        out.setLength(0);
+        template.render(model, out);
+        String html = out.toString();
+        if (out.capacity() > MAX_RETAINED_BUFFER) {
+            buffers.remove();
+        }
+        return html;
+    }
+
+    private static TemplateBindings<SummaryEmailModel> bindings() {
+        TemplateBindings<SkuSales> row = new TemplateBindings<SkuSales>()
+                .text("sku", SkuSales::sku)
+                .number("units", SkuSales::units)
+                .decimal("revenue", SkuSales::revenue)
+                .decimal("share", SkuSales::unitShare);
+
+        return new TemplateBindings<SummaryEmailModel>()
+                .text("from", m -> String.valueOf(m.from()))
+                .text("to", m -> String.valueOf(m.to()))
+                .text("summary", SummaryEmailModel::summary)
+                .number("totalUnits", m -> m.aggregates().getTotalUnits())
+                .decimal("totalRevenue", m -> m.aggregates().getTotalRevenue())
+                .text("topSku", m -> orNotAvailable(m.aggregates().getTopSku()))
+                .text("topBranch", m -> orNotAvailable(m.aggregates().getTopBranch()))
+                // Total de SKUs, no las filas mostradas (la tabla se corta en MAX_ROWS)
+                .number("skuCount", m -> m.aggregates().getBySku() == null ? 0 : m.aggregates().getBySku().size())
+                .flag("hasRows", m -> !rows(m).isEmpty())
+                .flag("includeCharts", m -> m.layout().includeCharts())
+                .list("rows", SummaryEmailTemplates::rows, row);
+    }
+
+    private static List<SkuSales> rows(SummaryEmailModel model) {
+        List<SkuSales> bySku = model.aggregates().getBySku();
+        if (bySku == null) {
+            return List.of();
+        }
+        return bySku.size() > MAX_ROWS ? bySku.subList(0, MAX_ROWS) : bySku;
+    }
+
+    private static String orNotAvailable(String value) {
+        return value == null || value.isBlank() ? "N/A" : value;
+    }
+
+    private static String load(String path) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la plantilla " + path, e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.hack1base.events.domain;
+
+// Opciones de presentación del email de resumen, tal como llegan en la solicitud
+public record SummaryLayout(boolean premium, boolean includeCharts, boolean attachPdf) {
+
+    public static final SummaryLayout STANDARD = new SummaryLayout(false, false, false);
+
+    public static SummaryLayout of(ReportRequestedEvent event) {
+        return new SummaryLayout(event.isPremium(), event.isIncludeCharts(), event.isAttachPdf());
+    }
+}
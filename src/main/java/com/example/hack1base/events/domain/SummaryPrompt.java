@@ -0,0 +1,50 @@
+package com.example.hack1base.events.domain;
+
+import com.example.hack1base.salesaggregation.domain.SalesAggregates;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+// Prompt normalizado del resumen y su versión local determinista (fallback sin modelo).
+// Locale.ROOT: el mismo agregado produce el mismo texto en cualquier JVM, y por lo tanto la misma clave de caché.
+final class SummaryPrompt {
+
+    static final String SYSTEM = "Eres un analista que escribe resúmenes breves y claros para emails corporativos.";
+
+    private SummaryPrompt() {
+    }
+
+    static String render(SalesAggregates aggregates) {
+        return String.format(Locale.ROOT,
+                "Con estos datos: totalUnits=%d, totalRevenue=%.2f, topSku=%s, topBranch=%s. Devuelve un resumen ≤120 palabras en español para enviar por email.",
+                aggregates.getTotalUnits(), aggregates.getTotalRevenue(),
+                normalize(aggregates.getTopSku()), normalize(aggregates.getTopBranch()));
+    }
+
+    // Clave por contenido: modelo + prompt normalizado
+    static String key(String modelId, String prompt) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest((modelId + "\n" + prompt).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    static String localSummary(SalesAggregates aggregates) {
+        if (aggregates.getTotalUnits() == 0) {
+            return "No se registraron ventas en el periodo consultado.";
+        }
+        return String.format(Locale.ROOT,
+                "En el periodo se vendieron %d unidades por un total de %.2f. El SKU más vendido fue %s y la sucursal con más unidades fue %s.",
+                aggregates.getTotalUnits(), aggregates.getTotalRevenue(),
+                normalize(aggregates.getTopSku()), normalize(aggregates.getTopBranch()));
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? "N/A" : value.trim().replaceAll("\\s+", " ");
+    }
+}
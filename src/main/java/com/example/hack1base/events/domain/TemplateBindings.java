@@ -0,0 +1,100 @@
+package com.example.hack1base.events.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+// Nombres que una plantilla puede usar y cómo se leen del modelo. Los valores se escriben
+// directo en el buffer (números sin pasar por String, decimales sin String.format).
+final class TemplateBindings<T> {
+
+    interface ValueWriter<T> {
+        void write(T model, StringBuilder out, boolean escape);
+    }
+
+    record ListBinding<T, R>(Function<T, List<R>> rows, TemplateBindings<R> bindings) {
+    }
+
+    private final Map<String, ValueWriter<T>> values = new HashMap<>();
+    private final Map<String, Predicate<T>> flags = new HashMap<>();
+    private final Map<String, ListBinding<T, ?>> lists = new HashMap<>();
+
+    TemplateBindings<T> text(String name, Function<T, String> accessor) {
+        values.put(name, (model, out, escape) -> {
+            String value = accessor.apply(model);
+            if (value == null) {
+                return;
+            }
+            if (escape) {
+                appendEscaped(out, value);
+            } else {
+                out.append(value);
+            }
+        });
+        return this;
+    }
+
+    TemplateBindings<T> number(String name, ToLongFunction<T> accessor) {
+        values.put(name, (model, out, escape) -> out.append(accessor.applyAsLong(model)));
+        return this;
+    }
+
+    // Dos decimales con punto, redondeo half-up (mismo texto que %.2f en Locale.ROOT, salvo -0.00)
+    TemplateBindings<T> decimal(String name, ToDoubleFunction<T> accessor) {
+        values.put(name, (model, out, escape) -> appendDecimal(out, accessor.applyAsDouble(model)));
+        return this;
+    }
+
+    TemplateBindings<T> flag(String name, Predicate<T> test) {
+        flags.put(name, test);
+        return this;
+    }
+
+    <R> TemplateBindings<T> list(String name, Function<T, List<R>> rows, TemplateBindings<R> rowBindings) {
+        lists.put(name, new ListBinding<>(rows, rowBindings));
+        return this;
+    }
+
+    ValueWriter<T> value(String name) {
+        return values.get(name);
+    }
+
+    Predicate<T> flag(String name) {
+        return flags.get(name);
+    }
+
+    ListBinding<T, ?> list(String name) {
+        return lists.get(name);
+    }
+
+    // BigDecimal.valueOf parte del decimal más corto del double (como %.2f): 1.005 → 1.01.
+    // Un negativo que redondea a cero se escribe 0.00
+    static void appendDecimal(StringBuilder out, double value) {
+        if (!Double.isFinite(value)) {
+            out.append(value);
+            return;
+        }
+        BigDecimal rounded = BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+        out.append(rounded.signum() == 0 ? "0.00" : rounded.toPlainString());
+    }
+
+    static void appendEscaped(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.hack1base.salesaggregation.application;
+
+import com.example.hack1base.salesaggregation.domain.SalesAggregationService;
+import com.example.hack1base.salesaggregation.domain.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sales/rollup")
+@RequiredArgsConstructor
+public class SalesRollupController {
+
+    private final SalesRollupService salesRollupService;
+    private final SalesAggregationService salesAggregationService;
+
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('CENTRAL')")
+    public ResponseEntity<Map<String, Object>> rebuild(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        int rows = salesRollupService.rebuild(from, to);
+        if (from == null && to == null) {
+            // Un rebuild completo deja el rollup consistente aunque el backfill de arranque haya fallado
+            salesAggregationService.markRollupReady();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("rows", rows);
+        response.put("from", from);
+        response.put("to", to);
+        return ResponseEntity.ok(response);
+    }
+}
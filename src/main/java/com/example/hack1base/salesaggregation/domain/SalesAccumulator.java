@@ -0,0 +1,67 @@
+package com.example.hack1base.salesaggregation.domain;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acumulador de una sola pasada para {@link SalesAggregates}: totales en primitivos y
+ * unidades por sku/branch; el top se elige con un recorrido lineal, sin ordenar.
+ * El desglose por SKU sí se ordena, una vez por agregado (k SKUs, no n ventas).
+ */
+public class SalesAccumulator {
+
+    private long totalUnits;
+    private double totalRevenue;
+    private final Map<String, long[]> unitsBySku = new HashMap<>();
+    private final Map<String, double[]> revenueBySku = new HashMap<>();
+    private final Map<String, long[]> unitsByBranch = new HashMap<>();
+
+    public void add(String sku, String branch, long units, double revenue) {
+        totalUnits += units;
+        totalRevenue += revenue;
+        unitsBySku.computeIfAbsent(sku, k -> new long[1])[0] += units;
+        revenueBySku.computeIfAbsent(sku, k -> new double[1])[0] += revenue;
+        unitsByBranch.computeIfAbsent(branch, k -> new long[1])[0] += units;
+    }
+
+    public void add(SalesCell cell) {
+        add(cell.sku(), cell.branch(), cell.units(), cell.revenue());
+    }
+
+    public SalesAggregates toAggregates() {
+        if (totalUnits == 0) {
+            return new SalesAggregates(0, 0.0, null, null);
+        }
+        return new SalesAggregates(Math.toIntExact(totalUnits), totalRevenue,
+                topKey(unitsBySku), topKey(unitsByBranch), bySku());
+    }
+
+    // Más unidades primero; en empate, SKU alfabéticamente menor (mismo criterio que el top)
+    private List<SkuSales> bySku() {
+        List<SkuSales> rows = new ArrayList<>(unitsBySku.size());
+        for (Map.Entry<String, long[]> entry : unitsBySku.entrySet()) {
+            long units = entry.getValue()[0];
+            rows.add(new SkuSales(entry.getKey(), units, revenueBySku.get(entry.getKey())[0],
+                    units * 100.0 / totalUnits));
+        }
+        rows.sort(Comparator.comparingLong(SkuSales::units).reversed().thenComparing(SkuSales::sku));
+        return List.copyOf(rows);
+    }
+
+    // Mayor cantidad de unidades; en empate gana la clave alfabéticamente menor
+    private static String topKey(Map<String, long[]> unitsByKey) {
+        String top = null;
+        long topUnits = Long.MIN_VALUE;
+        for (Map.Entry<String, long[]> entry : unitsByKey.entrySet()) {
+            long units = entry.getValue()[0];
+            if (units > topUnits || (units == topUnits && entry.getKey().compareTo(top) < 0)) {
+                top = entry.getKey();
+                topUnits = units;
+            }
+        }
+        return top;
+    }
+}
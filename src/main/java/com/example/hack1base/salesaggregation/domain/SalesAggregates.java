@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -12,4 +14,10 @@ public class SalesAggregates {
     private double totalRevenue;
     private String topSku;
     private String topBranch;
+    // Desglose por SKU, de más a menos unidades (inmutable)
+    private List<SkuSales> bySku = List.of();
+
+    public SalesAggregates(int totalUnits, double totalRevenue, String topSku, String topBranch) {
+        this(totalUnits, totalRevenue, topSku, topBranch, List.of());
+    }
 }
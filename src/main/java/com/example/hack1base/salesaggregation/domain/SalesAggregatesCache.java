@@ -0,0 +1,107 @@
+package com.example.hack1base.salesaggregation.domain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Caché de agregados por ventana (from, to, branch), acotada por tamaño y TTL.
+// Se invalida solo lo que cubre el día y la sucursal de una venta escrita (ver SaleService).
+// Métricas: cache.gets{cache=sales.aggregates,result=hit|miss}, cache.evictions, cache.size,
+// sales.aggregates.cache.hitRatio
+@Component
+@ConditionalOnProperty(name = "sales.aggregatesCache.enabled", havingValue = "true")
+public class SalesAggregatesCache {
+
+    public static final String CACHE_NAME = "sales.aggregates";
+
+    // branch null = todas las sucursales
+    record Key(LocalDate from, LocalDate to, String branch) {
+        static Key of(LocalDate from, LocalDate to, String branch) {
+            return new Key(from, to, branch == null || branch.isBlank() ? null : branch);
+        }
+
+        boolean covers(LocalDate day, String saleBranch) {
+            return !day.isBefore(from) && !day.isAfter(to) && (branch == null || branch.equals(saleBranch));
+        }
+    }
+
+    private final Cache<Key, SalesAggregates> cache;
+
+    public SalesAggregatesCache(@Value("${sales.aggregatesCache.maxSize:5000}") long maxSize,
+                                @Value("${sales.aggregatesCache.ttl:30m}") Duration ttl,
+                                MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("sales.aggregates.cache.hitRatio", cache, c -> c.stats().hitRate()).register(meterRegistry);
+    }
+
+    // Devuelve una copia: SalesAggregates es mutable y la instancia cacheada se comparte
+    public SalesAggregates get(LocalDate from, LocalDate to, String branch, Supplier<SalesAggregates> loader) {
+        SalesAggregates cached = cache.get(Key.of(from, to, branch), k -> loader.get());
+        return new SalesAggregates(cached.getTotalUnits(), cached.getTotalRevenue(), cached.getTopSku(), cached.getTopBranch(),
+                cached.getBySku());
+    }
+
+    // Día y sucursal tocados por una escritura
+    public record SaleSlot(LocalDate day, String branch) {
+    }
+
+    // Se invalida ya y otra vez al confirmar la transacción: una lectura concurrente que cacheó
+    // el estado previo al commit no sobrevive
+    public void invalidateSale(LocalDate day, String branch) {
+        if (day == null) {
+            return;
+        }
+        invalidateSales(Set.of(new SaleSlot(day, branch)));
+    }
+
+    // Lote de la ingesta: una sola pasada por las claves para todos los (día, sucursal) distintos
+    public void invalidateSales(Set<SaleSlot> slots) {
+        if (slots.isEmpty()) {
+            return;
+        }
+        evictCovering(slots);
+        afterCommit(() -> evictCovering(slots));
+    }
+
+    // Tras reconstruir el rollup: lo cacheado se calculó sobre filas que ya no existen
+    public void invalidateAll() {
+        cache.invalidateAll();
+        afterCommit(cache::invalidateAll);
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    private void evictCovering(Set<SaleSlot> slots) {
+        cache.asMap().keySet().removeIf(key -> slots.stream().anyMatch(s -> key.covers(s.day(), s.branch())));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
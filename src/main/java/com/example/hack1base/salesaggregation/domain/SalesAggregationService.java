@@ -1,27 +1,46 @@
 package com.example.hack1base.salesaggregation.domain;
 
-import com.example.hack1base.Sale.domain.Sale;
 import com.example.hack1base.Sale.estructure.SaleRepository;
+import com.example.hack1base.salesaggregation.estructure.SalesDailyRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class SalesAggregationService {
 
 	private final SaleRepository saleRepository;
+	private final SalesDailyRollupRepository rollupRepository;
 
-	public SalesAggregationService(SaleRepository saleRepository) {
+	@Value("${sales.rollup.enabled:true}")
+	private boolean rollupEnabled;
+
+	// Hasta que el backfill confirma el rollup se agrega sobre sales: un rollup vacío daría totales en 0
+	private volatile boolean rollupReady;
+
+	private SalesAggregatesCache aggregatesCache;
+
+	public SalesAggregationService(SaleRepository saleRepository, SalesDailyRollupRepository rollupRepository) {
 		this.saleRepository = saleRepository;
+		this.rollupRepository = rollupRepository;
+	}
+
+	@Autowired(required = false)
+	public void setAggregatesCache(SalesAggregatesCache aggregatesCache) {
+		this.aggregatesCache = aggregatesCache;
 	}
 
+	public void markRollupReady() {
+		this.rollupReady = true;
+	}
+
+	@Transactional(readOnly = true)
 	public SalesAggregates calculateAggregates(LocalDate from, LocalDate to, String branch) {
 		if (from == null && to == null) {
 			LocalDate today = LocalDate.now();
@@ -35,38 +54,33 @@ public class SalesAggregationService {
 			throw new IllegalArgumentException("Invalid date range: to < from");
 		}
 
-		LocalDateTime start = from.atStartOfDay();
-		LocalDateTime end = to.atTime(LocalTime.MAX);
-
-		List<Sale> sales = (branch == null || branch.isBlank())
-				? saleRepository.findBySoldAtBetween(start, end)
-				: saleRepository.findByBranchAndSoldAtBetween(branch, start, end);
-
-		if (sales.isEmpty()) {
-			return new SalesAggregates(0, 0.0, null, null);
+		if (aggregatesCache == null) {
+			return aggregate(from, to, branch);
 		}
+		LocalDate start = from, end = to;
+		return aggregatesCache.get(from, to, branch, () -> aggregate(start, end, branch));
+	}
 
-		int totalUnits = sales.stream().mapToInt(Sale::getUnits).sum();
-		double totalRevenue = sales.stream().mapToDouble(s -> s.getUnits() * s.getPrice()).sum();
-
-		Map<String, Integer> unitsBySku = sales.stream()
-				.collect(Collectors.toMap(Sale::getSku, Sale::getUnits, Integer::sum));
-		String topSku = unitsBySku.entrySet().stream()
-				.sorted(Comparator
-						.comparing(Map.Entry<String, Integer>::getValue).reversed()
-						.thenComparing(Map.Entry::getKey))
-				.map(Map.Entry::getKey)
-				.findFirst().orElse(null);
-
-		Map<String, Integer> unitsByBranch = sales.stream()
-				.collect(Collectors.toMap(Sale::getBranch, Sale::getUnits, Integer::sum));
-		String topBranch = unitsByBranch.entrySet().stream()
-				.sorted(Comparator
-						.comparing(Map.Entry<String, Integer>::getValue).reversed()
-						.thenComparing(Map.Entry::getKey))
-				.map(Map.Entry::getKey)
-				.findFirst().orElse(null);
+	private SalesAggregates aggregate(LocalDate from, LocalDate to, String branch) {
+		SalesAccumulator accumulator = new SalesAccumulator();
+		try (Stream<SalesCell> cells = streamCells(from, to, branch)) {
+			cells.forEach(accumulator::add);
+		}
+		return accumulator.toAggregates();
+	}
 
-		return new SalesAggregates(totalUnits, totalRevenue, topSku, topBranch);
+	// Con el rollup activo y listo se leen filas diarias (O(días)); si no, se agrupa sobre sales
+	private Stream<SalesCell> streamCells(LocalDate from, LocalDate to, String branch) {
+		boolean allBranches = branch == null || branch.isBlank();
+		if (rollupEnabled && rollupReady) {
+			return allBranches
+					? rollupRepository.streamSalesCellsBetween(from, to)
+					: rollupRepository.streamSalesCellsForBranchBetween(branch, from, to);
+		}
+		LocalDateTime start = from.atStartOfDay();
+		LocalDateTime end = to.atTime(LocalTime.MAX);
+		return allBranches
+				? saleRepository.streamSalesCellsBetween(start, end)
+				: saleRepository.streamSalesCellsForBranchBetween(branch, start, end);
 	}
 }
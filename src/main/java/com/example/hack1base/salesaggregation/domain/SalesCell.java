@@ -0,0 +1,8 @@
+package com.example.hack1base.salesaggregation.domain;
+
+/**
+ * Totales de un par sku × branch dentro de un rango. Se construye directamente en la
+ * consulta (constructor expression), sin entidades ni proxies de proyección.
+ */
+public record SalesCell(String sku, String branch, Long units, Double revenue) {
+}
@@ -0,0 +1,30 @@
+package com.example.hack1base.salesaggregation.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Totales de ventas por día × sucursal × sku. Se mantiene incrementalmente desde
+ * {@code SaleService} para que los reportes sumen como mucho una fila por día/branch/sku
+ * en lugar de recorrer cada venta.
+ */
+@Entity
+@Table(name = "sales_daily_rollup")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SalesDailyRollup {
+
+    @EmbeddedId
+    private SalesDailyRollupId id;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Column(nullable = false)
+    private double revenue;
+}
@@ -0,0 +1,46 @@
+package com.example.hack1base.salesaggregation.domain;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+// Al arrancar llena el rollup desde sales si está vacío (primer despliegue) y recién entonces
+// los reportes pasan a leerlo. Si falla, se sigue agregando sobre sales hasta un rebuild completo.
+@Component
+public class SalesRollupBackfill {
+
+    private final SalesRollupService salesRollupService;
+    private final SalesAggregationService salesAggregationService;
+
+    @Value("${sales.rollup.enabled:true}")
+    private boolean enabled = true;
+
+    public SalesRollupBackfill(SalesRollupService salesRollupService,
+                               SalesAggregationService salesAggregationService) {
+        this.salesRollupService = salesRollupService;
+        this.salesAggregationService = salesAggregationService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            backfill();
+        }
+    }
+
+    public boolean backfill() {
+        try {
+            int rows = salesRollupService.backfillIfEmpty();
+            if (rows > 0) {
+                System.out.println("📊 Rollup diario de ventas inicializado: " + rows + " filas");
+            }
+            salesAggregationService.markRollupReady();
+            return true;
+        } catch (DataAccessException e) {
+            System.err.println("⚠️ No se pudo inicializar el rollup de ventas, se agrega sobre sales: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.hack1base.salesaggregation.domain;
+
+import com.example.hack1base.Sale.domain.Sale;
+import com.example.hack1base.salesaggregation.estructure.SalesDailyRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class SalesRollupService {
+
+    private final SalesDailyRollupRepository rollupRepository;
+
+    private SalesAggregatesCache aggregatesCache;
+
+    @Autowired(required = false)
+    public void setAggregatesCache(SalesAggregatesCache aggregatesCache) {
+        this.aggregatesCache = aggregatesCache;
+    }
+
+    // Suma la venta al rollup de su día/branch/sku (en la transacción del llamador)
+    @Transactional
+    public void recordSale(Sale sale) {
+        rollupRepository.applyDelta(sale.getSoldAt().toLocalDate(), sale.getBranch(), sale.getSku(),
+                sale.getUnits(), sale.getUnits() * sale.getPrice());
+    }
+
+    // Versión para lotes: agrupa en memoria y hace un upsert por día/branch/sku distinto
+    @Transactional
+    public void recordSales(List<Sale> sales) {
+        Map<SalesDailyRollupId, SalesDailyRollup> deltas = new HashMap<>();
+        for (Sale sale : sales) {
+            SalesDailyRollupId key = new SalesDailyRollupId(sale.getSoldAt().toLocalDate(), sale.getBranch(), sale.getSku());
+            SalesDailyRollup delta = deltas.computeIfAbsent(key, k -> new SalesDailyRollup(k, 0, 0.0));
+            delta.setUnits(delta.getUnits() + sale.getUnits());
+            delta.setRevenue(delta.getRevenue() + sale.getUnits() * sale.getPrice());
+        }
+        for (SalesDailyRollup delta : deltas.values()) {
+            SalesDailyRollupId key = delta.getId();
+            rollupRepository.applyDelta(key.getSaleDate(), key.getBranch(), key.getSku(),
+                    delta.getUnits(), delta.getRevenue());
+        }
+    }
+
+    // Resta la venta tal como está persistida; se llama antes de modificarla o borrarla
+    @Transactional
+    public void retractSale(Sale sale) {
+        LocalDate day = sale.getSoldAt().toLocalDate();
+        rollupRepository.applyDelta(day, sale.getBranch(), sale.getSku(),
+                -sale.getUnits(), -(sale.getUnits() * sale.getPrice()));
+        rollupRepository.deleteIfEmpty(day, sale.getBranch(), sale.getSku());
+    }
+
+    // Backfill del primer despliegue: solo si el rollup está vacío; devuelve las filas insertadas
+    @Transactional
+    public int backfillIfEmpty() {
+        if (rollupRepository.hasRows()) {
+            return 0;
+        }
+        return rollupRepository.insertFromAllSales();
+    }
+
+    // Recalcula el rollup desde la tabla sales (backfill); sin rango reconstruye todo.
+    // Los agregados cacheados se descartan al confirmar
+    @Transactional
+    public int rebuild(LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            rollupRepository.deleteAllInBatch();
+            invalidateAggregates();
+            return rollupRepository.insertFromAllSales();
+        }
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Both from and to must be provided when one is set");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Invalid date range: to < from");
+        }
+        rollupRepository.deleteBetween(from, to);
+        invalidateAggregates();
+        return rollupRepository.insertFromSalesBetween(from.atStartOfDay(), to.atTime(LocalTime.MAX));
+    }
+
+    private void invalidateAggregates() {
+        if (aggregatesCache != null) {
+            aggregatesCache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.hack1base.salesaggregation.domain;
+
+/**
+ * Fila del desglose por SKU de {@link SalesAggregates}: unidades, ingresos y participación
+ * en las unidades del periodo (0–100), usada por la tabla y el gráfico del email premium.
+ */
+public record SkuSales(String sku, long units, double revenue, double unitShare) {
+}
@@ -0,0 +1,87 @@
+package com.example.hack1base.salesaggregation.estructure;
+
+import com.example.hack1base.Sale.estructure.SaleRepository;
+import com.example.hack1base.salesaggregation.domain.SalesCell;
+import com.example.hack1base.salesaggregation.domain.SalesDailyRollup;
+import com.example.hack1base.salesaggregation.domain.SalesDailyRollupId;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+@Repository
+public interface SalesDailyRollupRepository extends JpaRepository<SalesDailyRollup, SalesDailyRollupId> {
+
+    // Upsert atómico: suma (o resta, con valores negativos) el delta a la fila del día
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "insert into sales_daily_rollup (sale_date, branch, sku, units, revenue) " +
+            "values (:saleDate, :branch, :sku, :units, :revenue) " +
+            "on conflict (sale_date, branch, sku) do update set " +
+            "units = sales_daily_rollup.units + excluded.units, " +
+            "revenue = sales_daily_rollup.revenue + excluded.revenue")
+    int applyDelta(@Param("saleDate") LocalDate saleDate,
+                   @Param("branch") String branch,
+                   @Param("sku") String sku,
+                   @Param("units") long units,
+                   @Param("revenue") double revenue);
+
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "delete from sales_daily_rollup " +
+            "where sale_date = :saleDate and branch = :branch and sku = :sku and units <= 0")
+    int deleteIfEmpty(@Param("saleDate") LocalDate saleDate,
+                      @Param("branch") String branch,
+                      @Param("sku") String sku);
+
+    @Query(nativeQuery = true, value = "select exists (select 1 from sales_daily_rollup)")
+    boolean hasRows();
+
+    @Modifying
+    @Query(nativeQuery = true, value = "delete from sales_daily_rollup where sale_date between :from and :to")
+    int deleteBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "insert into sales_daily_rollup (sale_date, branch, sku, units, revenue) " +
+            "select cast(s.sold_at as date), s.branch, s.sku, sum(s.units), sum(s.units * s.price) " +
+            "from sales s where s.sold_at between :start and :end " +
+            "group by cast(s.sold_at as date), s.branch, s.sku")
+    int insertFromSalesBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "insert into sales_daily_rollup (sale_date, branch, sku, units, revenue) " +
+            "select cast(s.sold_at as date), s.branch, s.sku, sum(s.units), sum(s.units * s.price) " +
+            "from sales s group by cast(s.sold_at as date), s.branch, s.sku")
+    int insertFromAllSales();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = SaleRepository.AGGREGATION_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.hack1base.salesaggregation.domain.SalesCell(" +
+            "r.id.sku, r.id.branch, sum(r.units), sum(r.revenue)) " +
+            "from SalesDailyRollup r where r.id.saleDate between :from and :to group by r.id.sku, r.id.branch")
+    Stream<SalesCell> streamSalesCellsBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = SaleRepository.AGGREGATION_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.hack1base.salesaggregation.domain.SalesCell(" +
+            "r.id.sku, r.id.branch, sum(r.units), sum(r.revenue)) " +
+            "from SalesDailyRollup r where r.id.branch = :branch and r.id.saleDate between :from and :to " +
+            "group by r.id.sku, r.id.branch")
+    Stream<SalesCell> streamSalesCellsForBranchBetween(@Param("branch") String branch,
+                                                       @Param("from") LocalDate from,
+                                                       @Param("to") LocalDate to);
+}
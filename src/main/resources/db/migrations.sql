@@ -0,0 +1,5 @@
+-- Corre en cada arranque después de ddl-auto=update: solo sentencias idempotentes.
+-- update no relaja restricciones existentes: branch (null = todas) y requested_by (las de
+-- /sales/summary no tienen User) nacieron NOT NULL en bases anteriores.
+ALTER TABLE IF EXISTS report_requests ALTER COLUMN branch DROP NOT NULL;
+ALTER TABLE IF EXISTS report_requests ALTER COLUMN requested_by DROP NOT NULL;
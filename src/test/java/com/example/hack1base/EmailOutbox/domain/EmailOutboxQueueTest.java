@@ -0,0 +1,156 @@
+package com.example.hack1base.EmailOutbox.domain;
+
+import com.example.hack1base.EmailOutbox.estructure.EmailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxQueueTest {
+
+    private final EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EmailOutboxQueue queue = new EmailOutboxQueue(repository, meterRegistry);
+
+    private EmailOutboxMessage message;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(queue, "lease", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(queue, "maxAttempts", 3);
+        ReflectionTestUtils.setField(queue, "backoff", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(queue, "maxBackoff", Duration.ofMinutes(1));
+
+        message = EmailOutboxMessage.builder()
+                .id("mail-1")
+                .idempotencyKey("report:req-1")
+                .reportRequestId("req-1")
+                .recipient("dest@corp.com")
+                .subject("Reporte Semanal Oreo")
+                .html("<p>resumen</p>")
+                .status(EmailOutboxStatus.PENDING)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private void claimedBy(String workerId, int attempts) {
+        message.setStatus(EmailOutboxStatus.SENDING);
+        message.setLockedBy(workerId);
+        message.setAttempts(attempts);
+        when(repository.findById("mail-1")).thenReturn(Optional.of(message));
+    }
+
+    @Test
+    @DisplayName("should persist a new message as PENDING and ready to send")
+    void shouldEnqueueNewMessage() {
+        when(repository.findByIdempotencyKey("report:req-1")).thenReturn(Optional.empty());
+        when(repository.saveAndFlush(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        EmailOutboxMessage saved = queue.enqueue("report:req-1", "req-1", "dest@corp.com", "Asunto", "<p>x</p>");
+
+        assertThat(saved.getStatus()).isEqualTo(EmailOutboxStatus.PENDING);
+        assertThat(saved.getNextAttemptAt()).isNotNull();
+        assertThat(saved.getReportRequestId()).isEqualTo("req-1");
+        assertThat(meterRegistry.get("email.outbox.messages").tag("outcome", "enqueued").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("should return the existing message when the idempotency key was already enqueued")
+    void shouldDeduplicateByIdempotencyKey() {
+        when(repository.findByIdempotencyKey("report:req-1")).thenReturn(Optional.of(message));
+
+        assertThat(queue.enqueue("report:req-1", "req-1", "dest@corp.com", "Asunto", "<p>x</p>")).isSameAs(message);
+        verify(repository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("should resolve a concurrent insert of the same key to the stored message")
+    void shouldResolveConcurrentDuplicate() {
+        when(repository.findByIdempotencyKey("report:req-1"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(message));
+        when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("uk_email_outbox_idempotency_key"));
+
+        assertThat(queue.enqueue("report:req-1", "req-1", "dest@corp.com", "Asunto", "<p>x</p>")).isSameAs(message);
+        assertThat(meterRegistry.get("email.outbox.messages").tag("outcome", "duplicate").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("should lease the claimed batch to the worker and count the attempt")
+    void shouldLeaseClaimedBatch() {
+        when(repository.lockNextBatch(any(), eq(20))).thenReturn(List.of(message));
+
+        List<EmailOutboxMessage> batch = queue.claimBatch("node-a/1", 20);
+
+        assertThat(batch).containsExactly(message);
+        assertThat(message.getStatus()).isEqualTo(EmailOutboxStatus.SENDING);
+        assertThat(message.getLockedBy()).isEqualTo("node-a/1");
+        assertThat(message.getAttempts()).isEqualTo(1);
+        assertThat(message.getLeaseUntil()).isAfter(LocalDateTime.now().plusSeconds(90));
+    }
+
+    @Test
+    @DisplayName("should mark sent only while the worker still owns the lease")
+    void shouldMarkSentOnlyWhenOwned() {
+        claimedBy("node-a/1", 1);
+
+        assertThat(queue.markSent("mail-1", "node-b/1")).isFalse();
+        assertThat(message.getStatus()).isEqualTo(EmailOutboxStatus.SENDING);
+
+        assertThat(queue.markSent("mail-1", "node-a/1")).isTrue();
+        assertThat(message.getStatus()).isEqualTo(EmailOutboxStatus.SENT);
+        assertThat(message.getSentAt()).isNotNull();
+        assertThat(message.getLockedBy()).isNull();
+    }
+
+    @Test
+    @DisplayName("should reschedule a retryable failure with exponential backoff")
+    void shouldRetryWithBackoff() {
+        claimedBy("node-a/1", 2);
+
+        assertThat(queue.markFailed("mail-1", "node-a/1", "421 busy", true)).isTrue();
+
+        assertThat(message.getStatus()).isEqualTo(EmailOutboxStatus.PENDING);
+        assertThat(message.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(55));
+        assertThat(message.getLastError()).contains("421 busy");
+        assertThat(queue.backoffFor(5)).isEqualTo(Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("should move the message to DEAD on rejection or when attempts are exhausted")
+    void shouldMoveToDead() {
+        claimedBy("node-a/1", 1);
+        assertThat(queue.markFailed("mail-1", "node-a/1", "550 No such user", false)).isTrue();
+        assertThat(message.getStatus()).isEqualTo(EmailOutboxStatus.DEAD);
+
+        claimedBy("node-a/1", 3);
+        queue.markFailed("mail-1", "node-a/1", "421 busy", true);
+        assertThat(message.getStatus()).isEqualTo(EmailOutboxStatus.DEAD);
+        assertThat(meterRegistry.get("email.outbox.messages").tag("outcome", "dead").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("should push the lease of the worker's in-flight messages one lease into the future")
+    void shouldRenewLeases() {
+        when(repository.renewLeases(eq(List.of("mail-1", "mail-2")), eq("node-a/1"), any())).thenReturn(2);
+
+        assertThat(queue.renewLeases("node-a/1", List.of("mail-1", "mail-2"))).isEqualTo(2);
+
+        verify(repository).renewLeases(eq(List.of("mail-1", "mail-2")), eq("node-a/1"),
+                argThat(until -> until.isAfter(LocalDateTime.now().plusSeconds(110))));
+        assertThat(queue.renewLeases("node-a/1", List.of())).isZero();
+        verifyNoMoreInteractions(repository);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.hack1base.JWT.security;
+
+import com.example.hack1base.Exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    private static ThreadPoolTaskExecutor pool(int threads, int queue) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queue);
+        executor.initialize();
+        return executor;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) encoder.close();
+    }
+
+    @Test
+    @DisplayName("Debe delegar encode/matches en el pool y registrar la latencia")
+    void shouldDelegateAndRecordLatency() {
+        PasswordEncoder plain = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence raw) { return "h:" + raw; }
+            @Override
+            public boolean matches(CharSequence raw, String encoded) { return encoded.equals("h:" + raw); }
+        };
+        encoder = new BoundedPasswordEncoder(plain, pool(1, 10), registry);
+
+        String hash = encoder.encode("secret");
+
+        assertEquals("h:secret", hash);
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("other", hash));
+        assertEquals(1, registry.get("auth.password.hash").tag("op", "encode").timer().count());
+        assertEquals(2, registry.get("auth.password.hash").tag("op", "matches").timer().count());
+    }
+
+    @Test
+    @DisplayName("Debe responder TooManyRequests cuando el pool y la cola están llenos")
+    void shouldRejectWhenSaturated() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence raw) { return raw.toString(); }
+            @Override
+            public boolean matches(CharSequence raw, String encoded) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        encoder = new BoundedPasswordEncoder(slow, pool(1, 0), registry);
+
+        CompletableFuture<Boolean> busy = CompletableFuture.supplyAsync(() -> encoder.matches("a", "a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(TooManyRequestsException.class, () -> encoder.matches("b", "b"));
+        assertEquals(1.0, registry.get("auth.password.hash.rejected").counter().count());
+
+        release.countDown();
+        assertTrue(busy.get(5, TimeUnit.SECONDS));
+    }
+}
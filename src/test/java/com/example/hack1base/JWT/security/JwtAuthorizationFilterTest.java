@@ -19,6 +19,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import jakarta.servlet.FilterChain;
+import java.time.Instant;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -40,6 +41,10 @@ class JwtAuthorizationFilterTest {
         SecurityContextHolder.clearContext();
     }
 
+    private static VerifiedToken verified(String subject) {
+        return new VerifiedToken(subject, "CENTRAL", null, Instant.now().plusSeconds(60));
+    }
+
     @Test
     @DisplayName("Debe continuar la cadena cuando no hay Authorization header")
     void shouldContinueChainWhenNoAuthorizationHeader() throws Exception {
@@ -73,9 +78,9 @@ class JwtAuthorizationFilterTest {
         when(userDetails.getUsername()).thenReturn(username);
         when(userDetails.getAuthorities()).thenReturn(java.util.List.of());
 
-        when(jwtService.extractUsername(token)).thenReturn(username);
-        when(accountService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.isTokenValid(token, username)).thenReturn(true);
+        when(jwtService.verify(token)).thenReturn(verified(username));
+        when(accountService.loadPrincipal(username)).thenReturn(userDetails);
+        when(userDetails.isEnabled()).thenReturn(true);
 
 
         filter.doFilter(request, response, chain);
@@ -99,7 +104,7 @@ class JwtAuthorizationFilterTest {
         FilterChain chain = mock(FilterChain.class);
 
         ExpiredJwtException expired = mock(ExpiredJwtException.class);
-        when(jwtService.extractUsername(token)).thenThrow(expired);
+        when(jwtService.verify(token)).thenThrow(expired);
 
 
         filter.doFilter(request, response, chain);
@@ -124,7 +129,7 @@ class JwtAuthorizationFilterTest {
         MockHttpServletResponse response = new MockHttpServletResponse();
         FilterChain chain = mock(FilterChain.class);
 
-        when(jwtService.extractUsername(token)).thenThrow(new JwtException("bad token"));
+        when(jwtService.verify(token)).thenThrow(new JwtException("bad token"));
 
 
         filter.doFilter(request, response, chain);
@@ -153,7 +158,7 @@ class JwtAuthorizationFilterTest {
         MockHttpServletResponse response = new MockHttpServletResponse();
         FilterChain chain = spy(new MockFilterChain());
 
-        when(jwtService.extractUsername(token)).thenReturn("user@corp.com");
+        when(jwtService.verify(token)).thenReturn(verified("user@corp.com"));
 
 
         filter.doFilter(request, response, chain);
@@ -161,13 +166,13 @@ class JwtAuthorizationFilterTest {
 
         verify(chain, times(1)).doFilter(request, response);
         verifyNoInteractions(accountService);
-        verify(jwtService, times(1)).extractUsername(token);
+        verify(jwtService, times(1)).verify(token);
         assertEquals("already",
                 SecurityContextHolder.getContext().getAuthentication().getPrincipal());
     }
 
     @Test
-    @DisplayName("No debe autenticar cuando isTokenValid retorna false")
+    @DisplayName("No debe autenticar cuando el subject del token no coincide con el principal")
     void shouldNotAuthenticateWhenTokenValidationFails() throws Exception {
 
         String token = "maybe.token";
@@ -182,9 +187,9 @@ class JwtAuthorizationFilterTest {
         when(userDetails.getUsername()).thenReturn(username);
         when(userDetails.getAuthorities()).thenReturn(java.util.List.of());
 
-        when(jwtService.extractUsername(token)).thenReturn(username);
-        when(accountService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.isTokenValid(token, username)).thenReturn(false);
+        when(jwtService.verify(token)).thenReturn(verified("other@corp.com"));
+        when(accountService.loadPrincipal("other@corp.com")).thenReturn(userDetails);
+        when(userDetails.isEnabled()).thenReturn(true);
 
 
         filter.doFilter(request, response, chain);
@@ -194,4 +199,30 @@ class JwtAuthorizationFilterTest {
         assertNull(SecurityContextHolder.getContext().getAuthentication(),
                 "No debe setear Authentication cuando el token no es válido");
     }
+
+    @Test
+    @DisplayName("No debe autenticar cuando la cuenta está deshabilitada")
+    void shouldNotAuthenticateDisabledAccount() throws Exception {
+
+        String token = "valid.token";
+        String username = "user@corp.com";
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = spy(new MockFilterChain());
+
+        UserDetails userDetails = mock(UserDetails.class);
+        when(userDetails.isEnabled()).thenReturn(false);
+
+        when(jwtService.verify(token)).thenReturn(verified(username));
+        when(accountService.loadPrincipal(username)).thenReturn(userDetails);
+
+
+        filter.doFilter(request, response, chain);
+
+
+        verify(chain, times(1)).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
 }
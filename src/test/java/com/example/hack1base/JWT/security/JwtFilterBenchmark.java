@@ -0,0 +1,77 @@
+package com.example.hack1base.JWT.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Costo de autenticar un request en el filtro: antes (3 parsers nuevos + 3 HMAC) vs verify() único
+// vs verify() con VerifiedTokenCache (lookup por digest).
+// Ejecutar: mvn test-compile && java -cp target/test-classes:<classpath de test> \
+//   com.example.hack1base.JWT.security.JwtFilterBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "JjJ4tQ2pZp1wL9uE7rV6mA3xH8yC5nT2qR4bF7kD1vG3sM6pW8dZ0cL3vJ3c";
+
+    private JwtService jwtService;
+    private JwtService cachedJwtService;
+    private SecretKey secretKey;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(SECRET, 3_600_000L);
+        jwtService.init();
+        cachedJwtService = new JwtService(SECRET, 3_600_000L);
+        cachedJwtService.setTokenCache(new VerifiedTokenCache(1_000, new SimpleMeterRegistry()));
+        cachedJwtService.init();
+        secretKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        token = jwtService.generateToken("branch.miraflores@oreo.com", "BRANCH", "Miraflores");
+    }
+
+    // Réplica del camino anterior: extractUsername + isTokenValid (extractUsername + isTokenExpired)
+    private Claims legacyParse(String jwt) {
+        return Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(jwt).getPayload();
+    }
+
+    @Benchmark
+    public boolean legacyThreeParses() {
+        String username = legacyParse(token).getSubject();
+        String again = legacyParse(token).getSubject();
+        boolean expired = legacyParse(token).getExpiration().before(new Date());
+        return username.equals(again) && !expired;
+    }
+
+    @Benchmark
+    public boolean singleVerify() {
+        VerifiedToken verified = jwtService.verify(token);
+        return verified.isFor("branch.miraflores@oreo.com");
+    }
+
+    @Benchmark
+    public boolean cachedVerify() {
+        VerifiedToken verified = cachedJwtService.verify(token);
+        return verified.isFor("branch.miraflores@oreo.com");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -1,4 +1,75 @@
 package com.example.hack1base.JWT.security;
 
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 public class JwtServiceTest {
+
+    private static final String SECRET = "JjJ4tQ2pZp1wL9uE7rV6mA3xH8yC5nT2qR4bF7kD1vG3sM6pW8dZ0cL3vJ3c";
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(SECRET, 60_000L);
+        jwtService.init();
+    }
+
+    @Test
+    @DisplayName("verify: devuelve subject, role, branch y expiración en un solo parse")
+    void shouldVerifyTokenOnce() {
+        String token = jwtService.generateToken("user@corp.com", "BRANCH", "Surco");
+
+        VerifiedToken verified = jwtService.verify(token);
+
+        assertEquals("user@corp.com", verified.subject());
+        assertEquals("BRANCH", verified.role());
+        assertEquals("Surco", verified.branch());
+        assertTrue(verified.expiresAt().isAfter(Instant.now()));
+        assertTrue(verified.isFor("user@corp.com"));
+        assertFalse(verified.isFor("other@corp.com"));
+    }
+
+    @Test
+    @DisplayName("verify: lanza ExpiredJwtException cuando el token expiró")
+    void shouldRejectExpiredToken() {
+        JwtService shortLived = new JwtService(SECRET, -1_000L);
+        shortLived.init();
+        String token = shortLived.generateToken("user@corp.com", "CENTRAL", null);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    @DisplayName("verify: lanza JwtException cuando la firma no coincide")
+    void shouldRejectTamperedToken() {
+        String token = jwtService.generateToken("user@corp.com", "CENTRAL", null);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+    }
+
+    @Test
+    @DisplayName("verify: con caché, el mismo token se resuelve sin volver a parsear")
+    void shouldServeRepeatedTokenFromCache() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, new SimpleMeterRegistry());
+        JwtService cached = new JwtService(SECRET, 60_000L);
+        cached.setTokenCache(cache);
+        cached.init();
+        String token = cached.generateToken("user@corp.com", "CENTRAL", null);
+
+        VerifiedToken first = cached.verify(token);
+        VerifiedToken second = cached.verify(token);
+
+        assertSame(first, second);
+        assertEquals(1, cache.estimatedSize());
+    }
 }
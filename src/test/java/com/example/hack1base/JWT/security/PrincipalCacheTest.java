@@ -0,0 +1,81 @@
+package com.example.hack1base.JWT.security;
+
+import com.example.hack1base.JWT.domain.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PrincipalCache cache = new PrincipalCache(100, 300, registry);
+
+    private Function<String, Account> countingLoader(AtomicInteger loads) {
+        return email -> {
+            loads.incrementAndGet();
+            Account a = new Account();
+            a.setEmail(email);
+            a.setPassword("{bcrypt}hash");
+            a.setRole("BRANCH");
+            a.setBranch("Surco");
+            return a;
+        };
+    }
+
+    private double gets(String result) {
+        return registry.get("cache.gets")
+                .tag("cache", PrincipalCache.CACHE_NAME)
+                .tag("result", result)
+                .functionCounter().count();
+    }
+
+    @Test
+    @DisplayName("Debe cargar una sola vez y contar hits/misses")
+    void shouldLoadOnceAndRecordHitsAndMisses() {
+        AtomicInteger loads = new AtomicInteger();
+
+        Account first = cache.get("a@corp.com", countingLoader(loads));
+        Account second = cache.get("a@corp.com", countingLoader(loads));
+
+        assertEquals("a@corp.com", second.getUsername());
+        assertEquals(1, loads.get());
+        assertEquals(1.0, gets("miss"));
+        assertEquals(1.0, gets("hit"));
+    }
+
+    @Test
+    @DisplayName("Debe volver a cargar después de invalidar")
+    void shouldReloadAfterInvalidate() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("b@corp.com", countingLoader(loads));
+
+        cache.invalidate("b@corp.com");
+        cache.get("b@corp.com", countingLoader(loads));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Debe entregar una copia por llamada, sin contraseña, que no altera lo cacheado")
+    void shouldHandOutDetachedCopiesOfAnImmutableSnapshot() {
+        AtomicInteger loads = new AtomicInteger();
+        Account first = cache.get("c@corp.com", countingLoader(loads));
+
+        first.setRole("CENTRAL");
+        first.setEnabled(false);
+        Account second = cache.get("c@corp.com", countingLoader(loads));
+
+        assertNotSame(first, second);
+        assertEquals("BRANCH", second.getRole());
+        assertEquals("Surco", second.getBranch());
+        assertTrue(second.isEnabled());
+        assertEquals("ROLE_BRANCH", second.getAuthorities().iterator().next().getAuthority());
+        assertNull(second.getPassword());
+        assertEquals(1, loads.get());
+    }
+}
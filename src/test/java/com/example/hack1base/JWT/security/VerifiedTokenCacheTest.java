@@ -0,0 +1,85 @@
+package com.example.hack1base.JWT.security;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final VerifiedTokenCache cache = new VerifiedTokenCache(100, registry);
+
+    private Function<String, VerifiedToken> counting(AtomicInteger calls, Instant expiresAt) {
+        return token -> {
+            calls.incrementAndGet();
+            return new VerifiedToken("user@corp.com", "CENTRAL", null, expiresAt);
+        };
+    }
+
+    private double gets(String result) {
+        return registry.get("cache.gets")
+                .tag("cache", VerifiedTokenCache.CACHE_NAME)
+                .tag("result", result)
+                .functionCounter().count();
+    }
+
+    @Test
+    @DisplayName("Debe verificar una sola vez y servir los siguientes desde caché")
+    void shouldVerifyOnceAndHitAfterwards() {
+        AtomicInteger calls = new AtomicInteger();
+        Instant exp = Instant.now().plusSeconds(60);
+
+        for (int i = 0; i < 5; i++) {
+            cache.get("a.b.c", counting(calls, exp));
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(1.0, gets("miss"));
+        assertEquals(4.0, gets("hit"));
+    }
+
+    @Test
+    @DisplayName("No debe cachear tokens que fallan la verificación")
+    void shouldNotCacheFailures() {
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, VerifiedToken> failing = token -> {
+            calls.incrementAndGet();
+            throw new JwtException("bad");
+        };
+
+        assertThrows(JwtException.class, () -> cache.get("bad.token", failing));
+        assertThrows(JwtException.class, () -> cache.get("bad.token", failing));
+
+        assertEquals(2, calls.get());
+        assertEquals(0, cache.estimatedSize());
+    }
+
+    @Test
+    @DisplayName("Debe volver a verificar cuando la entrada llegó a su exp")
+    void shouldReverifyAfterExpiry() {
+        AtomicInteger calls = new AtomicInteger();
+        Instant alreadyExpired = Instant.now().minusSeconds(1);
+
+        cache.get("x.y.z", counting(calls, alreadyExpired));
+        cache.get("x.y.z", counting(calls, alreadyExpired));
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("La clave es el digest del token, no el token")
+    void shouldKeyByDigest() {
+        String digest = VerifiedTokenCache.digest("a.b.c");
+
+        assertEquals(64, digest.length());
+        assertNotEquals("a.b.c", digest);
+        assertEquals(digest, VerifiedTokenCache.digest("a.b.c"));
+    }
+}
@@ -3,6 +3,7 @@ package com.example.hack1base.JWT.services;
 
 import com.example.hack1base.JWT.domain.Account;
 import com.example.hack1base.JWT.infraestructure.AccountRepository;
+import com.example.hack1base.JWT.security.PrincipalCache;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -23,6 +24,9 @@ class AccountServiceTest {
     @Mock
     private AccountRepository repo;
 
+    @Mock
+    private PrincipalCache principalCache;
+
     @InjectMocks
     private AccountService service;
 
@@ -118,4 +122,65 @@ class AccountServiceTest {
         verify(repo).save(in);
         assertSame(in, out);
     }
+
+    @Test
+    @DisplayName("save: debe invalidar el principal cacheado del email guardado")
+    void shouldInvalidateCachedPrincipalOnSave() {
+
+        Account acc = mkAccount(3L, "cached@corp.com", "BRANCH", "Surco", true);
+        when(repo.save(acc)).thenReturn(acc);
+
+
+        service.save(acc);
+
+
+        verify(principalCache).invalidate("cached@corp.com");
+    }
+
+    @Test
+    @DisplayName("disable: debe deshabilitar, guardar e invalidar la caché")
+    void shouldDisableAndInvalidate() {
+
+        Account acc = mkAccount(4L, "off@corp.com", "BRANCH", "Surco", true);
+        when(repo.findByEmail("off@corp.com")).thenReturn(Optional.of(acc));
+        when(repo.save(acc)).thenReturn(acc);
+
+
+        Account out = service.disable("off@corp.com");
+
+
+        assertFalse(out.isEnabled());
+        verify(principalCache).invalidate("off@corp.com");
+    }
+
+    @Test
+    @DisplayName("loadPrincipal: debe resolver a través de la caché")
+    void shouldLoadPrincipalThroughCache() {
+
+        Account acc = mkAccount(5L, "hot@corp.com", "CENTRAL", null, true);
+        when(principalCache.get(eq("hot@corp.com"), any())).thenReturn(acc);
+
+
+        var principal = service.loadPrincipal("hot@corp.com");
+
+
+        assertSame(acc, principal);
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    @DisplayName("updatePassword: debe guardar el nuevo hash (re-hash en login) e invalidar la caché")
+    void shouldUpdatePasswordOnRehash() {
+
+        Account acc = mkAccount(6L, "legacy@corp.com", "BRANCH", "Surco", true);
+        when(repo.findByEmail("legacy@corp.com")).thenReturn(Optional.of(acc));
+        when(repo.save(acc)).thenReturn(acc);
+
+
+        var updated = service.updatePassword(acc, "{bcrypt}$2a$12$nuevo");
+
+
+        assertEquals("{bcrypt}$2a$12$nuevo", updated.getPassword());
+        verify(principalCache).invalidate("legacy@corp.com");
+    }
 }
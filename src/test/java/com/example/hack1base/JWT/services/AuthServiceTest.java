@@ -3,10 +3,10 @@ package com.example.hack1base.JWT.services;
 import com.example.hack1base.Exceptions.ConflictException;
 import com.example.hack1base.JWT.domain.Account;
 import com.example.hack1base.JWT.security.JwtService;
+import com.example.hack1base.JWT.security.VerifiedToken;
 import com.example.hack1base.JWT.web.AuthResponse;
 import com.example.hack1base.JWT.web.LoginRequest;
 import com.example.hack1base.JWT.web.RegisterRequest;
-import io.jsonwebtoken.Claims;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,7 +18,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.util.Date;
+import java.time.Instant;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -62,11 +62,9 @@ class AuthServiceTest {
         when(authManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(auth);
         when(jwtService.generateToken(account.getEmail(), account.getRole(), account.getBranch()))
                 .thenReturn("token123");
-        when(jwtService.isTokenExpired("token123")).thenReturn(false);
-
-        Claims claims = mock(Claims.class);
-        when(jwtService.extractAllClaims("token123")).thenReturn(claims);
-        when(claims.getExpiration()).thenReturn(new Date(System.currentTimeMillis() + 10_000));
+        Instant expiresAt = Instant.now().plusSeconds(10);
+        when(jwtService.verify("token123"))
+                .thenReturn(new VerifiedToken(account.getEmail(), "CENTRAL", "Miraflores", expiresAt));
 
 
         AuthResponse response = authService.login(req);
@@ -78,6 +76,8 @@ class AuthServiceTest {
         assertEquals("token123", response.getToken());
         assertEquals("CENTRAL",  response.getRole());
         assertEquals("Miraflores", response.getBranch());
+        assertEquals(expiresAt.toEpochMilli(), response.getExpiresAtMillis());
+        verify(jwtService, times(1)).verify("token123");
     }
 
     // ===================== REGISTER =====================
@@ -0,0 +1,159 @@
+package com.example.hack1base.ReportRequest.Domain;
+
+import com.example.hack1base.ReportRequest.domain.ReportJobQueue;
+import com.example.hack1base.ReportRequest.domain.ReportOrigin;
+import com.example.hack1base.ReportRequest.domain.ReportRequest;
+import com.example.hack1base.ReportRequest.domain.ReportStatus;
+import com.example.hack1base.ReportRequest.estructrure.ReportRequestRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+// SKIP LOCKED no existe en H2: corre contra un Postgres local, p. ej.
+// REPORTS_QUEUE_PG_URL=jdbc:postgresql://localhost:5432/hack1_test REPORTS_QUEUE_PG_USER=... mvn test
+@DataJpaTest(properties = {
+        "spring.datasource.url=${REPORTS_QUEUE_PG_URL}",
+        "spring.datasource.username=${REPORTS_QUEUE_PG_USER:postgres}",
+        "spring.datasource.password=${REPORTS_QUEUE_PG_PASSWORD:postgres}",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReportJobQueue.class, ReportJobQueuePostgresTest.Metrics.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "REPORTS_QUEUE_PG_URL", matches = ".+")
+class ReportJobQueuePostgresTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        SimpleMeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private ReportJobQueue queue;
+
+    @Autowired
+    private ReportRequestRepository repository;
+
+    @BeforeEach
+    void clean() {
+        repository.deleteAll();
+    }
+
+    private ReportRequest pending(int i) {
+        return ReportRequest.builder()
+                .branch("Branch-" + i)
+                .fromDate(LocalDate.of(2025, 9, 1))
+                .toDate(LocalDate.of(2025, 9, 7))
+                .emailTo("dest@corp.com")
+                .status(ReportStatus.PENDING)
+                .requestedAt(LocalDateTime.now().minusSeconds(60 - i))
+                .nextAttemptAt(LocalDateTime.now().minusSeconds(1))
+                .origin(ReportOrigin.SUMMARY)
+                .build();
+    }
+
+    @Test
+    @DisplayName("should hand every job to exactly one of many concurrent workers")
+    void shouldClaimEachJobExactlyOnce() throws Exception {
+        repository.saveAll(IntStream.range(0, 40).mapToObj(this::pending).toList());
+
+        int workers = 8;
+        Map<String, String> owners = new ConcurrentHashMap<>();
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        for (int w = 0; w < workers; w++) {
+            String workerId = "node-" + w;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    Optional<ReportRequest> job;
+                    while ((job = queue.claimNext(workerId)).isPresent()) {
+                        if (owners.putIfAbsent(job.get().getId(), workerId) != null) {
+                            duplicates.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(duplicates.get()).isZero();
+        assertThat(owners).hasSize(40);
+        assertThat(new HashSet<>(owners.values())).as("la carga se reparte entre workers").hasSizeGreaterThan(1);
+    }
+
+    @Test
+    @DisplayName("should reclaim a job whose lease expired and reject the stale worker's completion")
+    void shouldReclaimExpiredLease() {
+        ReportRequest saved = repository.save(pending(0));
+        assertThat(queue.claimNext("node-a")).isPresent();
+
+        ReportRequest leased = repository.findReportById(saved.getId()).orElseThrow();
+        leased.setLeaseUntil(LocalDateTime.now().minusSeconds(1));
+        repository.save(leased);
+
+        ReportRequest reclaimed = queue.claimNext("node-b").orElseThrow();
+        assertThat(reclaimed.getAttempts()).isEqualTo(2);
+        assertThat(queue.complete(saved.getId(), "node-a", "tarde")).isFalse();
+        assertThat(queue.complete(saved.getId(), "node-b", "ok")).isTrue();
+
+        List<ReportRequest> all = repository.findAll();
+        assertThat(all).singleElement().extracting(ReportRequest::getStatus).isEqualTo(ReportStatus.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("should not hand out a job again before its backoff elapses")
+    void shouldHoldRetriedJobUntilBackoff() {
+        ReportRequest saved = repository.save(pending(0));
+        queue.claimNext("node-a").orElseThrow();
+
+        queue.fail(saved.getId(), "node-a", "LLM timeout");
+
+        assertThat(queue.claimNext("node-b")).isEmpty();
+        assertThat(repository.findReportById(saved.getId()).orElseThrow().getStatus()).isEqualTo(ReportStatus.PENDING);
+    }
+
+    @Test
+    @DisplayName("should never hand out a PENDING row created through the CRUD endpoint")
+    void shouldIgnoreRowsNotCreatedBySummaryEndpoints() {
+        ReportRequest crud = pending(0);
+        crud.setOrigin(ReportOrigin.API);
+        repository.save(crud);
+
+        assertThat(queue.claimNext("node-a")).isEmpty();
+    }
+}
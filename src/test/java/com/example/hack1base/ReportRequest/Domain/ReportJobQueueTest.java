@@ -0,0 +1,135 @@
+package com.example.hack1base.ReportRequest.Domain;
+
+import com.example.hack1base.ReportRequest.domain.ReportJobQueue;
+import com.example.hack1base.ReportRequest.domain.ReportRequest;
+import com.example.hack1base.ReportRequest.domain.ReportStatus;
+import com.example.hack1base.ReportRequest.estructrure.ReportRequestRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReportJobQueueTest {
+
+    private final ReportRequestRepository repository = mock(ReportRequestRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReportJobQueue queue = new ReportJobQueue(repository, meterRegistry);
+
+    private ReportRequest job;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(queue, "lease", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(queue, "maxAttempts", 3);
+        ReflectionTestUtils.setField(queue, "backoff", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(queue, "maxBackoff", Duration.ofSeconds(30));
+
+        job = ReportRequest.builder()
+                .id("job-1")
+                .branch("Miraflores")
+                .fromDate(LocalDate.of(2025, 9, 1))
+                .toDate(LocalDate.of(2025, 9, 7))
+                .emailTo("dest@corp.com")
+                .status(ReportStatus.PENDING)
+                .requestedAt(LocalDateTime.now())
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+
+    private void claimedBy(String workerId, int attempts) {
+        job.setStatus(ReportStatus.PROCESSING);
+        job.setLockedBy(workerId);
+        job.setAttempts(attempts);
+        job.setStartedAt(LocalDateTime.now());
+        when(repository.lockOwnedJob("job-1", workerId, ReportStatus.PROCESSING)).thenReturn(Optional.of(job));
+    }
+
+    @Test
+    @DisplayName("should lease the next job to the worker and count the attempt")
+    void shouldLeaseNextJob() {
+        when(repository.lockNextJobs(any(), eq(1))).thenReturn(List.of(job));
+
+        Optional<ReportRequest> claimed = queue.claimNext("node-a/1");
+
+        assertThat(claimed).containsSame(job);
+        assertThat(job.getStatus()).isEqualTo(ReportStatus.PROCESSING);
+        assertThat(job.getLockedBy()).isEqualTo("node-a/1");
+        assertThat(job.getAttempts()).isEqualTo(1);
+        assertThat(job.getLeaseUntil()).isAfter(LocalDateTime.now().plusMinutes(4));
+        assertThat(meterRegistry.get("reports.queue.jobs").tag("outcome", "claimed").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("should return empty when no job is ready")
+    void shouldReturnEmptyWhenQueueIsEmpty() {
+        when(repository.lockNextJobs(any(), eq(1))).thenReturn(List.of());
+
+        assertThat(queue.claimNext("node-a/1")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should complete a job only while the worker still owns the lease")
+    void shouldCompleteOwnedJob() {
+        claimedBy("node-a/1", 1);
+
+        assertThat(queue.complete("job-1", "node-b/1", "ok")).isFalse();
+        assertThat(job.getStatus()).isEqualTo(ReportStatus.PROCESSING);
+
+        assertThat(queue.complete("job-1", "node-a/1", "ok")).isTrue();
+        assertThat(job.getStatus()).isEqualTo(ReportStatus.COMPLETED);
+        assertThat(job.getLockedBy()).isNull();
+        assertThat(job.getDurationMillis()).isNotNull();
+        // La propiedad del lease se verifica con la fila bloqueada, no con una lectura suelta
+        verify(repository, never()).findReportById(any());
+        assertThat(meterRegistry.get("reports.queue.jobs").tag("outcome", "lease_lost").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("should schedule a retry with exponential backoff while attempts remain")
+    void shouldRetryWithBackoff() {
+        claimedBy("node-a/1", 2);
+
+        queue.fail("job-1", "node-a/1", "LLM timeout");
+
+        assertThat(job.getStatus()).isEqualTo(ReportStatus.PENDING);
+        assertThat(job.getLeaseUntil()).isNull();
+        assertThat(job.getMessage()).contains("LLM timeout");
+        // intento 2 → 10s · 2
+        assertThat(job.getNextAttemptAt()).isBetween(LocalDateTime.now().plusSeconds(18), LocalDateTime.now().plusSeconds(21));
+    }
+
+    @Test
+    @DisplayName("should dead-letter the job when attempts are exhausted")
+    void shouldDeadLetterAfterMaxAttempts() {
+        claimedBy("node-a/1", 3);
+
+        queue.fail("job-1", "node-a/1", "SMTP down");
+
+        assertThat(job.getStatus()).isEqualTo(ReportStatus.DEAD);
+        assertThat(job.getCompletedAt()).isNotNull();
+        assertThat(meterRegistry.get("reports.queue.jobs").tag("outcome", "dead").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("should close the job as FAILED without scheduling a retry")
+    void shouldFailWithoutRetry() {
+        claimedBy("node-a/1", 1);
+
+        assertThat(queue.failWithoutRetry("job-1", "node-a/1", "Envío de email sin confirmar")).isTrue();
+
+        assertThat(job.getStatus()).isEqualTo(ReportStatus.FAILED);
+        assertThat(job.getLockedBy()).isNull();
+        assertThat(job.getCompletedAt()).isNotNull();
+    }
+}
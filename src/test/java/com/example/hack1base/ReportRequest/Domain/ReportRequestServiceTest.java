@@ -1,5 +1,7 @@
 package com.example.hack1base.ReportRequest.Domain;
 
+import com.example.hack1base.Exceptions.ConflictException;
+import com.example.hack1base.ReportRequest.domain.ReportOrigin;
 import com.example.hack1base.ReportRequest.domain.ReportRequest;
 import com.example.hack1base.ReportRequest.domain.ReportRequestService;
 import com.example.hack1base.ReportRequest.domain.ReportStatus;
@@ -14,12 +16,16 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -72,6 +78,66 @@ class ReportRequestServiceTest {
         verifyNoMoreInteractions(reportRequestRepository);
     }
 
+    @Test
+    @DisplayName("should ignore status, queue fields and premium flags sent to the CRUD endpoint")
+    void shouldNotLetCrudClientsSetDispatchFields() {
+        when(reportRequestRepository.save(any(ReportRequest.class)))
+                .thenAnswer(inv -> inv.getArgument(0));
+        base.setStatus(ReportStatus.PENDING);
+        base.setNextAttemptAt(LocalDateTime.now());
+        base.setPremium(true);
+        base.setAttachPdf(true);
+        base.setRequestedByEmail("manager@corp.com");
+        base.setOrigin(ReportOrigin.SUMMARY);
+
+        ReportRequest saved = reportRequestService.createReportRequest(base);
+
+        assertThat(saved.getStatus()).isEqualTo(ReportStatus.PROCESSING);
+        assertThat(saved.getOrigin()).isEqualTo(ReportOrigin.API);
+        assertThat(saved.getNextAttemptAt()).isNull();
+        assertThat(saved.isPremium()).isFalse();
+        assertThat(saved.isAttachPdf()).isFalse();
+        assertThat(saved.getRequestedByEmail()).isNull();
+        assertThat(saved.getRequestedAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("should tag summary requests so recovery and the queue can pick them up")
+    void shouldTagSummaryRequests() {
+        when(reportRequestRepository.save(any(ReportRequest.class)))
+                .thenAnswer(inv -> inv.getArgument(0));
+
+        ReportRequest saved = reportRequestService.trackSummaryRequest(base);
+
+        assertThat(saved.getOrigin()).isEqualTo(ReportOrigin.SUMMARY);
+        assertThat(saved.getStatus()).isEqualTo(ReportStatus.PROCESSING);
+    }
+
+    @Test
+    @DisplayName("should only look for unfinished summary requests on recovery")
+    void shouldRecoverOnlySummaryRequests() {
+        LocalDateTime before = LocalDateTime.now();
+        LocalDateTime afterAt = before.minusDays(1);
+
+        reportRequestService.findUnfinishedBatch(before, afterAt, "", 50);
+
+        verify(reportRequestRepository).findBatchByStatus(ReportStatus.PROCESSING, ReportOrigin.SUMMARY,
+                before, afterAt, "", PageRequest.of(0, 50));
+    }
+
+    @Test
+    @DisplayName("should claim a stale summary request for recovery only when the conditional update wins")
+    void shouldClaimForRecoveryThroughConditionalUpdate() {
+        LocalDateTime staleBefore = LocalDateTime.now().minusMinutes(5);
+        when(reportRequestRepository.claimStale(eq("r1"), eq(ReportStatus.PROCESSING), eq(staleBefore), any()))
+                .thenReturn(1);
+        when(reportRequestRepository.claimStale(eq("r2"), eq(ReportStatus.PROCESSING), eq(staleBefore), any()))
+                .thenReturn(0);
+
+        assertThat(reportRequestService.claimForRecovery("r1", staleBefore)).isTrue();
+        assertThat(reportRequestService.claimForRecovery("r2", staleBefore)).isFalse();
+    }
+
     @Test
     @DisplayName("should return all report requests from repository")
     void shouldReturnAllReportRequestsFromRepository() {
@@ -169,6 +235,18 @@ class ReportRequestServiceTest {
         assertThat(result.getStatus()).isEqualTo(ReportStatus.COMPLETED);
     }
 
+    @Test
+    @DisplayName("should refuse to edit summary requests through the CRUD endpoint")
+    void shouldRefuseToUpdateSummaryRequests() {
+        base.setOrigin(ReportOrigin.SUMMARY);
+        when(reportRequestRepository.findById(5L)).thenReturn(Optional.of(base));
+
+        assertThatThrownBy(() -> reportRequestService.updateReportRequest(5L, base))
+                .isInstanceOf(ConflictException.class);
+
+        verify(reportRequestRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("should throw when updating non-existing report request")
     void shouldThrowWhenUpdatingNonExistingReportRequest() {
@@ -192,4 +270,43 @@ class ReportRequestServiceTest {
         verify(reportRequestRepository, times(1)).deleteById(77L);
         verifyNoMoreInteractions(reportRequestRepository);
     }
+
+    @Test
+    @DisplayName("should mark request started and reset previous timing")
+    void shouldMarkRequestStarted() {
+        base.setCompletedAt(LocalDateTime.now());
+        base.setDurationMillis(10L);
+        when(reportRequestRepository.findReportById("req-1")).thenReturn(Optional.of(base));
+
+        reportRequestService.markStarted("req-1");
+
+        assertThat(base.getStatus()).isEqualTo(ReportStatus.PROCESSING);
+        assertThat(base.getStartedAt()).isNotNull();
+        assertThat(base.getCompletedAt()).isNull();
+        assertThat(base.getDurationMillis()).isNull();
+    }
+
+    @Test
+    @DisplayName("should mark request finished with message and duration since start")
+    void shouldMarkRequestFinishedWithDuration() {
+        base.setStartedAt(LocalDateTime.now().minusSeconds(5));
+        when(reportRequestRepository.findReportById("req-1")).thenReturn(Optional.of(base));
+
+        reportRequestService.markFinished("req-1", ReportStatus.COMPLETED, "Resumen enviado");
+
+        assertThat(base.getStatus()).isEqualTo(ReportStatus.COMPLETED);
+        assertThat(base.getMessage()).isEqualTo("Resumen enviado");
+        assertThat(base.getCompletedAt()).isNotNull();
+        assertThat(base.getDurationMillis()).isGreaterThanOrEqualTo(5000L);
+    }
+
+    @Test
+    @DisplayName("should ignore transitions for unknown request ids")
+    void shouldIgnoreTransitionForUnknownRequest() {
+        when(reportRequestRepository.findReportById("nope")).thenReturn(Optional.empty());
+
+        reportRequestService.markFinished("nope", ReportStatus.FAILED, "x");
+
+        verify(reportRequestRepository, never()).save(any());
+    }
 }
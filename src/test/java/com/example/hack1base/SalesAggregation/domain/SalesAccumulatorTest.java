@@ -0,0 +1,79 @@
+package com.example.hack1base.SalesAggregation.domain;
+
+import com.example.hack1base.salesaggregation.domain.SalesAccumulator;
+import com.example.hack1base.salesaggregation.domain.SalesAggregates;
+import com.example.hack1base.salesaggregation.domain.SalesCell;
+import com.example.hack1base.salesaggregation.domain.SkuSales;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesAccumulatorTest {
+
+    @Test
+    @DisplayName("Sin filas: retorna 0, 0.0, null, null")
+    void shouldReturnEmptyAggregatesWhenNothingAdded() {
+
+        SalesAggregates out = new SalesAccumulator().toAggregates();
+
+        assertEquals(0, out.getTotalUnits());
+        assertEquals(0.0, out.getTotalRevenue());
+        assertNull(out.getTopSku());
+        assertNull(out.getTopBranch());
+    }
+
+    @Test
+    @DisplayName("Acumula unidades por sku y por branch a partir de celdas sku × branch")
+    void shouldAccumulateAcrossCells() {
+
+        SalesAccumulator acc = new SalesAccumulator();
+        acc.add(new SalesCell("SKU-A", "Lima", 4L, 40.0));
+        acc.add(new SalesCell("SKU-B", "Lima", 3L, 30.0));
+        acc.add(new SalesCell("SKU-B", "Surco", 3L, 30.0));
+        acc.add(new SalesCell("SKU-A", "Surco", 1L, 10.0));
+
+        SalesAggregates out = acc.toAggregates();
+
+        assertAll(
+                () -> assertEquals(11, out.getTotalUnits()),
+                () -> assertEquals(110.0, out.getTotalRevenue()),
+                () -> assertEquals("SKU-B", out.getTopSku()),    // 6 > 5
+                () -> assertEquals("Lima", out.getTopBranch())   // 7 > 4
+        );
+    }
+
+    @Test
+    @DisplayName("En empate de unidades gana la clave alfabéticamente menor")
+    void shouldBreakTiesAlphabetically() {
+
+        SalesAccumulator acc = new SalesAccumulator();
+        acc.add("SKU-Z", "Surco", 5, 5.0);
+        acc.add("SKU-M", "Lima", 5, 5.0);
+
+        SalesAggregates out = acc.toAggregates();
+
+        assertEquals("SKU-M", out.getTopSku());
+        assertEquals("Lima", out.getTopBranch());
+    }
+
+    @Test
+    @DisplayName("Desglosa por SKU de más a menos unidades con su participación")
+    void shouldBreakDownBySku() {
+
+        SalesAccumulator acc = new SalesAccumulator();
+        acc.add(new SalesCell("SKU-A", "Lima", 4L, 40.0));
+        acc.add(new SalesCell("SKU-B", "Lima", 3L, 30.0));
+        acc.add(new SalesCell("SKU-B", "Surco", 3L, 30.0));
+        acc.add(new SalesCell("SKU-C", "Surco", 2L, 20.0));
+
+        SalesAggregates out = acc.toAggregates();
+
+        assertEquals(List.of(
+                new SkuSales("SKU-B", 6, 60.0, 50.0),
+                new SkuSales("SKU-A", 4, 40.0, 100.0 * 4 / 12),
+                new SkuSales("SKU-C", 2, 20.0, 100.0 * 2 / 12)), out.getBySku());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.hack1base.SalesAggregation.domain;
+
+import com.example.hack1base.salesaggregation.domain.SalesAggregates;
+import com.example.hack1base.salesaggregation.domain.SalesAggregatesCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesAggregatesCacheTest {
+
+    private static final LocalDate SEP_1 = LocalDate.of(2025, 9, 1);
+    private static final LocalDate SEP_7 = LocalDate.of(2025, 9, 7);
+    private static final LocalDate SEP_8 = LocalDate.of(2025, 9, 8);
+    private static final LocalDate SEP_14 = LocalDate.of(2025, 9, 14);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SalesAggregatesCache cache = new SalesAggregatesCache(100, Duration.ofMinutes(5), meterRegistry);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Supplier<SalesAggregates> loader() {
+        return () -> new SalesAggregates(loads.incrementAndGet(), 10.0, "SKU-1", "Miraflores");
+    }
+
+    @Test
+    @DisplayName("should load once per window and report the hit ratio")
+    void shouldCacheByWindowAndBranch() {
+        cache.get(SEP_1, SEP_7, "Miraflores", loader());
+        cache.get(SEP_1, SEP_7, "Miraflores", loader());
+        cache.get(SEP_1, SEP_7, "Surco", loader());
+
+        assertEquals(2, loads.get());
+        assertEquals(1.0 / 3, meterRegistry.get("sales.aggregates.cache.hitRatio").gauge().value(), 1e-9);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", SalesAggregatesCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("should treat a blank branch as all branches")
+    void shouldNormalizeBlankBranch() {
+        cache.get(SEP_1, SEP_7, null, loader());
+        cache.get(SEP_1, SEP_7, " ", loader());
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("should evict only the windows that contain the sale day for its branch or all branches")
+    void shouldInvalidateOnlyCoveringWindows() {
+        cache.get(SEP_1, SEP_7, "Miraflores", loader());   // contiene el día, misma sucursal → fuera
+        cache.get(SEP_1, SEP_7, null, loader());           // todas las sucursales → fuera
+        cache.get(SEP_1, SEP_7, "Surco", loader());        // otra sucursal → se queda
+        cache.get(SEP_8, SEP_14, "Miraflores", loader());  // otra semana → se queda
+
+        cache.invalidateSale(LocalDate.of(2025, 9, 3), "Miraflores");
+
+        assertEquals(2, cache.estimatedSize());
+        cache.get(SEP_1, SEP_7, "Surco", loader());
+        cache.get(SEP_8, SEP_14, "Miraflores", loader());
+        assertEquals(4, loads.get());
+        cache.get(SEP_1, SEP_7, "Miraflores", loader());
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    @DisplayName("should include the window boundaries when invalidating")
+    void shouldInvalidateOnWindowBoundaries() {
+        cache.get(SEP_1, SEP_7, null, loader());
+
+        cache.invalidateSale(SEP_7, "Lince");
+
+        assertEquals(0, cache.estimatedSize());
+    }
+
+    @Test
+    @DisplayName("should evict every window covered by any slot of a batch")
+    void shouldInvalidateBatchSlots() {
+        cache.get(SEP_1, SEP_7, "Miraflores", loader());
+        cache.get(SEP_8, SEP_14, "Surco", loader());
+        cache.get(SEP_8, SEP_14, "Lince", loader());
+
+        cache.invalidateSales(Set.of(
+                new SalesAggregatesCache.SaleSlot(SEP_1, "Miraflores"),
+                new SalesAggregatesCache.SaleSlot(SEP_14, "Surco")));
+
+        assertEquals(1, cache.estimatedSize());
+        cache.get(SEP_8, SEP_14, "Lince", loader());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    @DisplayName("should hand out copies so callers cannot corrupt the cached value")
+    void shouldReturnDefensiveCopies() {
+        SalesAggregates first = cache.get(SEP_1, SEP_7, null, loader());
+        first.setTotalUnits(999);
+
+        assertEquals(1, cache.get(SEP_1, SEP_7, null, loader()).getTotalUnits());
+    }
+}
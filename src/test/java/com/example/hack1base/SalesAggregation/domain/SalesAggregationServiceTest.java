@@ -1,22 +1,28 @@
 package com.example.hack1base.SalesAggregation.domain;
 
 
-import com.example.hack1base.Sale.domain.Sale;
 import com.example.hack1base.Sale.estructure.SaleRepository;
 import com.example.hack1base.salesaggregation.domain.SalesAggregates;
+import com.example.hack1base.salesaggregation.domain.SalesAggregatesCache;
 import com.example.hack1base.salesaggregation.domain.SalesAggregationService;
+import com.example.hack1base.salesaggregation.domain.SalesCell;
+import com.example.hack1base.salesaggregation.estructure.SalesDailyRollupRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,17 +34,15 @@ class SalesAggregationServiceTest {
     @Mock
     private SaleRepository saleRepository;
 
+    @Mock
+    private SalesDailyRollupRepository rollupRepository;
+
     @InjectMocks
     private SalesAggregationService service;
 
     // ---------- Helpers ----------
-    private Sale mkSale(int units, double price, String sku, String branch) {
-        Sale s = mock(Sale.class);
-        when(s.getUnits()).thenReturn(units);
-        when(s.getPrice()).thenReturn(price);
-        when(s.getSku()).thenReturn(sku);
-        when(s.getBranch()).thenReturn(branch);
-        return s;
+    private SalesCell cell(String sku, String branch, long units, double revenue) {
+        return new SalesCell(sku, branch, units, revenue);
     }
 
     // ---------- Tests ----------
@@ -51,18 +55,16 @@ class SalesAggregationServiceTest {
         ArgumentCaptor<LocalDateTime> startCap = ArgumentCaptor.forClass(LocalDateTime.class);
         ArgumentCaptor<LocalDateTime> endCap   = ArgumentCaptor.forClass(LocalDateTime.class);
 
-
-        List<Sale> ventas = List.of(
-                mkSale(2, 100.0, "SKU-A", "Lima"),
-                mkSale(3, 200.0, "SKU-B", "Surco")
-        );
-        when(saleRepository.findBySoldAtBetween(any(), any())).thenReturn(ventas);
+        when(saleRepository.streamSalesCellsBetween(any(), any())).thenReturn(Stream.of(
+                cell("SKU-A", "Lima", 2, 200.0),
+                cell("SKU-B", "Surco", 3, 600.0)
+        ));
 
 
         SalesAggregates out = service.calculateAggregates(null, null, null);
 
 
-        verify(saleRepository).findBySoldAtBetween(startCap.capture(), endCap.capture());
+        verify(saleRepository).streamSalesCellsBetween(startCap.capture(), endCap.capture());
         LocalDateTime esperadoInicio = today.minusDays(6).atStartOfDay();
         LocalDateTime esperadoFin    = today.atTime(LocalTime.MAX);
 
@@ -89,7 +91,7 @@ class SalesAggregationServiceTest {
         assertThrows(IllegalArgumentException.class,
                 () -> service.calculateAggregates(null, LocalDate.of(2025, 1, 7), null));
 
-        verifyNoInteractions(saleRepository);
+        verifyNoInteractions(saleRepository, rollupRepository);
     }
 
     @Test
@@ -102,44 +104,45 @@ class SalesAggregationServiceTest {
 
         assertThrows(IllegalArgumentException.class,
                 () -> service.calculateAggregates(from, to, null));
-        verifyNoInteractions(saleRepository);
+        verifyNoInteractions(saleRepository, rollupRepository);
     }
 
     @Test
-    @DisplayName("Con fechas + branch en blanco: usa findBySoldAtBetween")
+    @DisplayName("Con fechas + branch en blanco: agrega sin filtrar por branch")
     void shouldCallBetweenWhenBranchBlank() {
 
         LocalDate from = LocalDate.of(2025, 1, 1);
         LocalDate to   = LocalDate.of(2025, 1, 7);
-        when(saleRepository.findBySoldAtBetween(any(), any())).thenReturn(List.of());
+        when(saleRepository.streamSalesCellsBetween(any(), any()))
+                .thenReturn(Stream.empty(), Stream.empty());
 
 
         SalesAggregates out1 = service.calculateAggregates(from, to, null);
         SalesAggregates out2 = service.calculateAggregates(from, to, "   "); // blanco
 
 
-        verify(saleRepository, times(2)).findBySoldAtBetween(any(), any());
-        verify(saleRepository, never()).findByBranchAndSoldAtBetween(anyString(), any(), any());
+        verify(saleRepository, times(2)).streamSalesCellsBetween(any(), any());
+        verify(saleRepository, never()).streamSalesCellsForBranchBetween(anyString(), any(), any());
         assertEquals(0, out1.getTotalUnits());
         assertEquals(0, out2.getTotalUnits());
     }
 
     @Test
-    @DisplayName("Con fechas + branch no vacío: usa findByBranchAndSoldAtBetween")
+    @DisplayName("Con fechas + branch no vacío: agrega filtrando por branch")
     void shouldCallBranchBetweenWhenBranchProvided() {
 
         LocalDate from = LocalDate.of(2025, 1, 1);
         LocalDate to   = LocalDate.of(2025, 1, 7);
         String branch  = "Miraflores";
-        when(saleRepository.findByBranchAndSoldAtBetween(eq(branch), any(), any()))
-                .thenReturn(List.of());
+        when(saleRepository.streamSalesCellsForBranchBetween(eq(branch), any(), any()))
+                .thenReturn(Stream.empty());
 
 
         SalesAggregates out = service.calculateAggregates(from, to, branch);
 
 
-        verify(saleRepository).findByBranchAndSoldAtBetween(eq(branch), any(), any());
-        verify(saleRepository, never()).findBySoldAtBetween(any(), any());
+        verify(saleRepository).streamSalesCellsForBranchBetween(eq(branch), any(), any());
+        verify(saleRepository, never()).streamSalesCellsBetween(any(), any());
         assertEquals(0, out.getTotalUnits());
         assertEquals(0.0, out.getTotalRevenue());
         assertNull(out.getTopSku());
@@ -152,7 +155,7 @@ class SalesAggregationServiceTest {
 
         LocalDate from = LocalDate.of(2025, 1, 1);
         LocalDate to   = LocalDate.of(2025, 1, 7);
-        when(saleRepository.findBySoldAtBetween(any(), any())).thenReturn(List.of());
+        when(saleRepository.streamSalesCellsBetween(any(), any())).thenReturn(Stream.empty());
 
 
         SalesAggregates out = service.calculateAggregates(from, to, null);
@@ -173,13 +176,11 @@ class SalesAggregationServiceTest {
         LocalDate from = LocalDate.of(2025, 1, 1);
         LocalDate to   = LocalDate.of(2025, 1, 31);
 
-        List<Sale> ventas = List.of(
-                mkSale(5, 10.0, "SKU-A", "Miraflores"),
-                mkSale(5, 12.0, "SKU-B", "Miraflores"),
-                mkSale(2, 20.0, "SKU-C", "Surco")
-        );
-        when(saleRepository.findBySoldAtBetween(any(), any()))
-                .thenReturn(ventas);
+        when(saleRepository.streamSalesCellsBetween(any(), any())).thenReturn(Stream.of(
+                cell("SKU-B", "Miraflores", 5, 60.0),
+                cell("SKU-A", "Miraflores", 5, 50.0),
+                cell("SKU-C", "Surco", 2, 40.0)
+        ));
 
 
         SalesAggregates out = service.calculateAggregates(from, to, null);
@@ -192,4 +193,102 @@ class SalesAggregationServiceTest {
                 () -> assertEquals("Miraflores", out.getTopBranch())
         );
     }
+
+    @Test
+    @DisplayName("Cierra el stream de la consulta al terminar la pasada")
+    void shouldCloseStreamAfterSinglePass() {
+
+        AtomicBoolean closed = new AtomicBoolean(false);
+        when(saleRepository.streamSalesCellsBetween(any(), any())).thenReturn(
+                Stream.of(cell("SKU-A", "Lima", 1, 1.0)).onClose(() -> closed.set(true)));
+
+
+        service.calculateAggregates(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 2), null);
+
+
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @DisplayName("Con rollup activo: suma filas diarias por fecha y no toca la tabla sales")
+    void shouldAggregateFromDailyRollupWhenEnabled() {
+
+        ReflectionTestUtils.setField(service, "rollupEnabled", true);
+        service.markRollupReady();
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to   = LocalDate.of(2025, 1, 7);
+        when(rollupRepository.streamSalesCellsForBranchBetween("Surco", from, to)).thenReturn(Stream.of(
+                cell("SKU-A", "Surco", 7, 70.0),
+                cell("SKU-B", "Surco", 9, 45.0)
+        ));
+
+
+        SalesAggregates out = service.calculateAggregates(from, to, "Surco");
+
+
+        verifyNoInteractions(saleRepository);
+        assertAll(
+                () -> assertEquals(16, out.getTotalUnits()),
+                () -> assertEquals(115.0, out.getTotalRevenue()),
+                () -> assertEquals("SKU-B", out.getTopSku()),
+                () -> assertEquals("Surco", out.getTopBranch())
+        );
+    }
+
+    @Test
+    @DisplayName("Con rollup activo y sin filas: retorna 0, 0.0, null, null")
+    void shouldReturnZerosFromRollupWhenEmpty() {
+
+        ReflectionTestUtils.setField(service, "rollupEnabled", true);
+        service.markRollupReady();
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to   = LocalDate.of(2025, 1, 7);
+        when(rollupRepository.streamSalesCellsBetween(from, to)).thenReturn(Stream.empty());
+
+
+        SalesAggregates out = service.calculateAggregates(from, to, null);
+
+
+        assertEquals(0, out.getTotalUnits());
+        assertNull(out.getTopSku());
+        assertNull(out.getTopBranch());
+    }
+
+    @Test
+    @DisplayName("Con rollup activo pero sin backfill confirmado: agrega sobre sales")
+    void shouldAggregateFromSalesUntilRollupIsReady() {
+
+        ReflectionTestUtils.setField(service, "rollupEnabled", true);
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to   = LocalDate.of(2025, 1, 7);
+        when(saleRepository.streamSalesCellsForBranchBetween(eq("Surco"), any(), any()))
+                .thenReturn(Stream.of(cell("SKU-A", "Surco", 7, 70.0)));
+
+
+        SalesAggregates out = service.calculateAggregates(from, to, "Surco");
+
+
+        verifyNoInteractions(rollupRepository);
+        assertEquals(7, out.getTotalUnits());
+    }
+
+    @Test
+    @DisplayName("Con caché: la misma ventana se calcula una sola vez")
+    void shouldServeRepeatedWindowFromCache() {
+
+        service.setAggregatesCache(new SalesAggregatesCache(100, Duration.ofMinutes(5), new SimpleMeterRegistry()));
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to   = LocalDate.of(2025, 1, 7);
+        when(saleRepository.streamSalesCellsForBranchBetween(eq("Surco"), any(), any()))
+                .thenAnswer(inv -> Stream.of(cell("SKU-A", "Surco", 7, 70.0)));
+
+
+        SalesAggregates first = service.calculateAggregates(from, to, "Surco");
+        SalesAggregates second = service.calculateAggregates(from, to, "Surco");
+
+
+        verify(saleRepository, times(1)).streamSalesCellsForBranchBetween(eq("Surco"), any(), any());
+        assertEquals(first, second);
+        assertNotSame(first, second, "cada llamada recibe su copia");
+    }
 }
@@ -0,0 +1,58 @@
+package com.example.hack1base.SalesAggregation.domain;
+
+import com.example.hack1base.salesaggregation.domain.SalesAggregationService;
+import com.example.hack1base.salesaggregation.domain.SalesRollupBackfill;
+import com.example.hack1base.salesaggregation.domain.SalesRollupService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SalesRollupBackfillTest {
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @Mock
+    private SalesAggregationService salesAggregationService;
+
+    @InjectMocks
+    private SalesRollupBackfill backfill;
+
+    @Test
+    @DisplayName("backfill: llena el rollup vacío y recién entonces habilita su lectura")
+    void shouldMarkRollupReadyAfterBackfill() {
+
+        when(salesRollupService.backfillIfEmpty()).thenReturn(30);
+
+
+        boolean ready = backfill.backfill();
+
+
+        assertTrue(ready);
+        var order = inOrder(salesRollupService, salesAggregationService);
+        order.verify(salesRollupService).backfillIfEmpty();
+        order.verify(salesAggregationService).markRollupReady();
+    }
+
+    @Test
+    @DisplayName("backfill: si falla, los reportes siguen agregando sobre sales")
+    void shouldKeepReadingSalesWhenBackfillFails() {
+
+        when(salesRollupService.backfillIfEmpty()).thenThrow(new QueryTimeoutException("timeout"));
+
+
+        boolean ready = backfill.backfill();
+
+
+        assertFalse(ready);
+        verify(salesAggregationService, never()).markRollupReady();
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.hack1base.SalesAggregation.domain;
+
+import com.example.hack1base.Sale.domain.Sale;
+import com.example.hack1base.salesaggregation.domain.SalesAggregatesCache;
+import com.example.hack1base.salesaggregation.domain.SalesRollupService;
+import com.example.hack1base.salesaggregation.estructure.SalesDailyRollupRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SalesRollupServiceTest {
+
+    @Mock
+    private SalesDailyRollupRepository rollupRepository;
+
+    @Mock
+    private SalesAggregatesCache aggregatesCache;
+
+    @InjectMocks
+    private SalesRollupService service;
+
+    private Sale mkSale(String sku, int units, double price, String branch, LocalDateTime soldAt) {
+        Sale s = new Sale();
+        s.setSku(sku);
+        s.setUnits(units);
+        s.setPrice(price);
+        s.setBranch(branch);
+        s.setSoldAt(soldAt);
+        return s;
+    }
+
+    @Test
+    @DisplayName("recordSale: suma unidades e ingresos al día/branch/sku de la venta")
+    void shouldApplyPositiveDeltaWhenRecording() {
+
+        Sale sale = mkSale("SKU-A", 3, 2.5, "Miraflores", LocalDateTime.of(2025, 1, 10, 18, 45));
+
+
+        service.recordSale(sale);
+
+
+        verify(rollupRepository).applyDelta(LocalDate.of(2025, 1, 10), "Miraflores", "SKU-A", 3L, 7.5);
+        verifyNoMoreInteractions(rollupRepository);
+    }
+
+    @Test
+    @DisplayName("recordSales: agrupa el lote y hace un upsert por día/branch/sku")
+    void shouldGroupBatchIntoOneDeltaPerKey() {
+
+        LocalDateTime day = LocalDateTime.of(2025, 1, 10, 9, 0);
+        service.recordSales(List.of(
+                mkSale("SKU-A", 2, 1.0, "Lima", day),
+                mkSale("SKU-A", 3, 1.0, "Lima", day.plusHours(5)),
+                mkSale("SKU-B", 1, 4.0, "Lima", day)
+        ));
+
+
+        verify(rollupRepository).applyDelta(LocalDate.of(2025, 1, 10), "Lima", "SKU-A", 5L, 5.0);
+        verify(rollupRepository).applyDelta(LocalDate.of(2025, 1, 10), "Lima", "SKU-B", 1L, 4.0);
+        verifyNoMoreInteractions(rollupRepository);
+    }
+
+    @Test
+    @DisplayName("retractSale: resta la venta y limpia la fila si queda vacía")
+    void shouldApplyNegativeDeltaAndCleanupWhenRetracting() {
+
+        Sale sale = mkSale("SKU-B", 4, 1.5, "Surco", LocalDateTime.of(2025, 2, 1, 0, 5));
+
+
+        service.retractSale(sale);
+
+
+        verify(rollupRepository).applyDelta(LocalDate.of(2025, 2, 1), "Surco", "SKU-B", -4L, -6.0);
+        verify(rollupRepository).deleteIfEmpty(LocalDate.of(2025, 2, 1), "Surco", "SKU-B");
+    }
+
+    @Test
+    @DisplayName("rebuild sin rango: reconstruye todo el rollup")
+    void shouldRebuildEverythingWhenNoRange() {
+
+        when(rollupRepository.insertFromAllSales()).thenReturn(42);
+
+
+        int rows = service.rebuild(null, null);
+
+
+        assertEquals(42, rows);
+        verify(rollupRepository).deleteAllInBatch();
+        verify(rollupRepository).insertFromAllSales();
+    }
+
+    @Test
+    @DisplayName("rebuild: descarta los agregados cacheados sobre el rollup anterior")
+    void shouldInvalidateCachedAggregatesOnRebuild() {
+
+        service.setAggregatesCache(aggregatesCache);
+
+
+        service.rebuild(null, null);
+        service.rebuild(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 7));
+
+
+        verify(aggregatesCache, times(2)).invalidateAll();
+    }
+
+    @Test
+    @DisplayName("backfillIfEmpty: con el rollup vacío lo llena desde sales")
+    void shouldBackfillWhenRollupEmpty() {
+
+        when(rollupRepository.hasRows()).thenReturn(false);
+        when(rollupRepository.insertFromAllSales()).thenReturn(12);
+
+
+        int rows = service.backfillIfEmpty();
+
+
+        assertEquals(12, rows);
+        verify(rollupRepository, never()).deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("backfillIfEmpty: con filas existentes no toca el rollup")
+    void shouldSkipBackfillWhenRollupHasRows() {
+
+        when(rollupRepository.hasRows()).thenReturn(true);
+
+
+        int rows = service.backfillIfEmpty();
+
+
+        assertEquals(0, rows);
+        verify(rollupRepository).hasRows();
+        verifyNoMoreInteractions(rollupRepository);
+    }
+
+    @Test
+    @DisplayName("rebuild con rango: borra y recalcula solo esos días")
+    void shouldRebuildOnlyRange() {
+
+        LocalDate from = LocalDate.of(2025, 3, 1);
+        LocalDate to   = LocalDate.of(2025, 3, 7);
+        when(rollupRepository.insertFromSalesBetween(from.atStartOfDay(), to.atTime(LocalTime.MAX))).thenReturn(5);
+
+
+        int rows = service.rebuild(from, to);
+
+
+        assertEquals(5, rows);
+        verify(rollupRepository).deleteBetween(from, to);
+        verify(rollupRepository, never()).deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("rebuild con rango inválido: lanza IllegalArgumentException")
+    void shouldThrowWhenRangeInvalid() {
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.rebuild(LocalDate.of(2025, 3, 1), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.rebuild(LocalDate.of(2025, 3, 7), LocalDate.of(2025, 3, 1)));
+        verifyNoInteractions(rollupRepository);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.hack1base.User.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+class UserMapperTest {
+
+    private final UserMapper mapper = new UserMapper();
+
+    @Test
+    @DisplayName("should map user fields and role enum name")
+    void shouldMapUserToResponse() {
+        User user = new User();
+        user.setId("u-1");
+        user.setUsername("bob");
+        user.setEmail("bob@example.com");
+        user.setRole(Role.BRANCH);
+        user.setBranch("Surco");
+        user.setCreatedAt(LocalDateTime.of(2025, 9, 1, 8, 0));
+
+        UserResponse dto = mapper.toResponse(user);
+
+        assertThat(dto.getId()).isEqualTo("u-1");
+        assertThat(dto.getUsername()).isEqualTo("bob");
+        assertThat(dto.getEmail()).isEqualTo("bob@example.com");
+        assertThat(dto.getRole()).isEqualTo("BRANCH");
+        assertThat(dto.getBranch()).isEqualTo("Surco");
+        assertThat(dto.getCreatedAt()).isEqualTo(user.getCreatedAt());
+    }
+
+    @Test
+    @DisplayName("should leave role null when user has no role")
+    void shouldLeaveRoleNullWhenMissing() {
+        User user = new User();
+        user.setUsername("nobody");
+
+        assertThat(mapper.toResponse(user).getRole()).isNull();
+    }
+}
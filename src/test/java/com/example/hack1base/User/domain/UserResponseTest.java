@@ -3,7 +3,6 @@ package com.example.hack1base.User.domain;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
 
 import java.time.LocalDateTime;
 
@@ -88,10 +87,10 @@ class UserResponseTest {
     }
 
     @Test
-    @DisplayName("should map User to UserResponse with ModelMapper (Long→String, Enum→String)")
-    void shouldMapUserToUserResponseWithModelMapper() {
+    @DisplayName("should map User to UserResponse with UserMapper (Enum→String)")
+    void shouldMapUserToUserResponseWithUserMapper() {
         User user = new User();
-        user.setId(123L);
+        user.setId("123");
         user.setUsername("bob");
         user.setEmail("bob@example.com");
         user.setPassword("ENCODED");
@@ -99,9 +98,7 @@ class UserResponseTest {
         user.setBranch("LIMA-01");
         user.setCreatedAt(LocalDateTime.of(2025, 10, 10, 10, 10));
 
-        ModelMapper mapper = new ModelMapper();
-
-        UserResponse dto = mapper.map(user, UserResponse.class);
+        UserResponse dto = new UserMapper().toResponse(user);
 
         assertThat(dto.getId()).isEqualTo("123");
         assertThat(dto.getUsername()).isEqualTo("bob");
@@ -27,7 +27,7 @@ class UserServiceTest {
     private PasswordEncoder passwordEncoder;
 
     @Mock
-    private org.modelmapper.ModelMapper modelMapper;
+    private UserMapper userMapper;
 
     @InjectMocks
     private UserService userService;
@@ -38,7 +38,7 @@ class UserServiceTest {
     @BeforeEach
     void setUp() {
         userCentral = new User();
-        userCentral.setId(1L);
+        userCentral.setId("1");
         userCentral.setUsername("alice");
         userCentral.setEmail("alice@example.com");
         userCentral.setPassword("Secret123!");
@@ -81,7 +81,7 @@ class UserServiceTest {
         saved.setPassword("ENCODED");
         when(userRepository.save(any(User.class))).thenReturn(saved);
 
-        when(modelMapper.map(saved, UserResponse.class)).thenReturn(userResponseCentral);
+        when(userMapper.toResponse(saved)).thenReturn(userResponseCentral);
 
         UserResponse resp = userService.register(toSave);
 
@@ -98,7 +98,7 @@ class UserServiceTest {
         verify(userRepository).existsByEmail("alice@example.com");
         verify(userRepository).existsByUsername("alice");
         verify(passwordEncoder).encode("Secret123!");
-        verify(modelMapper).map(saved, UserResponse.class);
+        verify(userMapper).toResponse(saved);
     }
 
     @Test
@@ -111,7 +111,7 @@ class UserServiceTest {
                 .hasMessageContaining("User already exists");
 
         verify(userRepository, never()).save(any());
-        verifyNoInteractions(passwordEncoder, modelMapper);
+        verifyNoInteractions(passwordEncoder, userMapper);
     }
 
     @Test
@@ -125,7 +125,7 @@ class UserServiceTest {
                 .hasMessageContaining("User already exists");
 
         verify(userRepository, never()).save(any());
-        verifyNoInteractions(passwordEncoder, modelMapper);
+        verifyNoInteractions(passwordEncoder, userMapper);
     }
 
     // ---------- LOGIN ----------
@@ -138,7 +138,7 @@ class UserServiceTest {
 
         when(userRepository.findByEmail("alice@example.com")).thenReturn(dbUser);
         when(passwordEncoder.matches("Secret123!", "ENCODED")).thenReturn(true);
-        when(modelMapper.map(dbUser, UserResponse.class)).thenReturn(userResponseCentral);
+        when(userMapper.toResponse(dbUser)).thenReturn(userResponseCentral);
 
         UserResponse resp = userService.login("alice@example.com", "Secret123!");
 
@@ -148,7 +148,7 @@ class UserServiceTest {
 
         verify(userRepository).findByEmail("alice@example.com");
         verify(passwordEncoder).matches("Secret123!", "ENCODED");
-        verify(modelMapper).map(dbUser, UserResponse.class);
+        verify(userMapper).toResponse(dbUser);
     }
 
     @Test
@@ -160,7 +160,7 @@ class UserServiceTest {
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Invalid credentials");
 
-        verifyNoInteractions(modelMapper);
+        verifyNoInteractions(userMapper);
     }
 
     @Test
@@ -176,7 +176,7 @@ class UserServiceTest {
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Invalid credentials");
 
-        verifyNoInteractions(modelMapper);
+        verifyNoInteractions(userMapper);
     }
 
     // ---------- GET ALL ----------
@@ -187,7 +187,7 @@ class UserServiceTest {
         User u1 = cloneUser(userCentral);
 
         User u2 = new User();
-        u2.setId(2L);
+        u2.setId("2");
         u2.setUsername("bob");
         u2.setEmail("bob@example.com");
         u2.setPassword("ENC");
@@ -209,8 +209,8 @@ class UserServiceTest {
         r2.setBranch("LIMA-01");
 
         when(userRepository.findAll()).thenReturn(Arrays.asList(u1, u2));
-        when(modelMapper.map(u1, UserResponse.class)).thenReturn(r1);
-        when(modelMapper.map(u2, UserResponse.class)).thenReturn(r2);
+        when(userMapper.toResponse(u1)).thenReturn(r1);
+        when(userMapper.toResponse(u2)).thenReturn(r2);
 
         List<UserResponse> list = userService.getAllUsers();
 
@@ -223,8 +223,8 @@ class UserServiceTest {
                 .containsExactly("CENTRAL", "BRANCH");
 
         verify(userRepository).findAll();
-        verify(modelMapper).map(u1, UserResponse.class);
-        verify(modelMapper).map(u2, UserResponse.class);
+        verify(userMapper).toResponse(u1);
+        verify(userMapper).toResponse(u2);
     }
 
     // ---------- GET BY ID ----------
@@ -233,7 +233,7 @@ class UserServiceTest {
     @DisplayName("should return mapped UserResponse when id exists (id/role as String)")
     void shouldReturnMappedUserResponseWhenIdExists() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(userCentral));
-        when(modelMapper.map(userCentral, UserResponse.class)).thenReturn(userResponseCentral);
+        when(userMapper.toResponse(userCentral)).thenReturn(userResponseCentral);
 
         UserResponse resp = userService.getUserById(1L);
 
@@ -241,7 +241,7 @@ class UserServiceTest {
         assertThat(resp.getId()).isEqualTo("1");
         assertThat(resp.getRole()).isEqualTo("CENTRAL");
         verify(userRepository).findById(1L);
-        verify(modelMapper).map(userCentral, UserResponse.class);
+        verify(userMapper).toResponse(userCentral);
     }
 
     @Test
@@ -252,7 +252,7 @@ class UserServiceTest {
         assertThatThrownBy(() -> userService.getUserById(99L))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("User not found");
-        verify(modelMapper, never()).map(any(), eq(UserResponse.class));
+        verify(userMapper, never()).toResponse(any());
     }
 
     // ---------- DELETE ----------
@@ -1,4 +1,189 @@
 package com.example.hack1base.events.application;
 
+import com.example.hack1base.EmailOutbox.domain.EmailOutboxMessage;
+import com.example.hack1base.EmailOutbox.domain.EmailOutboxQueue;
+import com.example.hack1base.EmailOutbox.domain.EmailOutboxStatus;
+import com.example.hack1base.ReportRequest.domain.ReportRequest;
+import com.example.hack1base.ReportRequest.domain.ReportRequestService;
+import com.example.hack1base.ReportRequest.domain.ReportStatus;
+import com.example.hack1base.events.domain.ReportRequestedEvent;
+import com.example.hack1base.events.dto.SummaryRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
 public class SummaryControllerTest {
+
+    private final ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReportRequestService reportRequestService = mock(ReportRequestService.class);
+    private final SummaryController controller = new SummaryController(publisher, meterRegistry, reportRequestService);
+
+    @BeforeEach
+    void setUp() {
+        when(reportRequestService.trackSummaryRequest(any(ReportRequest.class))).thenAnswer(inv -> {
+            ReportRequest report = inv.getArgument(0);
+            report.setId("req-1");
+            return report;
+        });
+    }
+
+    private static SummaryRequest request() {
+        return new SummaryRequest(LocalDate.of(2025, 9, 1), LocalDate.of(2025, 9, 7), null, "dest@corp.com");
+    }
+
+    @Test
+    @DisplayName("should accept the request and publish the event when the report pool has room")
+    void shouldAcceptWhenPoolHasRoom() {
+        ResponseEntity<Map<String, Object>> response = controller.generateWeeklySummary(request(), mock(Authentication.class));
+
+        assertEquals(202, response.getStatusCode().value());
+        assertEquals("PROCESSING", response.getBody().get("status"));
+        assertEquals("req-1", response.getBody().get("requestId"));
+        verify(publisher).publishEvent(any(ReportRequestedEvent.class));
+    }
+
+    @Test
+    @DisplayName("should persist the request as PROCESSING and publish its id before answering")
+    void shouldPersistRequestBeforePublishing() {
+        ArgumentCaptor<ReportRequest> saved = ArgumentCaptor.forClass(ReportRequest.class);
+        ArgumentCaptor<ReportRequestedEvent> published = ArgumentCaptor.forClass(ReportRequestedEvent.class);
+
+        controller.generateWeeklyPremiumSummary(request(), mock(Authentication.class));
+
+        var inOrder = inOrder(reportRequestService, publisher);
+        inOrder.verify(reportRequestService).trackSummaryRequest(saved.capture());
+        inOrder.verify(publisher).publishEvent(published.capture());
+        assertAll(
+                () -> assertEquals(ReportStatus.PROCESSING, saved.getValue().getStatus()),
+                () -> assertEquals("dest@corp.com", saved.getValue().getEmailTo()),
+                () -> assertTrue(saved.getValue().isPremium()),
+                () -> assertNotNull(saved.getValue().getRequestedAt()),
+                () -> assertEquals("req-1", published.getValue().getRequestId())
+        );
+    }
+
+    @Test
+    @DisplayName("should not advertise a PDF attachment the pipeline does not render")
+    void shouldNotAdvertisePdfAttachment() {
+        ResponseEntity<Map<String, Object>> response =
+                controller.generateWeeklyPremiumSummary(request(), mock(Authentication.class));
+
+        assertEquals(List.of("HTML_FORMAT", "CHARTS"), response.getBody().get("features"));
+        assertFalse(response.getBody().get("message").toString().contains("PDF"));
+    }
+
+    @Test
+    @DisplayName("should return the tracked status and timing of a request")
+    void shouldReturnTrackedStatus() {
+        ReportRequest report = ReportRequest.builder()
+                .id("req-9")
+                .branch("Miraflores")
+                .fromDate(LocalDate.of(2025, 9, 1))
+                .toDate(LocalDate.of(2025, 9, 7))
+                .emailTo("dest@corp.com")
+                .status(ReportStatus.COMPLETED)
+                .requestedAt(LocalDateTime.of(2025, 9, 8, 8, 0))
+                .startedAt(LocalDateTime.of(2025, 9, 8, 8, 0, 1))
+                .completedAt(LocalDateTime.of(2025, 9, 8, 8, 0, 31))
+                .durationMillis(30_000L)
+                .build();
+        when(reportRequestService.findByRequestId("req-9")).thenReturn(Optional.of(report));
+
+        ResponseEntity<Map<String, Object>> response = controller.getSummaryStatus("req-9", mock(Authentication.class));
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("COMPLETED", response.getBody().get("status"));
+        assertEquals(30_000L, response.getBody().get("durationMillis"));
+    }
+
+    @Test
+    @DisplayName("should report the delivery status of the queued email alongside the request")
+    void shouldExposeQueuedEmailStatus() {
+        EmailOutboxQueue outboxQueue = mock(EmailOutboxQueue.class);
+        controller.setOutboxQueue(outboxQueue);
+        ReportRequest report = ReportRequest.builder()
+                .id("req-9")
+                .branch("Miraflores")
+                .fromDate(LocalDate.of(2025, 9, 1))
+                .toDate(LocalDate.of(2025, 9, 7))
+                .emailTo("dest@corp.com")
+                .status(ReportStatus.COMPLETED)
+                .requestedAt(LocalDateTime.of(2025, 9, 8, 8, 0))
+                .build();
+        when(reportRequestService.findByRequestId("req-9")).thenReturn(Optional.of(report));
+        when(outboxQueue.findForReport("req-9")).thenReturn(Optional.of(EmailOutboxMessage.builder()
+                .status(EmailOutboxStatus.DEAD)
+                .attempts(8)
+                .lastError("Intento 8: 550 mailbox unavailable")
+                .build()));
+
+        ResponseEntity<Map<String, Object>> response = controller.getSummaryStatus("req-9", mock(Authentication.class));
+
+        assertEquals("COMPLETED", response.getBody().get("status"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> email = (Map<String, Object>) response.getBody().get("email");
+        assertEquals("DEAD", email.get("status"));
+        assertEquals(8, email.get("attempts"));
+        assertEquals("Intento 8: 550 mailbox unavailable", email.get("lastError"));
+    }
+
+    @Test
+    @DisplayName("should answer 404 for an unknown request id")
+    void shouldAnswer404ForUnknownRequest() {
+        when(reportRequestService.findByRequestId("nope")).thenReturn(Optional.empty());
+
+        ResponseEntity<Map<String, Object>> response = controller.getSummaryStatus("nope", mock(Authentication.class));
+
+        assertEquals(404, response.getStatusCode().value());
+    }
+
+    @Test
+    @DisplayName("should answer 429 with Retry-After when the report pool rejects the task")
+    void shouldAnswer429WhenPoolRejects() {
+        doThrow(new TaskRejectedException("full")).when(publisher).publishEvent(any(ReportRequestedEvent.class));
+
+        ResponseEntity<Map<String, Object>> response =
+                controller.generateWeeklyPremiumSummary(request(), mock(Authentication.class));
+
+        assertEquals(429, response.getStatusCode().value());
+        assertEquals("TOO_MANY_REQUESTS", response.getBody().get("error"));
+        assertEquals("30", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, meterRegistry.get("reports.rejected").counter().count());
+        verify(reportRequestService).markFinished(eq("req-1"), eq(ReportStatus.FAILED), anyString());
+    }
+
+    @Test
+    @DisplayName("should only enqueue the request as PENDING when dispatch mode is queue")
+    void shouldEnqueueWithoutPublishingInQueueMode() {
+        ReflectionTestUtils.setField(controller, "dispatchMode", "queue");
+        ArgumentCaptor<ReportRequest> saved = ArgumentCaptor.forClass(ReportRequest.class);
+
+        ResponseEntity<Map<String, Object>> response = controller.generateWeeklySummary(request(), mock(Authentication.class));
+
+        assertEquals(202, response.getStatusCode().value());
+        assertEquals("PENDING", response.getBody().get("status"));
+        verify(reportRequestService).trackSummaryRequest(saved.capture());
+        assertEquals(ReportStatus.PENDING, saved.getValue().getStatus());
+        assertNotNull(saved.getValue().getNextAttemptAt());
+        verifyNoInteractions(publisher);
+    }
 }
@@ -0,0 +1,48 @@
+package com.example.hack1base.events.domain;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedVirtualThreadExecutorTest {
+
+    private final BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test-vt-", 2);
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.close();
+    }
+
+    @Test
+    @DisplayName("shouldRunTasksOnVirtualThreads")
+    void shouldRunTasksOnVirtualThreads() throws Exception {
+        Future<Boolean> virtual = executor.submit(() -> Thread.currentThread().isVirtual());
+
+        assertTrue(virtual.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("shouldRejectWhenMaxInFlightReachedAndAcceptAgainAfterRelease")
+    void shouldRejectWhenMaxInFlightReached() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> first = executor.submit(() -> { release.await(); return null; });
+        Future<?> second = executor.submit(() -> { release.await(); return null; });
+
+        assertEquals(2, executor.getInFlight());
+        assertThrows(TaskRejectedException.class, () -> executor.execute(() -> { }));
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        assertEquals(0, executor.getInFlight());
+        assertNull(executor.submit(() -> null).get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.hack1base.events.domain;
+
+import com.example.hack1base.EmailOutbox.domain.EmailOutboxMessage;
+import com.example.hack1base.EmailOutbox.domain.EmailOutboxQueue;
+import com.example.hack1base.EmailOutbox.domain.EmailOutboxStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxDrainerTest {
+
+    private final EmailOutboxQueue outboxQueue = mock(EmailOutboxQueue.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final EmailOutboxDrainer drainer = new EmailOutboxDrainer(outboxQueue, emailService);
+
+    private static EmailOutboxMessage message(String id, String to) {
+        return EmailOutboxMessage.builder()
+                .id(id)
+                .idempotencyKey("report:" + id)
+                .recipient(to)
+                .subject("Reporte Semanal Oreo")
+                .html("<p>resumen</p>")
+                .status(EmailOutboxStatus.SENDING)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static CompletableFuture<MailDelivery> delivered(String to, MailDelivery.RecipientStatus status) {
+        return CompletableFuture.completedFuture(new MailDelivery(Map.of(to, status), 1, null));
+    }
+
+    @Test
+    @DisplayName("should dispatch the whole batch before waiting and close each message by its outcome")
+    void shouldDispatchBatchAndCloseEachMessage() throws Exception {
+        when(outboxQueue.claimBatch("w1", 20)).thenReturn(List.of(
+                message("m1", "a@corp.com"), message("m2", "b@corp.com"), message("m3", "c@corp.com")));
+        CompletableFuture<MailDelivery> slow = new CompletableFuture<>();
+        when(emailService.dispatch(eq("a@corp.com"), anyString(), anyString(), eq("report:m1"))).thenReturn(slow);
+        when(emailService.dispatch(eq("b@corp.com"), anyString(), anyString(), eq("report:m2")))
+                .thenReturn(delivered("b@corp.com", MailDelivery.RecipientStatus.REJECTED));
+        when(emailService.dispatch(eq("c@corp.com"), anyString(), anyString(), eq("report:m3")))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("421 busy")));
+        // El primero tarda: los otros dos ya deben haberse despachado sin esperarlo
+        slow.completeOnTimeout(new MailDelivery(Map.of("a@corp.com", MailDelivery.RecipientStatus.SENT), 1, null),
+                100, TimeUnit.MILLISECONDS);
+
+        assertEquals(3, drainer.drainOnce("w1"));
+
+        verify(outboxQueue).markSent("m1", "w1");
+        verify(outboxQueue).markFailed(eq("m2"), eq("w1"), contains("REJECTED"), eq(false));
+        verify(outboxQueue).markFailed("m3", "w1", "421 busy", true);
+    }
+
+    @Test
+    @DisplayName("should retry messages that did not get an SMTP answer within the send timeout")
+    void shouldRetryOnSendTimeout() throws Exception {
+        ReflectionTestUtils.setField(drainer, "sendTimeout", Duration.ofMillis(50));
+        when(outboxQueue.claimBatch("w1", 20)).thenReturn(List.of(message("m1", "a@corp.com")));
+        when(emailService.dispatch(anyString(), anyString(), anyString(), anyString())).thenReturn(new CompletableFuture<>());
+
+        drainer.drainOnce("w1");
+
+        verify(outboxQueue).markFailed(eq("m1"), eq("w1"), startsWith("Sin respuesta SMTP"), eq(true));
+        verify(outboxQueue, never()).markSent(any(), any());
+    }
+
+    @Test
+    @DisplayName("should keep a message that already reached SMTP and close it with the late outcome")
+    void shouldNotRetryMessageAlreadyHandedToSmtp() throws Exception {
+        ReflectionTestUtils.setField(drainer, "sendTimeout", Duration.ofMillis(50));
+        when(outboxQueue.claimBatch("w1", 20)).thenReturn(List.of(message("m1", "a@corp.com")));
+        // Como el pool SMTP: ya en envío, no se deja cancelar
+        CompletableFuture<MailDelivery> inFlight = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                return false;
+            }
+        };
+        when(emailService.dispatch(anyString(), anyString(), anyString(), anyString())).thenReturn(inFlight);
+
+        drainer.drainOnce("w1");
+
+        verify(outboxQueue, never()).markFailed(any(), any(), any(), anyBoolean());
+        verify(outboxQueue, never()).markSent(any(), any());
+
+        inFlight.complete(new MailDelivery(Map.of("a@corp.com", MailDelivery.RecipientStatus.SENT), 1, null));
+
+        verify(outboxQueue).markSent("m1", "w1");
+    }
+
+    @Test
+    @DisplayName("should keep renewing the lease of a message the SMTP pool still holds and stop once it is closed")
+    void shouldRenewLeaseWhileSmtpPoolHoldsMessage() throws Exception {
+        ReflectionTestUtils.setField(drainer, "sendTimeout", Duration.ofMillis(50));
+        when(outboxQueue.claimBatch("w1", 20)).thenReturn(List.of(message("m1", "a@corp.com"), message("m2", "b@corp.com")));
+        CompletableFuture<MailDelivery> inFlight = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                return false;
+            }
+        };
+        when(emailService.dispatch(eq("a@corp.com"), anyString(), anyString(), anyString())).thenReturn(inFlight);
+        when(emailService.dispatch(eq("b@corp.com"), anyString(), anyString(), anyString()))
+                .thenReturn(delivered("b@corp.com", MailDelivery.RecipientStatus.SENT));
+
+        drainer.drainOnce("w1");
+        drainer.renewLeases();
+
+        verify(outboxQueue).renewLeases("w1", List.of("m1"));
+
+        inFlight.complete(new MailDelivery(Map.of("a@corp.com", MailDelivery.RecipientStatus.SENT), 3, null));
+        verify(outboxQueue).markSent("m1", "w1");
+
+        clearInvocations(outboxQueue);
+        drainer.renewLeases();
+        verify(outboxQueue, never()).renewLeases(any(), any());
+    }
+
+    @Test
+    @DisplayName("should report an empty drain when nothing is ready")
+    void shouldReportEmptyDrain() throws Exception {
+        when(outboxQueue.claimBatch("w1", 20)).thenReturn(List.of());
+
+        assertEquals(0, drainer.drainOnce("w1"));
+        verifyNoInteractions(emailService);
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.hack1base.events.domain;
 
 
+import com.example.hack1base.EmailOutbox.domain.EmailOutboxQueue;
 import com.example.hack1base.salesaggregation.domain.SalesAggregates;
+import com.example.hack1base.Exceptions.EmailDeliveryUnknownException;
 import com.example.hack1base.Exceptions.ServiceUnavailableException;
 import jakarta.mail.Address;
 import jakarta.mail.Session;
@@ -13,11 +15,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,6 +33,9 @@ class EmailServiceTest {
     @Mock
     private JavaMailSender mailSender;
 
+    @Spy
+    private SummaryEmailTemplates templates = new SummaryEmailTemplates();
+
     @InjectMocks
     private EmailService emailService;
 
@@ -110,5 +118,94 @@ class EmailServiceTest {
         assertTrue(ex.getMessage().contains("Error enviando email"));
         verify(mailSender, times(1)).send(any(MimeMessage.class));
     }
-}
 
+    @Test
+    @DisplayName("shouldSendThroughOutboxWhenEnabled")
+    void shouldSendThroughOutboxWhenEnabled() {
+        MailOutbox outbox = mock(MailOutbox.class);
+        when(mailSender.createMimeMessage()).thenReturn(new MimeMessage((Session) null));
+        when(outbox.submit(any(MimeMessage.class))).thenReturn(CompletableFuture.completedFuture(
+                new MailDelivery(Map.of("x@y.com", MailDelivery.RecipientStatus.SENT), 1, null)));
+        ReflectionTestUtils.setField(emailService, "from", "no-reply@oreo.com");
+        emailService.setOutbox(outbox);
+
+        emailService.sendSummaryEmail("x@y.com", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 7),
+                new SalesAggregates(1, 10.0, "SKU-X", "Surco"), "texto");
+
+        verify(outbox).submit(any(MimeMessage.class));
+        verify(mailSender, never()).send(any(MimeMessage.class));
+    }
+
+    @Test
+    @DisplayName("shouldThrowServiceUnavailableWhenOutboxCannotDeliver")
+    void shouldThrowServiceUnavailableWhenOutboxCannotDeliver() {
+        MailOutbox outbox = mock(MailOutbox.class);
+        when(mailSender.createMimeMessage()).thenReturn(new MimeMessage((Session) null));
+        when(outbox.submit(any(MimeMessage.class))).thenReturn(CompletableFuture.completedFuture(
+                new MailDelivery(Map.of("x@y.com", MailDelivery.RecipientStatus.REJECTED), 1, "550 No such user")));
+        ReflectionTestUtils.setField(emailService, "from", "no-reply@oreo.com");
+        emailService.setOutbox(outbox);
+
+        ServiceUnavailableException ex = assertThrows(ServiceUnavailableException.class,
+                () -> emailService.sendSummaryEmail("x@y.com", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 7),
+                        new SalesAggregates(1, 10.0, "SKU-X", "Surco"), "texto"));
+        assertTrue(ex.getMessage().contains("x@y.com=REJECTED"));
+    }
+
+    @Test
+    @DisplayName("shouldReportUnknownDeliveryWhenOutboxDoesNotConfirmInTime")
+    void shouldReportUnknownDeliveryWhenOutboxDoesNotConfirmInTime() {
+        MailOutbox outbox = mock(MailOutbox.class);
+        when(mailSender.createMimeMessage()).thenReturn(new MimeMessage((Session) null));
+        when(outbox.submit(any(MimeMessage.class))).thenReturn(new CompletableFuture<>());
+        ReflectionTestUtils.setField(emailService, "from", "no-reply@oreo.com");
+        ReflectionTestUtils.setField(emailService, "outboxTimeout", java.time.Duration.ofMillis(20));
+        emailService.setOutbox(outbox);
+
+        assertThrows(EmailDeliveryUnknownException.class,
+                () -> emailService.sendSummaryEmail("x@y.com", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 7),
+                        new SalesAggregates(1, 10.0, "SKU-X", "Surco"), "texto"));
+    }
+
+    @Test
+    @DisplayName("shouldEnqueueRenderedEmailWithRequestKeyWhenOutboxTableIsEnabled")
+    void shouldEnqueueRenderedEmailWhenOutboxTableIsEnabled() {
+        EmailOutboxQueue outboxQueue = mock(EmailOutboxQueue.class);
+        emailService.setOutboxQueue(outboxQueue);
+
+        emailService.deliverSummaryEmail("req-1", "x@y.com", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 7),
+                new SalesAggregates(1, 10.0, "SKU-X", "Surco"), "texto", SummaryLayout.STANDARD);
+
+        ArgumentCaptor<String> html = ArgumentCaptor.forClass(String.class);
+        verify(outboxQueue).enqueue(eq("report:req-1"), eq("req-1"), eq("x@y.com"),
+                eq("Reporte Semanal Oreo - 2025-01-01 a 2025-01-07"), html.capture());
+        assertTrue(html.getValue().contains("<li><b>SKU más vendido:</b> SKU-X</li>"));
+        verifyNoInteractions(mailSender);
+    }
+
+    @Test
+    @DisplayName("shouldSendDirectlyWhenOutboxTableIsDisabled")
+    void shouldSendDirectlyWhenOutboxTableIsDisabled() {
+        when(mailSender.createMimeMessage()).thenReturn(new MimeMessage((Session) null));
+        ReflectionTestUtils.setField(emailService, "from", "no-reply@oreo.com");
+
+        emailService.deliverSummaryEmail("req-1", "x@y.com", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 7),
+                new SalesAggregates(1, 10.0, "SKU-X", "Surco"), "texto", SummaryLayout.STANDARD);
+
+        verify(mailSender).send(any(MimeMessage.class));
+    }
+
+    @Test
+    @DisplayName("shouldTagDispatchedMessageWithIdempotencyKey")
+    void shouldTagDispatchedMessageWithIdempotencyKey() throws Exception {
+        when(mailSender.createMimeMessage()).thenReturn(new MimeMessage((Session) null));
+        ReflectionTestUtils.setField(emailService, "from", "no-reply@oreo.com");
+
+        MailDelivery delivery = emailService.dispatch("x@y.com", "Asunto", "<p>x</p>", "report:req-1").get();
+
+        assertTrue(delivery.delivered());
+        ArgumentCaptor<MimeMessage> captor = ArgumentCaptor.forClass(MimeMessage.class);
+        verify(mailSender).send(captor.capture());
+        assertEquals("report:req-1", captor.getValue().getHeader(EmailService.IDEMPOTENCY_HEADER, null));
+    }
+}
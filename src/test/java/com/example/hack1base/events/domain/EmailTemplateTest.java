@@ -0,0 +1,67 @@
+package com.example.hack1base.events.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailTemplateTest {
+
+    record Row(String name, long qty) {
+    }
+
+    record Model(String title, double amount, boolean flag, List<Row> rows) {
+    }
+
+    private final TemplateBindings<Model> bindings = new TemplateBindings<Model>()
+            .text("title", Model::title)
+            .decimal("amount", Model::amount)
+            .flag("flag", Model::flag)
+            .list("rows", Model::rows, new TemplateBindings<Row>()
+                    .text("name", Row::name)
+                    .number("qty", Row::qty));
+
+    private String render(String source, Model model) {
+        StringBuilder out = new StringBuilder();
+        EmailTemplate.compile("test", source, bindings).render(model, out);
+        return out.toString();
+    }
+
+    @Test
+    @DisplayName("should escape values by default and write them raw with &")
+    void shouldEscapeValues() {
+        Model model = new Model("<b>A & B</b>", 0, false, List.of());
+
+        assertEquals("&lt;b&gt;A &amp; B&lt;/b&gt; | <b>A & B</b>", render("{{title}} | {{&title}}", model));
+    }
+
+    @Test
+    @DisplayName("should format decimals with two digits and a dot, rounding half up")
+    void shouldFormatDecimals() {
+        assertEquals("1234.56", render("{{amount}}", new Model("", 1234.56, false, List.of())));
+        assertEquals("999.50", render("{{amount}}", new Model("", 999.5, false, List.of())));
+        assertEquals("0.07", render("{{amount}}", new Model("", 0.065, false, List.of())));
+        assertEquals("-3.10", render("{{amount}}", new Model("", -3.1, false, List.of())));
+    }
+
+    @Test
+    @DisplayName("should render flag sections, inverted sections and lists")
+    void shouldRenderSections() {
+        String source = "{{#flag}}on{{/flag}}{{^flag}}off{{/flag}}:{{#rows}}[{{name}}={{qty}}]{{/rows}}";
+
+        assertEquals("on:[a=1][b=2]", render(source, new Model("", 0, true, List.of(new Row("a", 1), new Row("b", 2)))));
+        assertEquals("off:", render(source, new Model("", 0, false, List.of())));
+    }
+
+    @Test
+    @DisplayName("should fail at compile time on unknown names and unbalanced sections")
+    void shouldFailOnInvalidTemplates() {
+        assertThrows(IllegalStateException.class, () -> EmailTemplate.compile("t", "{{missing}}", bindings));
+        assertThrows(IllegalStateException.class, () -> EmailTemplate.compile("t", "{{#rows}}{{title}}{{/rows}}", bindings));
+        assertThrows(IllegalStateException.class, () -> EmailTemplate.compile("t", "{{#flag}}x", bindings));
+        assertThrows(IllegalStateException.class, () -> EmailTemplate.compile("t", "{{#flag}}x{{/rows}}", bindings));
+        assertThrows(IllegalStateException.class, () -> EmailTemplate.compile("t", "{{title", bindings));
+    }
+}
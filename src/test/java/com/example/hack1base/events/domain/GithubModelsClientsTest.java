@@ -2,34 +2,60 @@ package com.example.hack1base.events.domain;
 
 
 import com.example.hack1base.salesaggregation.domain.SalesAggregates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class GithubModelsClientsTest {
 
+    private static final String VALID_BODY = """
+            { "choices": [ { "message": { "content": "Resumen generado por el modelo." } } ] }
+            """;
+
     private MockWebServer server;
+    private GithubModelsClients client;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     private GithubModelsClients newClientPointingTo(String url, String modelId, String token) throws Exception {
-        GithubModelsClients client = new GithubModelsClients();
+        return newClientPointingTo(url, modelId, token, Duration.ofSeconds(5), 8, 100);
+    }
+
+    private GithubModelsClients newClientPointingTo(String url, String modelId, String token,
+                                                    Duration timeout, int maxConcurrency, int burst) {
+        client = new GithubModelsClients(meterRegistry);
         ReflectionTestUtils.setField(client, "modelsUrl", url);
         ReflectionTestUtils.setField(client, "modelId", modelId);
         ReflectionTestUtils.setField(client, "githubToken", token);
-        WebClient wc = WebClient.builder().build();
-        ReflectionTestUtils.setField(client, "webClient", wc);
+        ReflectionTestUtils.setField(client, "timeout", timeout);
+        ReflectionTestUtils.setField(client, "maxConcurrency", maxConcurrency);
+        ReflectionTestUtils.setField(client, "burst", burst);
+        ReflectionTestUtils.setField(client, "ratePerSecond", 0.001);
+        client.init();
         return client;
     }
 
+    private MockResponse ok(String body) {
+        return new MockResponse()
+                .setResponseCode(200)
+                .setBody(body)
+                .addHeader("Content-Type", "application/json");
+    }
+
     @AfterEach
     void tearDown() throws Exception {
+        if (client != null) {
+            client.close();
+        }
         if (server != null) {
             server.shutdown();
         }
@@ -66,7 +92,7 @@ class GithubModelsClientsTest {
                 newClientPointingTo(endpoint, "gpt-test", "ghp_123456");
 
         // Act
-        String out = client.generateSummary(sampleAgg());
+        String out = client.generateSummary(sampleAgg()).block();
 
         // Assert
         assertEquals("Resumen generado por el modelo.", out);
@@ -89,8 +115,8 @@ class GithubModelsClientsTest {
     }
 
     @Test
-    @DisplayName("shouldThrowRuntimeWhenChoicesIsEmpty")
-    void shouldThrowRuntimeWhenChoicesIsEmpty() throws Exception {
+    @DisplayName("shouldFallBackToLocalSummaryWhenChoicesIsEmpty")
+    void shouldFallBackToLocalSummaryWhenChoicesIsEmpty() throws Exception {
         // Arrange
         server = new MockWebServer();
         server.start();
@@ -109,14 +135,13 @@ class GithubModelsClientsTest {
                 newClientPointingTo(endpoint, "gpt-test", "token");
 
         // Act & Assert
-        RuntimeException ex = assertThrows(RuntimeException.class,
-                () -> client.generateSummary(sampleAgg()));
-        assertTrue(ex.getMessage().contains("choices vacío"));
+        assertEquals(SummaryPrompt.localSummary(sampleAgg()), client.generateSummary(sampleAgg()).block());
+        assertEquals(1.0, meterRegistry.get("github.models.fallback").tag("reason", "error").counter().count());
     }
 
     @Test
-    @DisplayName("shouldThrowRuntimeWhenResponseHasMissingFields")
-    void shouldThrowRuntimeWhenResponseHasMissingFields() throws Exception {
+    @DisplayName("shouldFallBackToLocalSummaryWhenResponseHasMissingFields")
+    void shouldFallBackToLocalSummaryWhenResponseHasMissingFields() throws Exception {
         // Arrange
         server = new MockWebServer();
         server.start();
@@ -135,14 +160,13 @@ class GithubModelsClientsTest {
                 newClientPointingTo(endpoint, "gpt-test", "token");
 
         // Act & Assert
-        RuntimeException ex = assertThrows(RuntimeException.class,
-                () -> client.generateSummary(sampleAgg()));
-        assertTrue(ex.getMessage().contains("choices vacío"));
+        assertEquals(SummaryPrompt.localSummary(sampleAgg()), client.generateSummary(sampleAgg()).block());
+        assertEquals(1.0, meterRegistry.get("github.models.fallback").tag("reason", "error").counter().count());
     }
 
     @Test
-    @DisplayName("shouldWrapNetworkErrorsIntoRuntimeException")
-    void shouldWrapNetworkErrorsIntoRuntimeException() throws Exception {
+    @DisplayName("shouldFallBackToLocalSummaryOnNetworkErrors")
+    void shouldFallBackToLocalSummaryOnNetworkErrors() throws Exception {
 
         server = new MockWebServer();
         server.start();
@@ -154,8 +178,244 @@ class GithubModelsClientsTest {
                 newClientPointingTo(endpoint, "gpt-test", "token");
 
 
-        RuntimeException ex = assertThrows(RuntimeException.class,
-                () -> client.generateSummary(sampleAgg()));
-        assertTrue(ex.getMessage().startsWith("Error consultando GitHub Models"));
+        assertEquals(SummaryPrompt.localSummary(sampleAgg()), client.generateSummary(sampleAgg()).block());
+        assertEquals(1.0, meterRegistry.get("github.models.fallback").tag("reason", "error").counter().count());
+    }
+
+    @Test
+    @DisplayName("shouldServeIdenticalAggregatesFromCacheWithoutCallingTheModelAgain")
+    void shouldServeIdenticalAggregatesFromCache() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        server.enqueue(ok(VALID_BODY));
+        newClientPointingTo(server.url("/v1/chat/completions").toString(), "gpt-test", "token");
+
+        String first = client.generateSummary(sampleAgg()).block();
+        String second = client.generateSummary(new SalesAggregates(25, 999.5, " SKU-1 ", "Miraflores")).block();
+
+        assertEquals(first, second);
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", GithubModelsClients.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("shouldNotCacheFailedCalls")
+    void shouldNotCacheFailedCalls() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        server.enqueue(ok("{ \"choices\": [] }"));
+        server.enqueue(ok(VALID_BODY));
+        newClientPointingTo(server.url("/v1/chat/completions").toString(), "gpt-test", "token");
+
+        assertEquals(SummaryPrompt.localSummary(sampleAgg()), client.generateSummary(sampleAgg()).block());
+        assertEquals("Resumen generado por el modelo.", client.generateSummary(sampleAgg()).block());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    @DisplayName("shouldFallBackToLocalSummaryWhenModelExceedsSla")
+    void shouldFallBackToLocalSummaryWhenModelExceedsSla() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        server.enqueue(ok(VALID_BODY).setHeadersDelay(2, TimeUnit.SECONDS));
+        newClientPointingTo(server.url("/v1/chat/completions").toString(), "gpt-test", "token",
+                Duration.ofMillis(200), 8, 100);
+
+        long start = System.nanoTime();
+        String out = client.generateSummary(sampleAgg()).block();
+
+        assertEquals(SummaryPrompt.localSummary(sampleAgg()), out);
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1500);
+        assertEquals(1.0, meterRegistry.get("github.models.fallback").tag("reason", "timeout").counter().count());
+    }
+
+    @Test
+    @DisplayName("shouldFallBackImmediatelyWhenConcurrencyLimitIsReached")
+    void shouldFallBackWhenConcurrencyIsSaturated() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        server.enqueue(ok(VALID_BODY).setHeadersDelay(1, TimeUnit.SECONDS));
+        newClientPointingTo(server.url("/v1/chat/completions").toString(), "gpt-test", "token",
+                Duration.ofSeconds(5), 1, 100);
+
+        client.generateSummary(sampleAgg()).subscribe();
+        SalesAggregates other = new SalesAggregates(3, 30.0, "SKU-2", "Surco");
+        String out = client.generateSummary(other).block(Duration.ofMillis(500));
+
+        assertEquals(SummaryPrompt.localSummary(other), out);
+        assertEquals(1.0, meterRegistry.get("github.models.fallback").tag("reason", "saturated").counter().count());
+    }
+
+    @Test
+    @DisplayName("shouldFallBackWhenTokenBucketIsEmpty")
+    void shouldFallBackWhenTokenBucketIsEmpty() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        server.enqueue(ok(VALID_BODY));
+        newClientPointingTo(server.url("/v1/chat/completions").toString(), "gpt-test", "token",
+                Duration.ofSeconds(5), 8, 1);
+
+        assertEquals("Resumen generado por el modelo.", client.generateSummary(sampleAgg()).block());
+        SalesAggregates other = new SalesAggregates(3, 30.0, "SKU-2", "Surco");
+        assertEquals(SummaryPrompt.localSummary(other), client.generateSummary(other).block());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    @DisplayName("shouldFallBackWhenReadTimeoutExpiresBeforeSla")
+    void shouldFallBackWhenReadTimeoutExpiresBeforeSla() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        server.enqueue(ok(VALID_BODY).setHeadersDelay(2, TimeUnit.SECONDS));
+        client = new GithubModelsClients(meterRegistry);
+        ReflectionTestUtils.setField(client, "modelsUrl", server.url("/v1/chat/completions").toString());
+        ReflectionTestUtils.setField(client, "modelId", "gpt-test");
+        ReflectionTestUtils.setField(client, "githubToken", "token");
+        ReflectionTestUtils.setField(client, "readTimeout", Duration.ofMillis(200));
+        client.init();
+
+        assertEquals(SummaryPrompt.localSummary(sampleAgg()), client.generateSummary(sampleAgg()).block());
+        assertEquals(1.0, meterRegistry.get("github.models.fallback").tag("reason", "error").counter().count());
+    }
+
+    @Test
+    @DisplayName("shouldFallBackToLocalSummaryWhenUpstreamReturns500")
+    void shouldFallBackToLocalSummaryWhenUpstreamReturns500() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        server.enqueue(new MockResponse().setResponseCode(500));
+        newClientPointingTo(server.url("/v1/chat/completions").toString(), "gpt-test", "token");
+
+        String out = client.generateSummary(sampleAgg()).block();
+
+        assertEquals(SummaryPrompt.localSummary(sampleAgg()), out);
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1.0, meterRegistry.get("github.models.fallback").tag("reason", "error").counter().count());
+    }
+
+    private GithubModelsClients newBreakerClient(String url, Duration openDuration) {
+        client = new GithubModelsClients(meterRegistry);
+        ReflectionTestUtils.setField(client, "modelsUrl", url);
+        ReflectionTestUtils.setField(client, "modelId", "gpt-test");
+        ReflectionTestUtils.setField(client, "githubToken", "token");
+        ReflectionTestUtils.setField(client, "breakerWindowSize", 4);
+        ReflectionTestUtils.setField(client, "breakerMinCalls", 4);
+        ReflectionTestUtils.setField(client, "breakerOpenDuration", openDuration);
+        ReflectionTestUtils.setField(client, "breakerHalfOpenProbes", 1);
+        client.init();
+        return client;
+    }
+
+    @Test
+    @DisplayName("shouldOpenBreakerAfterRepeatedFailuresAndServeLocalSummaryWithoutCallingTheModel")
+    void shouldOpenBreakerAfterRepeatedFailures() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+        newBreakerClient(server.url("/v1/chat/completions").toString(), Duration.ofMinutes(1));
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(SummaryPrompt.localSummary(sampleAgg()), client.generateSummary(sampleAgg()).block());
+        }
+        String out = client.generateSummary(sampleAgg()).block();
+
+        assertEquals(SummaryPrompt.localSummary(sampleAgg()), out);
+        assertEquals(4, server.getRequestCount());
+        assertEquals(2.0, meterRegistry.get("github.models.breaker.state").gauge().value());
+        assertEquals(4.0, meterRegistry.get("github.models.fallback").tag("reason", "error").counter().count());
+        assertEquals(1.0, meterRegistry.get("github.models.fallback").tag("reason", "breaker_open").counter().count());
+    }
+
+    @Test
+    @DisplayName("shouldCloseBreakerWhenHalfOpenProbeSucceeds")
+    void shouldCloseBreakerWhenHalfOpenProbeSucceeds() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+        server.enqueue(ok(VALID_BODY));
+        newBreakerClient(server.url("/v1/chat/completions").toString(), Duration.ofMillis(200));
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(SummaryPrompt.localSummary(sampleAgg()), client.generateSummary(sampleAgg()).block());
+        }
+        Thread.sleep(300);
+
+        assertEquals("Resumen generado por el modelo.", client.generateSummary(sampleAgg()).block());
+        assertEquals(0.0, meterRegistry.get("github.models.breaker.state").gauge().value());
+        assertEquals(1.0, meterRegistry.get("github.models.breaker.transitions").tag("to", "half_open").counter().count());
+        assertEquals(1.0, meterRegistry.get("github.models.breaker.transitions").tag("to", "closed").counter().count());
+    }
+
+    @Test
+    @DisplayName("shouldHedgeSlowCallAndReturnTheFirstResponse")
+    void shouldHedgeSlowCall() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        server.enqueue(ok(VALID_BODY).setHeadersDelay(1, TimeUnit.SECONDS));
+        server.enqueue(ok("{ \"choices\": [ { \"message\": { \"content\": \"Resumen del hedge.\" } } ] }"));
+        client = new GithubModelsClients(meterRegistry);
+        ReflectionTestUtils.setField(client, "modelsUrl", server.url("/v1/chat/completions").toString());
+        ReflectionTestUtils.setField(client, "modelId", "gpt-test");
+        ReflectionTestUtils.setField(client, "githubToken", "token");
+        ReflectionTestUtils.setField(client, "hedgeInitialDelay", Duration.ofMillis(100));
+        client.init();
+
+        long start = System.nanoTime();
+        String out = client.generateSummary(sampleAgg()).block();
+
+        assertEquals("Resumen del hedge.", out);
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 900);
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1.0, meterRegistry.get("github.models.hedges").tag("result", "fired").counter().count());
+        assertEquals(1.0, meterRegistry.get("github.models.hedges").tag("result", "won").counter().count());
+    }
+
+    @Test
+    @DisplayName("shouldWaitForTheHedgeWhenThePrimaryFailsWhileItIsInFlight")
+    void shouldWaitForHedgeWhenPrimaryFailsAfterItFired() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        server.enqueue(new MockResponse().setResponseCode(500).setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(ok("{ \"choices\": [ { \"message\": { \"content\": \"Resumen del hedge.\" } } ] }")
+                .setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        client = new GithubModelsClients(meterRegistry);
+        ReflectionTestUtils.setField(client, "modelsUrl", server.url("/v1/chat/completions").toString());
+        ReflectionTestUtils.setField(client, "modelId", "gpt-test");
+        ReflectionTestUtils.setField(client, "githubToken", "token");
+        ReflectionTestUtils.setField(client, "hedgeInitialDelay", Duration.ofMillis(100));
+        client.init();
+
+        assertEquals("Resumen del hedge.", client.generateSummary(sampleAgg()).block());
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1.0, meterRegistry.get("github.models.hedges").tag("result", "won").counter().count());
+    }
+
+    @Test
+    @DisplayName("shouldUseObservedP99AsHedgeDelayOnceThereAreEnoughSamples")
+    void shouldUseObservedP99AsHedgeDelay() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(ok(VALID_BODY).setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        }
+        client = new GithubModelsClients(meterRegistry);
+        ReflectionTestUtils.setField(client, "modelsUrl", server.url("/v1/chat/completions").toString());
+        ReflectionTestUtils.setField(client, "modelId", "gpt-test");
+        ReflectionTestUtils.setField(client, "githubToken", "token");
+        ReflectionTestUtils.setField(client, "hedgeMinSamples", 3L);
+        client.init();
+
+        assertEquals(Duration.ofSeconds(2), client.hedgeDelay());
+        for (int i = 0; i < 3; i++) {
+            client.generateSummary(new SalesAggregates(i + 1, 10.0, "SKU-" + i, "Surco")).block();
+        }
+
+        Duration delay = client.hedgeDelay();
+        assertTrue(delay.toMillis() >= 250 && delay.toMillis() < 2000, "p99 observado: " + delay);
     }
 }
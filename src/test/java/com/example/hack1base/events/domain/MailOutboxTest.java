@@ -0,0 +1,188 @@
+package com.example.hack1base.events.domain;
+
+import com.example.hack1base.Exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailOutboxTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FakeSmtpServer server;
+    private JavaMailSenderImpl mailSender;
+    private MailOutbox outbox;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeSmtpServer();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.port());
+        mailSender.getJavaMailProperties().setProperty("mail.smtp.auth", "false");
+        outbox = new MailOutbox(mailSender, meterRegistry);
+        ReflectionTestUtils.setField(outbox, "backoff", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(outbox, "maxBackoff", Duration.ofMillis(50));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        outbox.stop();
+        server.close();
+    }
+
+    private MimeMessage message(String... to) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+        helper.setFrom("no-reply@oreo.com");
+        helper.setTo(to);
+        helper.setSubject("Reporte Semanal Oreo");
+        helper.setText("<p>resumen</p>", true);
+        return message;
+    }
+
+    private MailDelivery await(CompletableFuture<MailDelivery> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("should send a fan-out of messages over a single kept-alive SMTP connection")
+    void shouldReuseConnectionAcrossBatches() throws Exception {
+        ReflectionTestUtils.setField(outbox, "connections", 1);
+        outbox.start();
+
+        List<CompletableFuture<MailDelivery>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(outbox.submit(message("manager" + i + "@corp.com")));
+        }
+        for (CompletableFuture<MailDelivery> future : futures) {
+            assertTrue(await(future).delivered());
+        }
+
+        assertEquals(20, server.received().size());
+        assertEquals(1, server.connections());
+        assertEquals(1.0, meterRegistry.get("mail.pool.connections").counter().count());
+        assertEquals(20.0, meterRegistry.get("mail.pool.recipients").tag("status", "sent").counter().count());
+    }
+
+    @Test
+    @DisplayName("should never open more SMTP connections than configured")
+    void shouldBoundConnectionCount() throws Exception {
+        ReflectionTestUtils.setField(outbox, "connections", 3);
+        server.delayData(20);
+        outbox.start();
+
+        List<CompletableFuture<MailDelivery>> futures = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            futures.add(outbox.submit(message("manager" + i + "@corp.com")));
+        }
+        for (CompletableFuture<MailDelivery> future : futures) {
+            assertTrue(await(future).delivered());
+        }
+
+        assertEquals(30, server.received().size());
+        assertTrue(server.connections() <= 3, "conexiones abiertas: " + server.connections());
+    }
+
+    @Test
+    @DisplayName("should report status per recipient and still deliver to the accepted ones")
+    void shouldReportPerRecipientStatus() throws Exception {
+        server.reject("nobody@corp.com");
+        outbox.start();
+
+        MailDelivery delivery = await(outbox.submit(message("boss@corp.com", "nobody@corp.com")));
+
+        assertFalse(delivery.delivered());
+        assertEquals(MailDelivery.RecipientStatus.SENT, delivery.recipients().get("boss@corp.com"));
+        assertEquals(MailDelivery.RecipientStatus.REJECTED, delivery.recipients().get("nobody@corp.com"));
+        assertEquals(1, delivery.attempts());
+        assertEquals(List.of("boss@corp.com"), server.received().get(0).recipients());
+    }
+
+    @Test
+    @DisplayName("should drop a message cancelled before it was handed to SMTP")
+    void shouldDropMessageCancelledBeforeSending() throws Exception {
+        ReflectionTestUtils.setField(outbox, "connections", 1);
+        ReflectionTestUtils.setField(outbox, "batchSize", 1);
+        server.delayData(300);
+        outbox.start();
+
+        CompletableFuture<MailDelivery> first = outbox.submit(message("boss@corp.com"));
+        CompletableFuture<MailDelivery> second = outbox.submit(message("manager@corp.com"));
+
+        assertTrue(second.cancel(false));
+        assertTrue(await(first).delivered());
+        Thread.sleep(100);
+        assertEquals(1, server.received().size());
+        assertEquals(0, outbox.queued());
+    }
+
+    @Test
+    @DisplayName("should refuse to cancel a message that is already being sent")
+    void shouldNotCancelMessageInFlight() throws Exception {
+        ReflectionTestUtils.setField(outbox, "connections", 1);
+        server.delayData(300);
+        outbox.start();
+
+        CompletableFuture<MailDelivery> inFlight = outbox.submit(message("boss@corp.com"));
+        Thread.sleep(100);
+
+        assertFalse(inFlight.cancel(false));
+        assertTrue(await(inFlight).delivered());
+        assertEquals(1, server.received().size());
+    }
+
+    @Test
+    @DisplayName("should reconnect and retry with backoff after a dropped connection")
+    void shouldRetryAfterTransientFailure() throws Exception {
+        ReflectionTestUtils.setField(outbox, "maxAttempts", 3);
+        server.failNextData(2);
+        outbox.start();
+
+        MailDelivery delivery = await(outbox.submit(message("boss@corp.com")));
+
+        assertTrue(delivery.delivered());
+        assertEquals(3, delivery.attempts());
+        assertEquals(1, server.received().size());
+        assertEquals(3, server.connections());
+    }
+
+    @Test
+    @DisplayName("should mark recipients FAILED once attempts are exhausted")
+    void shouldFailAfterMaxAttempts() throws Exception {
+        ReflectionTestUtils.setField(outbox, "maxAttempts", 2);
+        server.failNextData(5);
+        outbox.start();
+
+        MailDelivery delivery = await(outbox.submit(message("boss@corp.com")));
+
+        assertFalse(delivery.delivered());
+        assertEquals(MailDelivery.RecipientStatus.FAILED, delivery.recipients().get("boss@corp.com"));
+        assertEquals(2, delivery.attempts());
+        assertNotNull(delivery.lastError());
+        assertTrue(server.received().isEmpty());
+    }
+
+    @Test
+    @DisplayName("should refuse messages when the outbox is not running")
+    void shouldRejectWhenStopped() throws Exception {
+        CompletableFuture<MailDelivery> future = outbox.submit(message("boss@corp.com"));
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(ServiceUnavailableException.class, ex.getCause());
+    }
+}
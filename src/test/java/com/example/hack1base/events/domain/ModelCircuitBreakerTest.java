@@ -0,0 +1,147 @@
+package com.example.hack1base.events.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelCircuitBreakerTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-09-01T10:00:00Z"));
+    private final List<ModelCircuitBreaker.State> transitions = new ArrayList<>();
+    private final ModelCircuitBreaker breaker =
+            new ModelCircuitBreaker(4, 4, 0.5, Duration.ofSeconds(30), 2, clock, transitions::add);
+
+    private void call(boolean success) {
+        assertTrue(breaker.tryAcquire());
+        if (success) {
+            breaker.onSuccess();
+        } else {
+            breaker.onFailure();
+        }
+    }
+
+    @Test
+    @DisplayName("should stay closed until the window has the minimum number of calls")
+    void shouldWaitForMinimumCalls() {
+        call(false);
+        call(false);
+        call(false);
+
+        assertEquals(ModelCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    @DisplayName("should open when the failure rate reaches the threshold and reject until openDuration")
+    void shouldOpenOnFailureRate() {
+        call(true);
+        call(false);
+        call(true);
+        call(false);
+
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        clock.advance(Duration.ofSeconds(29));
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("should forget old outcomes as the window slides")
+    void shouldSlideWindow() {
+        call(false);
+        call(true);
+        call(true);
+        call(true);
+        call(false);   // sale el primer fallo: 1 de 4
+
+        assertEquals(ModelCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    @DisplayName("should allow only the configured probes in half-open and close when all succeed")
+    void shouldCloseAfterSuccessfulProbes() {
+        openBreaker();
+        clock.advance(Duration.ofSeconds(30));
+
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(ModelCircuitBreaker.State.HALF_OPEN, breaker.state());
+
+        breaker.onSuccess();
+        breaker.onSuccess();
+
+        assertEquals(ModelCircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(List.of(ModelCircuitBreaker.State.OPEN, ModelCircuitBreaker.State.HALF_OPEN,
+                ModelCircuitBreaker.State.CLOSED), transitions);
+    }
+
+    @Test
+    @DisplayName("should reopen when a half-open probe fails")
+    void shouldReopenOnProbeFailure() {
+        openBreaker();
+        clock.advance(Duration.ofSeconds(30));
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("should free the probe slot when the call never reached the model")
+    void shouldReleaseProbeOnIgnored() {
+        openBreaker();
+        clock.advance(Duration.ofSeconds(30));
+
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        breaker.onIgnored();
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(ModelCircuitBreaker.State.HALF_OPEN, breaker.state());
+    }
+
+    private void openBreaker() {
+        for (int i = 0; i < 4; i++) {
+            call(false);
+        }
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.hack1base.events.domain;
+
+import com.example.hack1base.salesaggregation.domain.SalesAggregates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReportCoalescer coalescer = new ReportCoalescer(meterRegistry);
+
+    private static final ReportCoalescer.Key WEEK =
+            new ReportCoalescer.Key("Miraflores", LocalDate.of(2025, 9, 1), LocalDate.of(2025, 9, 7), false);
+    private static final ReportCoalescer.Shared RESULT =
+            new ReportCoalescer.Shared(new SalesAggregates(10, 100.0, "SKU-1", "Miraflores"), "resumen");
+
+    @Test
+    @DisplayName("should run the work once for concurrent callers with the same key")
+    void shouldShareInFlightWork() {
+        Sinks.One<ReportCoalescer.Shared> pending = Sinks.one();
+        AtomicInteger runs = new AtomicInteger();
+
+        Mono<ReportCoalescer.Shared> first = coalescer.join(WEEK, () -> { runs.incrementAndGet(); return pending.asMono(); });
+        Mono<ReportCoalescer.Shared> second = coalescer.join(WEEK, () -> { runs.incrementAndGet(); return pending.asMono(); });
+        ReportCoalescer.Shared[] results = new ReportCoalescer.Shared[2];
+        first.subscribe(r -> results[0] = r);
+        second.subscribe(r -> results[1] = r);
+        pending.tryEmitValue(RESULT);
+
+        assertEquals(1, runs.get());
+        assertSame(RESULT, results[0]);
+        assertSame(RESULT, results[1]);
+        assertEquals(0.5, meterRegistry.get("reports.coalesce.ratio").gauge().value());
+        assertEquals(0.0, meterRegistry.get("reports.coalesce.inflight").gauge().value());
+    }
+
+    @Test
+    @DisplayName("should run again once the previous work finished instead of caching it")
+    void shouldNotCacheFinishedWork() {
+        AtomicInteger runs = new AtomicInteger();
+
+        coalescer.join(WEEK, () -> { runs.incrementAndGet(); return Mono.just(RESULT); }).block();
+        coalescer.join(WEEK, () -> { runs.incrementAndGet(); return Mono.just(RESULT); }).block();
+
+        assertEquals(2, runs.get());
+        assertEquals(2.0, meterRegistry.get("reports.coalesce").tag("role", "leader").counter().count());
+    }
+
+    @Test
+    @DisplayName("should not share work between premium and standard reports of the same window")
+    void shouldKeepPremiumSeparate() {
+        Sinks.One<ReportCoalescer.Shared> pending = Sinks.one();
+        AtomicInteger runs = new AtomicInteger();
+        ReportCoalescer.Key premium = new ReportCoalescer.Key(WEEK.branch(), WEEK.from(), WEEK.to(), true);
+
+        coalescer.join(WEEK, () -> { runs.incrementAndGet(); return pending.asMono(); }).subscribe();
+        coalescer.join(premium, () -> { runs.incrementAndGet(); return pending.asMono(); }).subscribe();
+        pending.tryEmitValue(RESULT);
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    @DisplayName("should propagate the shared failure to every waiting caller and release the key")
+    void shouldPropagateSharedFailure() {
+        Sinks.One<ReportCoalescer.Shared> pending = Sinks.one();
+        Throwable[] errors = new Throwable[2];
+
+        coalescer.join(WEEK, pending::asMono).subscribe(r -> { }, e -> errors[0] = e);
+        coalescer.join(WEEK, pending::asMono).subscribe(r -> { }, e -> errors[1] = e);
+        pending.tryEmitError(new RuntimeException("DB down"));
+
+        assertEquals("DB down", errors[0].getMessage());
+        assertEquals("DB down", errors[1].getMessage());
+        assertEquals(0.0, meterRegistry.get("reports.coalesce.inflight").gauge().value());
+    }
+}
@@ -1,15 +1,28 @@
 package com.example.hack1base.events.domain;
 
+import com.example.hack1base.Exceptions.EmailDeliveryUnknownException;
+import com.example.hack1base.ReportRequest.domain.ReportRequestService;
+import com.example.hack1base.ReportRequest.domain.ReportStatus;
 import com.example.hack1base.events.dto.SummaryRequest;
 import com.example.hack1base.salesaggregation.domain.SalesAggregates;
 import com.example.hack1base.salesaggregation.domain.SalesAggregationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.LocalDate;
 
@@ -29,18 +42,28 @@ class ReportEventListenerTest {
     @Mock
     private EmailService emailService;
 
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private AsyncTaskExecutor reportExecutor;
+
+    @Mock
+    private ReportRequestService reportRequestService;
+
     @InjectMocks
     private ReportEventListener listener;
 
+    // lenient: los caminos de error no llegan a leer todos los campos (p. ej. getEmailTo)
     private ReportRequestedEvent mockEvent(LocalDate from, LocalDate to, String branch, String emailTo) {
         SummaryRequest req = mock(SummaryRequest.class);
-        when(req.getFrom()).thenReturn(from);
-        when(req.getTo()).thenReturn(to);
-        when(req.getBranch()).thenReturn(branch);
-        when(req.getEmailTo()).thenReturn(emailTo);
+        lenient().when(req.getFrom()).thenReturn(from);
+        lenient().when(req.getTo()).thenReturn(to);
+        lenient().when(req.getBranch()).thenReturn(branch);
+        lenient().when(req.getEmailTo()).thenReturn(emailTo);
 
         ReportRequestedEvent event = mock(ReportRequestedEvent.class);
-        when(event.getRequest()).thenReturn(req);
+        lenient().when(event.getRequest()).thenReturn(req);
         return event;
     }
 
@@ -56,7 +79,7 @@ class ReportEventListenerTest {
 
         SalesAggregates aggregates = new SalesAggregates(40, 1234.50, "SKU-1", "Miraflores");
         when(aggregationService.calculateAggregates(from, to, branch)).thenReturn(aggregates);
-        when(githubModelsClient.generateSummary(aggregates)).thenReturn("Resumen breve en español.");
+        when(githubModelsClient.generateSummary(aggregates)).thenReturn(Mono.just("Resumen breve en español."));
 
 
         assertDoesNotThrow(() -> listener.handleReportRequest(event));
@@ -71,8 +94,8 @@ class ReportEventListenerTest {
         ArgumentCaptor<SalesAggregates> aggCap = ArgumentCaptor.forClass(SalesAggregates.class);
         ArgumentCaptor<String> summaryCap = ArgumentCaptor.forClass(String.class);
 
-        verify(emailService).sendSummaryEmail(
-                toCap.capture(), fromCap.capture(), toCapDate.capture(), aggCap.capture(), summaryCap.capture()
+        verify(emailService).deliverSummaryEmail(
+                any(), toCap.capture(), fromCap.capture(), toCapDate.capture(), aggCap.capture(), summaryCap.capture(), any()
         );
 
         org.junit.jupiter.api.Assertions.assertAll(
@@ -100,7 +123,9 @@ class ReportEventListenerTest {
         assertDoesNotThrow(() -> listener.handleReportRequest(event));
 
         verifyNoInteractions(githubModelsClient);
-        verify(emailService, never()).sendSummaryEmail(anyString(), any(), any(), any(), anyString());
+        verify(emailService, never()).deliverSummaryEmail(any(), anyString(), any(), any(), any(), anyString(), any());
+        org.junit.jupiter.api.Assertions.assertEquals(1,
+                meterRegistry.get("reports.processing").tag("outcome", "failure").timer().count());
     }
 
     @Test
@@ -119,7 +144,7 @@ class ReportEventListenerTest {
         assertDoesNotThrow(() -> listener.handleReportRequest(event));
 
 
-        verify(emailService, never()).sendSummaryEmail(anyString(), any(), any(), any(), anyString());
+        verify(emailService, never()).deliverSummaryEmail(any(), anyString(), any(), any(), any(), anyString(), any());
     }
 
     @Test
@@ -132,16 +157,260 @@ class ReportEventListenerTest {
 
         SalesAggregates aggregates = new SalesAggregates(5, 50.0, "SKU-2", "Mira");
         when(aggregationService.calculateAggregates(from, to, "Mira")).thenReturn(aggregates);
-        when(githubModelsClient.generateSummary(aggregates)).thenReturn("OK resumen");
+        when(githubModelsClient.generateSummary(aggregates)).thenReturn(Mono.just("OK resumen"));
         doThrow(new RuntimeException("SMTP error"))
-                .when(emailService).sendSummaryEmail(anyString(), any(), any(), any(), anyString());
+                .when(emailService).deliverSummaryEmail(any(), anyString(), any(), any(), any(), anyString(), any());
 
 
         assertDoesNotThrow(() -> listener.handleReportRequest(event));
 
 
         verify(emailService, times(1))
-                .sendSummaryEmail(eq("mail@corp.com"), eq(from), eq(to), eq(aggregates), eq("OK resumen"));
+                .deliverSummaryEmail(any(), eq("mail@corp.com"), eq(from), eq(to), eq(aggregates), eq("OK resumen"), any());
+    }
+
+    @Test
+    @DisplayName("shouldRecordLatencyPerStageWhenPipelineSucceeds")
+    void shouldRecordLatencyPerStageWhenPipelineSucceeds() {
+        LocalDate from = LocalDate.of(2025, 5, 1);
+        LocalDate to = LocalDate.of(2025, 5, 7);
+        ReportRequestedEvent event = mockEvent(from, to, "Surco", "dest@corp.com");
+        SalesAggregates aggregates = new SalesAggregates(7, 70.0, "SKU-7", "Surco");
+        when(aggregationService.calculateAggregates(from, to, "Surco")).thenReturn(aggregates);
+        when(githubModelsClient.generateSummary(aggregates)).thenReturn(Mono.just("ok"));
+
+        listener.handleReportRequest(event);
+
+        for (String stage : new String[]{"aggregation", "summary", "email"}) {
+            org.junit.jupiter.api.Assertions.assertEquals(1,
+                    meterRegistry.get("reports.stage").tag("stage", stage).tag("outcome", "success").timer().count());
+        }
+        org.junit.jupiter.api.Assertions.assertEquals(1,
+                meterRegistry.get("reports.processing").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("shouldFailSummaryStageOnTimeoutAndSkipEmail")
+    void shouldFailSummaryStageOnTimeoutAndSkipEmail() {
+        LocalDate from = LocalDate.of(2025, 6, 1);
+        LocalDate to = LocalDate.of(2025, 6, 7);
+        ReportRequestedEvent event = mockEvent(from, to, "Surco", "dest@corp.com");
+        SalesAggregates aggregates = new SalesAggregates(1, 1.0, "SKU-1", "Surco");
+        when(aggregationService.calculateAggregates(from, to, "Surco")).thenReturn(aggregates);
+        when(githubModelsClient.generateSummary(aggregates)).thenReturn(Mono.never());
+        ReflectionTestUtils.setField(listener, "summaryTimeout", java.time.Duration.ofMillis(50));
+
+        assertDoesNotThrow(() -> listener.handleReportRequest(event));
+
+        verify(emailService, never()).deliverSummaryEmail(any(), anyString(), any(), any(), any(), anyString(), any());
+        org.junit.jupiter.api.Assertions.assertEquals(1,
+                meterRegistry.get("reports.stage").tag("stage", "summary").tag("outcome", "failure").timer().count());
     }
-}
 
+    @Test
+    @DisplayName("shouldReportEmailTimeoutAsUnknownDeliveryInsteadOfRetryableFailure")
+    void shouldReportEmailTimeoutAsUnknownDeliveryInsteadOfRetryableFailure() {
+        LocalDate from = LocalDate.of(2025, 6, 1);
+        LocalDate to = LocalDate.of(2025, 6, 7);
+        ReportRequestedEvent event = mockEvent(from, to, "Surco", "dest@corp.com");
+        SalesAggregates aggregates = new SalesAggregates(1, 1.0, "SKU-1", "Surco");
+        when(aggregationService.calculateAggregates(from, to, "Surco")).thenReturn(aggregates);
+        when(githubModelsClient.generateSummary(aggregates)).thenReturn(Mono.just("ok"));
+        doAnswer(inv -> {
+            Thread.sleep(200);
+            return null;
+        }).when(emailService).deliverSummaryEmail(any(), anyString(), any(), any(), any(), anyString(), any());
+        ReflectionTestUtils.setField(listener, "emailTimeout", java.time.Duration.ofMillis(20));
+
+        org.junit.jupiter.api.Assertions.assertThrows(EmailDeliveryUnknownException.class,
+                () -> listener.execute(event, Schedulers.immediate()).block());
+    }
+
+    @Test
+    @DisplayName("shouldRunAggregationInReadOnlyTransactionCarryingTheStageTimeout")
+    void shouldRunAggregationInReadOnlyTransactionCarryingTheStageTimeout() {
+        LocalDate from = LocalDate.of(2025, 6, 1);
+        LocalDate to = LocalDate.of(2025, 6, 7);
+        ReportRequestedEvent event = mockEvent(from, to, "Surco", "dest@corp.com");
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        listener.setTransactionManager(transactionManager);
+        SalesAggregates aggregates = new SalesAggregates(1, 1.0, "SKU-1", "Surco");
+        when(aggregationService.calculateAggregates(from, to, "Surco")).thenReturn(aggregates);
+        when(githubModelsClient.generateSummary(aggregates)).thenReturn(Mono.just("ok"));
+
+        listener.handleReportRequest(event);
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        org.junit.jupiter.api.Assertions.assertEquals(30, definition.getValue().getTimeout());
+        org.junit.jupiter.api.Assertions.assertTrue(definition.getValue().isReadOnly());
+    }
+
+    @Test
+    @DisplayName("shouldDispatchToReportExecutorInBlockingMode")
+    void shouldDispatchToReportExecutorInBlockingMode() {
+        ReportRequestedEvent event = mock(ReportRequestedEvent.class);
+
+        listener.onReportRequested(event);
+
+        verify(reportExecutor).execute(any(Runnable.class));
+        verifyNoInteractions(aggregationService, githubModelsClient, emailService);
+    }
+
+    @Test
+    @DisplayName("shouldRejectInReactiveModeWhenMaxInFlightReached")
+    void shouldRejectInReactiveModeWhenMaxInFlightReached() {
+        ReflectionTestUtils.setField(listener, "pipelineMode", "reactive");
+        listener.setReactiveMaxInFlight(1);
+        ReportRequestedEvent event = mockEvent(LocalDate.of(2025, 7, 1), LocalDate.of(2025, 7, 7), "Surco", "dest@corp.com");
+        when(aggregationService.calculateAggregates(any(), any(), any())).thenAnswer(inv -> {
+            Thread.sleep(500);
+            return new SalesAggregates(1, 1.0, "SKU-1", "Surco");
+        });
+        when(githubModelsClient.generateSummary(any())).thenReturn(Mono.just("ok"));
+
+        listener.onReportRequested(event);
+
+        org.junit.jupiter.api.Assertions.assertThrows(TaskRejectedException.class,
+                () -> listener.onReportRequested(event));
+        verifyNoInteractions(reportExecutor);
+        verify(emailService, timeout(5000)).deliverSummaryEmail(any(), anyString(), any(), any(), any(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("shouldMarkRequestStartedAndCompletedWhenPipelineSucceeds")
+    void shouldMarkRequestStartedAndCompletedWhenPipelineSucceeds() {
+        LocalDate from = LocalDate.of(2025, 8, 1);
+        LocalDate to = LocalDate.of(2025, 8, 7);
+        ReportRequestedEvent event = mockEvent(from, to, "Surco", "dest@corp.com");
+        when(event.getRequestId()).thenReturn("req-1");
+        SalesAggregates aggregates = new SalesAggregates(3, 30.0, "SKU-3", "Surco");
+        when(aggregationService.calculateAggregates(from, to, "Surco")).thenReturn(aggregates);
+        when(githubModelsClient.generateSummary(aggregates)).thenReturn(Mono.just("ok"));
+
+        listener.handleReportRequest(event);
+
+        var inOrder = inOrder(reportRequestService, aggregationService, emailService);
+        inOrder.verify(reportRequestService).markStarted("req-1");
+        inOrder.verify(aggregationService).calculateAggregates(from, to, "Surco");
+        inOrder.verify(emailService).deliverSummaryEmail(any(), anyString(), any(), any(), any(), anyString(), any());
+        inOrder.verify(reportRequestService).markFinished(eq("req-1"), eq(ReportStatus.COMPLETED), anyString());
+    }
+
+    @Test
+    @DisplayName("shouldMarkRequestFailedWithCauseWhenPipelineFails")
+    void shouldMarkRequestFailedWithCauseWhenPipelineFails() {
+        LocalDate from = LocalDate.of(2025, 8, 1);
+        LocalDate to = LocalDate.of(2025, 8, 7);
+        ReportRequestedEvent event = mockEvent(from, to, "Surco", "dest@corp.com");
+        when(event.getRequestId()).thenReturn("req-2");
+        when(aggregationService.calculateAggregates(from, to, "Surco")).thenThrow(new RuntimeException("DB down"));
+
+        assertDoesNotThrow(() -> listener.handleReportRequest(event));
+
+        verify(reportRequestService).markFinished("req-2", ReportStatus.FAILED, "DB down");
+        verify(reportRequestService, never()).markFinished(eq("req-2"), eq(ReportStatus.COMPLETED), any());
+    }
+
+    @Test
+    @DisplayName("shouldMarkRequestCompletedWhenItFailsAfterTheEmailWasQueued")
+    void shouldMarkRequestCompletedWhenItFailsAfterTheEmailWasQueued() {
+        LocalDate from = LocalDate.of(2025, 8, 1);
+        LocalDate to = LocalDate.of(2025, 8, 7);
+        ReportRequestedEvent event = mockEvent(from, to, "Surco", "dest@corp.com");
+        when(event.getRequestId()).thenReturn("req-4");
+        SalesAggregates aggregates = new SalesAggregates(1, 1.0, "SKU-1", "Surco");
+        when(aggregationService.calculateAggregates(from, to, "Surco")).thenReturn(aggregates);
+        when(githubModelsClient.generateSummary(aggregates)).thenReturn(Mono.just("ok"));
+        // El insert en email_outbox confirmó, pero registrar COMPLETED falla la primera vez
+        doThrow(new RuntimeException("DB blip")).doNothing()
+                .when(reportRequestService).markFinished(eq("req-4"), eq(ReportStatus.COMPLETED), anyString());
+        doThrow(new RuntimeException("stage timeout"))
+                .when(emailService).deliverSummaryEmail(any(), anyString(), any(), any(), any(), anyString(), any());
+        when(emailService.summaryQueued("req-4")).thenReturn(true);
+        when(emailService.queuesSummaries()).thenReturn(true);
+
+        assertDoesNotThrow(() -> listener.handleReportRequest(event));
+
+        verify(reportRequestService).markFinished("req-4", ReportStatus.COMPLETED, "Resumen encolado para dest@corp.com");
+        verify(reportRequestService, never()).markFinished(eq("req-4"), eq(ReportStatus.FAILED), any());
+    }
+
+    @Test
+    @DisplayName("shouldStillSendEmailWhenStatusTrackingFails")
+    void shouldStillSendEmailWhenStatusTrackingFails() {
+        LocalDate from = LocalDate.of(2025, 8, 1);
+        LocalDate to = LocalDate.of(2025, 8, 7);
+        ReportRequestedEvent event = mockEvent(from, to, "Surco", "dest@corp.com");
+        when(event.getRequestId()).thenReturn("req-3");
+        doThrow(new RuntimeException("DB down")).when(reportRequestService).markStarted("req-3");
+        SalesAggregates aggregates = new SalesAggregates(3, 30.0, "SKU-3", "Surco");
+        when(aggregationService.calculateAggregates(from, to, "Surco")).thenReturn(aggregates);
+        when(githubModelsClient.generateSummary(aggregates)).thenReturn(Mono.just("ok"));
+
+        assertDoesNotThrow(() -> listener.handleReportRequest(event));
+
+        verify(emailService).deliverSummaryEmail(any(), anyString(), any(), any(), any(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("shouldPropagateErrorFromExecuteWithoutTracking")
+    void shouldPropagateErrorFromExecuteWithoutTracking() {
+        LocalDate from = LocalDate.of(2025, 8, 1);
+        LocalDate to = LocalDate.of(2025, 8, 7);
+        ReportRequestedEvent event = mockEvent(from, to, "Surco", "dest@corp.com");
+        when(aggregationService.calculateAggregates(from, to, "Surco")).thenThrow(new RuntimeException("DB down"));
+
+        org.junit.jupiter.api.Assertions.assertThrows(RuntimeException.class,
+                () -> listener.execute(event, Schedulers.immediate()).block());
+
+        verifyNoInteractions(reportRequestService);
+    }
+
+    @Test
+    @DisplayName("shouldShareAggregationAndSummaryAcrossIdenticalConcurrentRequests")
+    void shouldShareAggregationAndSummaryAcrossIdenticalConcurrentRequests() {
+        LocalDate from = LocalDate.of(2025, 9, 1);
+        LocalDate to = LocalDate.of(2025, 9, 7);
+        ReportRequestedEvent first = mockEvent(from, to, "Miraflores", "gerente1@corp.com");
+        ReportRequestedEvent second = mockEvent(from, to, "Miraflores", "gerente2@corp.com");
+        SalesAggregates aggregates = new SalesAggregates(9, 90.0, "SKU-9", "Miraflores");
+        when(aggregationService.calculateAggregates(from, to, "Miraflores")).thenAnswer(inv -> {
+            Thread.sleep(300);
+            return aggregates;
+        });
+        when(githubModelsClient.generateSummary(aggregates)).thenReturn(Mono.just("compartido"));
+
+        Mono.when(listener.execute(first, Schedulers.boundedElastic()),
+                listener.execute(second, Schedulers.boundedElastic())).block();
+
+        verify(aggregationService, times(1)).calculateAggregates(from, to, "Miraflores");
+        verify(githubModelsClient, times(1)).generateSummary(aggregates);
+        verify(emailService).deliverSummaryEmail(any(), eq("gerente1@corp.com"), eq(from), eq(to), eq(aggregates), eq("compartido"), any());
+        verify(emailService).deliverSummaryEmail(any(), eq("gerente2@corp.com"), eq(from), eq(to), eq(aggregates), eq("compartido"), any());
+        org.junit.jupiter.api.Assertions.assertEquals(1.0,
+                meterRegistry.get("reports.coalesce").tag("role", "follower").counter().count());
+    }
+
+    @Test
+    @DisplayName("shouldRunEachRequestOnItsOwnWhenCoalescingIsDisabled")
+    void shouldRunEachRequestOnItsOwnWhenCoalescingIsDisabled() {
+        ReflectionTestUtils.setField(listener, "coalesce", false);
+        LocalDate from = LocalDate.of(2025, 9, 1);
+        LocalDate to = LocalDate.of(2025, 9, 7);
+        ReportRequestedEvent first = mockEvent(from, to, "Miraflores", "gerente1@corp.com");
+        ReportRequestedEvent second = mockEvent(from, to, "Miraflores", "gerente2@corp.com");
+        SalesAggregates aggregates = new SalesAggregates(9, 90.0, "SKU-9", "Miraflores");
+        when(aggregationService.calculateAggregates(from, to, "Miraflores")).thenAnswer(inv -> {
+            Thread.sleep(100);
+            return aggregates;
+        });
+        when(githubModelsClient.generateSummary(aggregates)).thenReturn(Mono.just("ok"));
+
+        Mono.when(listener.execute(first, Schedulers.boundedElastic()),
+                listener.execute(second, Schedulers.boundedElastic())).block();
+
+        verify(aggregationService, times(2)).calculateAggregates(from, to, "Miraflores");
+        verify(emailService, times(2)).deliverSummaryEmail(any(), anyString(), any(), any(), any(), anyString(), any());
+    }
+}
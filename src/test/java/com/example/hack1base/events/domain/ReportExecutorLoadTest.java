@@ -0,0 +1,73 @@
+package com.example.hack1base.events.domain;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Prueba de carga: N reportes que pasan casi todo el tiempo bloqueados en I/O (simulado con un sleep).
+// Compara cuántos quedan en vuelo a la vez y cuánto tarda el lote en modo platform vs virtual.
+class ReportExecutorLoadTest {
+
+    private static final int REPORTS = 400;
+    private static final long IO_MILLIS = 200;
+
+    private final ReportExecutorConfig config = new ReportExecutorConfig();
+
+    private record LoadResult(int peakConcurrency, long elapsedMillis) { }
+
+    private LoadResult run(AsyncTaskExecutor executor) throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(REPORTS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < REPORTS; i++) {
+            executor.execute(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(IO_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS), "el lote no terminó");
+        return new LoadResult(peak.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Test
+    @DisplayName("virtual mode keeps every report in flight while the platform pool caps at its size")
+    void virtualModeSustainsMoreConcurrentReports() throws Exception {
+        AsyncTaskExecutor platform = config.reportExecutor("platform", 16, REPORTS, 0, new SimpleMeterRegistry());
+        AsyncTaskExecutor virtual = config.reportExecutor("virtual", 0, 0, REPORTS, new SimpleMeterRegistry());
+
+        try {
+            LoadResult platformResult = run(platform);
+            LoadResult virtualResult = run(virtual);
+
+            // Con 16 hilos el lote necesita al menos REPORTS/16 tandas de IO_MILLIS
+            long platformFloor = (REPORTS / 16) * IO_MILLIS;
+            assertTrue(platformResult.peakConcurrency() <= 16,
+                    "platform peak=" + platformResult.peakConcurrency());
+            assertTrue(platformResult.elapsedMillis() >= platformFloor,
+                    "platform elapsed=" + platformResult.elapsedMillis() + "ms");
+            assertTrue(virtualResult.peakConcurrency() > 16 * 4,
+                    "virtual peak=" + virtualResult.peakConcurrency());
+            assertTrue(virtualResult.elapsedMillis() < platformFloor / 2,
+                    "virtual elapsed=" + virtualResult.elapsedMillis() + "ms, platform=" + platformResult.elapsedMillis() + "ms");
+        } finally {
+            ((org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor) platform).shutdown();
+            ((BoundedVirtualThreadExecutor) virtual).close();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.hack1base.events.domain;
+
+import com.example.hack1base.Exceptions.EmailDeliveryUnknownException;
+import com.example.hack1base.ReportRequest.domain.ReportJobQueue;
+import com.example.hack1base.ReportRequest.domain.ReportRequest;
+import com.example.hack1base.ReportRequest.domain.ReportStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReportQueueWorkerTest {
+
+    private final ReportJobQueue jobQueue = mock(ReportJobQueue.class);
+    private final ReportEventListener pipeline = mock(ReportEventListener.class);
+    private final ReportQueueWorker worker = new ReportQueueWorker(jobQueue, pipeline);
+
+    private static ReportRequest job() {
+        return ReportRequest.builder()
+                .id("job-1")
+                .branch("Surco")
+                .fromDate(LocalDate.of(2025, 9, 1))
+                .toDate(LocalDate.of(2025, 9, 7))
+                .emailTo("dest@corp.com")
+                .status(ReportStatus.PROCESSING)
+                .requestedAt(LocalDateTime.now())
+                .premium(true)
+                .build();
+    }
+
+    @Test
+    @DisplayName("should run the claimed job through the pipeline and complete it")
+    void shouldRunClaimedJobAndComplete() {
+        when(jobQueue.claimNext("w1")).thenReturn(Optional.of(job()));
+        when(pipeline.execute(any(), any())).thenReturn(Mono.empty());
+        when(pipeline.completionMessage("dest@corp.com")).thenReturn("Resumen encolado para dest@corp.com");
+
+        assertTrue(worker.pollOnce("w1"));
+
+        ArgumentCaptor<ReportRequestedEvent> event = ArgumentCaptor.forClass(ReportRequestedEvent.class);
+        verify(pipeline).execute(event.capture(), any());
+        assertEquals("job-1", event.getValue().getRequestId());
+        assertEquals("Surco", event.getValue().getRequest().getBranch());
+        assertTrue(event.getValue().isPremium());
+        verify(jobQueue).complete("job-1", "w1", "Resumen encolado para dest@corp.com");
+        verify(jobQueue, never()).fail(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("should hand a failed job back to the queue for retry")
+    void shouldFailJobWhenPipelineErrors() {
+        when(jobQueue.claimNext("w1")).thenReturn(Optional.of(job()));
+        when(pipeline.execute(any(), any())).thenReturn(Mono.error(new RuntimeException("LLM down")));
+
+        assertTrue(worker.pollOnce("w1"));
+
+        verify(jobQueue).fail("job-1", "w1", "LLM down");
+        verify(jobQueue, never()).complete(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("should close the job without retry when the email outcome is unknown")
+    void shouldNotRetryWhenEmailDeliveryIsUnknown() {
+        when(jobQueue.claimNext("w1")).thenReturn(Optional.of(job()));
+        when(pipeline.execute(any(), any())).thenReturn(Mono.error(new EmailDeliveryUnknownException("sin confirmar")));
+
+        assertTrue(worker.pollOnce("w1"));
+
+        verify(jobQueue).failWithoutRetry("job-1", "w1", "sin confirmar");
+        verify(jobQueue, never()).fail(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("should complete instead of failing a job whose email is already in the outbox")
+    void shouldCompleteWhenEmailWasQueuedBeforeTheFailure() {
+        when(jobQueue.claimNext("w1")).thenReturn(Optional.of(job()));
+        when(pipeline.execute(any(), any())).thenReturn(Mono.error(new EmailDeliveryUnknownException("sin confirmar")));
+        when(pipeline.emailQueued("job-1")).thenReturn(true);
+        when(pipeline.completionMessage("dest@corp.com")).thenReturn("Resumen encolado para dest@corp.com");
+
+        assertTrue(worker.pollOnce("w1"));
+
+        verify(jobQueue).complete("job-1", "w1", "Resumen encolado para dest@corp.com");
+        verify(jobQueue, never()).failWithoutRetry(any(), any(), any());
+        verify(jobQueue, never()).fail(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("should report an empty poll when no job is ready")
+    void shouldReportEmptyPoll() {
+        when(jobQueue.claimNext("w1")).thenReturn(Optional.empty());
+
+        assertFalse(worker.pollOnce("w1"));
+        verifyNoInteractions(pipeline);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.hack1base.events.domain;
+
+import com.example.hack1base.ReportRequest.domain.ReportRequest;
+import com.example.hack1base.ReportRequest.domain.ReportRequestService;
+import com.example.hack1base.ReportRequest.domain.ReportStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReportRecoveryTest {
+
+    private final ReportRequestService reportRequestService = mock(ReportRequestService.class);
+    private final ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReportRecovery recovery = new ReportRecovery(reportRequestService, publisher, meterRegistry);
+
+    private final LocalDateTime boot = LocalDateTime.of(2025, 9, 8, 8, 0);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(recovery, "batchSize", 2);
+        ReflectionTestUtils.setField(recovery, "rejectionPause", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(recovery, "maxRejections", 2);
+        when(reportRequestService.claimForRecovery(any(), any())).thenReturn(true);
+    }
+
+    private static ReportRequest pending(String id, int minute) {
+        return ReportRequest.builder()
+                .id(id)
+                .branch("Miraflores")
+                .fromDate(LocalDate.of(2025, 9, 1))
+                .toDate(LocalDate.of(2025, 9, 7))
+                .emailTo("dest@corp.com")
+                .status(ReportStatus.PROCESSING)
+                .requestedAt(LocalDateTime.of(2025, 9, 8, 7, minute))
+                .requestedByEmail("manager@corp.com")
+                .premium(true)
+                .build();
+    }
+
+    @Test
+    @DisplayName("should requeue unfinished requests in bounded batches following the keyset cursor")
+    void shouldRequeueInBoundedBatches() {
+        ReportRequest a = pending("a", 1), b = pending("b", 2), c = pending("c", 3);
+        when(reportRequestService.findUnfinishedBatch(eq(boot), any(), any(), eq(2)))
+                .thenReturn(List.of(a, b))
+                .thenReturn(List.of(c));
+
+        int requeued = recovery.recover(boot);
+
+        assertEquals(3, requeued);
+        verify(reportRequestService).findUnfinishedBatch(boot, b.getRequestedAt(), "b", 2);
+        ArgumentCaptor<ReportRequestedEvent> events = ArgumentCaptor.forClass(ReportRequestedEvent.class);
+        verify(publisher, times(3)).publishEvent(events.capture());
+        ReportRequestedEvent first = events.getAllValues().get(0);
+        assertAll(
+                () -> assertEquals("a", first.getRequestId()),
+                () -> assertEquals("Miraflores", first.getRequest().getBranch()),
+                () -> assertEquals("manager@corp.com", first.getRequestedBy()),
+                () -> assertTrue(first.isPremium()),
+                () -> assertEquals(3.0, meterRegistry.get("reports.recovered").counter().count())
+        );
+    }
+
+    @Test
+    @DisplayName("should retry after a pause when the report pool rejects and stop after too many rejections")
+    void shouldStopWhenPoolKeepsRejecting() {
+        when(reportRequestService.findUnfinishedBatch(any(), any(), any(), anyInt()))
+                .thenReturn(List.of(pending("a", 1), pending("b", 2)));
+        doNothing()
+                .doThrow(new TaskRejectedException("full"))
+                .when(publisher).publishEvent(any(ReportRequestedEvent.class));
+
+        int requeued = recovery.recover(boot);
+
+        assertEquals(1, requeued);
+        // 1 aceptado + 3 intentos rechazados (maxRejections = 2)
+        verify(publisher, times(4)).publishEvent(any(ReportRequestedEvent.class));
+    }
+
+    @Test
+    @DisplayName("should only republish rows it claims and leave the ones another node took or still runs")
+    void shouldSkipRowsClaimedElsewhere() {
+        ReportRequest a = pending("a", 1), b = pending("b", 2);
+        when(reportRequestService.findUnfinishedBatch(any(), any(), any(), anyInt()))
+                .thenReturn(List.of(a, b))
+                .thenReturn(List.of());
+        when(reportRequestService.claimForRecovery(eq("a"), any())).thenReturn(false);
+        ReflectionTestUtils.setField(recovery, "staleAfter", Duration.ofMinutes(5));
+
+        assertEquals(1, recovery.recover(boot));
+
+        ArgumentCaptor<LocalDateTime> staleBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(reportRequestService).claimForRecovery(eq("b"), staleBefore.capture());
+        assertTrue(staleBefore.getValue().isBefore(LocalDateTime.now().minusMinutes(4)));
+        ArgumentCaptor<ReportRequestedEvent> events = ArgumentCaptor.forClass(ReportRequestedEvent.class);
+        verify(publisher).publishEvent(events.capture());
+        assertEquals("b", events.getValue().getRequestId());
+        assertEquals(1.0, meterRegistry.get("reports.recovery.skipped").counter().count());
+        // El cursor avanza igual sobre lo saltado
+        verify(reportRequestService).findUnfinishedBatch(boot, b.getRequestedAt(), "b", 2);
+    }
+
+    @Test
+    @DisplayName("should do nothing when there are no unfinished requests")
+    void shouldDoNothingWhenNothingPending() {
+        when(reportRequestService.findUnfinishedBatch(any(), any(), any(), anyInt())).thenReturn(List.of());
+
+        assertEquals(0, recovery.recover(boot));
+        verifyNoInteractions(publisher);
+    }
+}
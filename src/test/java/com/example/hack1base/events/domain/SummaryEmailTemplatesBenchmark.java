@@ -0,0 +1,100 @@
+package com.example.hack1base.events.domain;
+
+import com.example.hack1base.salesaggregation.domain.SalesAggregates;
+import com.example.hack1base.salesaggregation.domain.SkuSales;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Costo de render por email: layout standard, premium con tabla de 50 filas (con y sin gráfico)
+// y, como referencia, el text block con String.formatted que se usaba antes.
+// Ejecutar: mvn test-compile && java -cp target/test-classes:<classpath de test> \
+//   com.example.hack1base.events.domain.SummaryEmailTemplatesBenchmark  (usar -prof gc para ver asignaciones)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SummaryEmailTemplatesBenchmark {
+
+    private static final String SUMMARY = "En el periodo se vendieron 1275 unidades por un total de 2537.25. "
+            + "El SKU más vendido fue SKU-0 y la sucursal con más unidades fue Miraflores.";
+
+    private SummaryEmailTemplates templates;
+    private LocalDate from;
+    private LocalDate to;
+    private SalesAggregates standardAggregates;
+    private SalesAggregates premiumAggregates;
+    private SummaryLayout premium;
+    private SummaryLayout premiumWithCharts;
+
+    @Setup
+    public void setUp() {
+        templates = new SummaryEmailTemplates();
+        from = LocalDate.of(2025, 9, 1);
+        to = LocalDate.of(2025, 9, 7);
+        standardAggregates = new SalesAggregates(1275, 2537.25, "SKU-0", "Miraflores");
+        premiumAggregates = aggregatesWithRows(50);
+        premium = new SummaryLayout(true, false, false);
+        premiumWithCharts = new SummaryLayout(true, true, false);
+    }
+
+    @Benchmark
+    public String standardTemplate() {
+        return templates.render(from, to, standardAggregates, SUMMARY, SummaryLayout.STANDARD);
+    }
+
+    @Benchmark
+    public String premiumTemplate50Rows() {
+        return templates.render(from, to, premiumAggregates, SUMMARY, premium);
+    }
+
+    @Benchmark
+    public String premiumTemplate50RowsWithCharts() {
+        return templates.render(from, to, premiumAggregates, SUMMARY, premiumWithCharts);
+    }
+
+    @Benchmark
+    public String standardStringFormatted() {
+        return """
+                <html>
+                <body style="font-family:Arial,sans-serif;">
+                    <h2>🍪 Reporte Semanal Oreo</h2>
+                    <p>%s</p>
+                    <h4>Resumen de ventas:</h4>
+                    <ul>
+                        <li><b>Total unidades:</b> %d</li>
+                        <li><b>Ingresos totales:</b> $%.2f</li>
+                        <li><b>SKU más vendido:</b> %s</li>
+                        <li><b>Sucursal top:</b> %s</li>
+                    </ul>
+                </body>
+                </html>
+            """.formatted(SUMMARY, standardAggregates.getTotalUnits(), standardAggregates.getTotalRevenue(),
+                standardAggregates.getTopSku(), standardAggregates.getTopBranch());
+    }
+
+    // 50 SKUs con unidades decrecientes (50, 49, ... 1) y su participación sobre el total
+    private static SalesAggregates aggregatesWithRows(int rows) {
+        List<SkuSales> bySku = new ArrayList<>(rows);
+        long total = (long) rows * (rows + 1) / 2;
+        for (int i = 0; i < rows; i++) {
+            long units = rows - i;
+            bySku.add(new SkuSales("SKU-" + i, units, units * 1.99, units * 100.0 / total));
+        }
+        return new SalesAggregates((int) total, total * 1.99, "SKU-0", "Miraflores", List.copyOf(bySku));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SummaryEmailTemplatesBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
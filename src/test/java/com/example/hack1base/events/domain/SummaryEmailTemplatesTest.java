@@ -0,0 +1,119 @@
+package com.example.hack1base.events.domain;
+
+import com.example.hack1base.salesaggregation.domain.SalesAggregates;
+import com.example.hack1base.salesaggregation.domain.SkuSales;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SummaryEmailTemplatesTest {
+
+    private static final LocalDate FROM = LocalDate.of(2025, 9, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 9, 7);
+
+    private final SummaryEmailTemplates templates = new SummaryEmailTemplates();
+
+    private static SalesAggregates aggregatesWithRows(int rows) {
+        List<SkuSales> bySku = new ArrayList<>();
+        long total = 0;
+        for (int i = 0; i < rows; i++) {
+            total += rows - i;
+        }
+        for (int i = 0; i < rows; i++) {
+            long units = rows - i;
+            bySku.add(new SkuSales("SKU-" + i, units, units * 1.99, units * 100.0 / total));
+        }
+        return new SalesAggregates((int) total, total * 1.99, "SKU-0", "Miraflores", List.copyOf(bySku));
+    }
+
+    @Test
+    @DisplayName("should render the standard layout with the totals")
+    void shouldRenderStandardLayout() {
+        String html = templates.render(FROM, TO, new SalesAggregates(42, 1234.56, "SKU-ABC", "Miraflores"),
+                "Resumen semanal.", SummaryLayout.STANDARD);
+
+        assertTrue(html.contains("🍪 Reporte Semanal Oreo"));
+        assertTrue(html.contains("<p>Resumen semanal.</p>"));
+        assertTrue(html.contains("<li><b>Total unidades:</b> 42</li>"));
+        assertTrue(html.contains("<li><b>Ingresos totales:</b> $1234.56</li>"));
+        assertTrue(html.contains("<li><b>SKU más vendido:</b> SKU-ABC</li>"));
+        assertFalse(html.contains("<table"));
+    }
+
+    @Test
+    @DisplayName("should escape the model summary and show N/A when there is no top SKU")
+    void shouldEscapeSummaryAndDefaultMissingValues() {
+        String html = templates.render(FROM, TO, new SalesAggregates(0, 0.0, null, null),
+                "<script>x</script>", SummaryLayout.STANDARD);
+
+        assertTrue(html.contains("&lt;script&gt;x&lt;/script&gt;"));
+        assertTrue(html.contains("<li><b>SKU más vendido:</b> N/A</li>"));
+    }
+
+    @Test
+    @DisplayName("should render the premium table capped at the top rows and skip charts unless requested")
+    void shouldRenderPremiumTable() {
+        String html = templates.render(FROM, TO, aggregatesWithRows(60), "Premium.",
+                new SummaryLayout(true, false, false));
+
+        assertTrue(html.contains("Premium"));
+        assertTrue(html.contains("Periodo: 2025-09-01 a 2025-09-07"));
+        assertTrue(html.contains("<tr><td>SKU-0</td><td align=\"right\">60</td>"));
+        assertTrue(html.contains("<td>SKU-49</td>"));
+        assertFalse(html.contains("<td>SKU-50</td>"));
+        // El conteo es del total de SKUs, no de las filas mostradas
+        assertTrue(html.contains("Ventas por SKU (60):"));
+        assertFalse(html.contains("Participación por SKU"));
+    }
+
+    @Test
+    @DisplayName("should add the share chart when includeCharts is set")
+    void shouldRenderCharts() {
+        String html = templates.render(FROM, TO, aggregatesWithRows(2), "Premium.",
+                new SummaryLayout(true, true, false));
+
+        assertTrue(html.contains("Participación por SKU"));
+        assertTrue(html.contains("width:66.67%;"));
+        assertTrue(html.contains("width:33.33%;"));
+    }
+
+    @Test
+    @DisplayName("should say there were no sales when the premium breakdown is empty")
+    void shouldRenderEmptyPremium() {
+        String html = templates.render(FROM, TO, new SalesAggregates(0, 0.0, null, null), "Nada.",
+                new SummaryLayout(true, true, false));
+
+        assertTrue(html.contains("No se registraron ventas en el periodo."));
+        assertFalse(html.contains("<table"));
+    }
+
+    @Test
+    @DisplayName("should reuse the per-thread buffer without leaking output between renders")
+    void shouldNotLeakBetweenRenders() {
+        String premium = templates.render(FROM, TO, aggregatesWithRows(50), "Largo.", new SummaryLayout(true, true, false));
+        String standard = templates.render(FROM, TO, new SalesAggregates(1, 1.0, "A", "B"), "Corto.", SummaryLayout.STANDARD);
+
+        assertTrue(premium.length() > standard.length());
+        assertFalse(standard.contains("SKU-0"));
+        assertTrue(standard.trim().endsWith("</html>"));
+    }
+
+    @Test
+    @DisplayName("should round decimals half-up on the shortest decimal form, like %.2f")
+    void shouldRoundDecimalsLikeFormat() {
+        for (double value : new double[]{1.005, 2.675, 0.125, 1234.565, 999.995, -1.005, 0.1 + 0.2, 1e15 + 0.5}) {
+            StringBuilder out = new StringBuilder();
+            TemplateBindings.appendDecimal(out, value);
+            assertEquals(String.format(Locale.ROOT, "%.2f", value), out.toString(), "valor " + value);
+        }
+        StringBuilder zero = new StringBuilder();
+        TemplateBindings.appendDecimal(zero, -0.001);
+        assertEquals("0.00", zero.toString());
+    }
+}
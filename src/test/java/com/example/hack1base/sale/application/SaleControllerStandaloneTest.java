@@ -0,0 +1,241 @@
+package com.example.hack1base.sale.application;
+
+import com.example.hack1base.JWT.domain.Account;
+import com.example.hack1base.Sale.application.SaleController;
+import com.example.hack1base.Sale.domain.Sale;
+import com.example.hack1base.Sale.domain.SaleCursor;
+import com.example.hack1base.Sale.domain.SaleService;
+import com.example.hack1base.Sale.domain.SaleWindow;
+import com.example.hack1base.Sale.web.SaleMapper;
+import com.example.hack1base.Sale.web.SaleRequest;
+import com.example.hack1base.Sale.web.SaleResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.UnexpectedRollbackException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// MockMvc sin contexto de Spring: cubre el parseo del cuerpo, la validación por línea y el cursor
+// sin depender de los beans de seguridad (el principal se pone directo en el SecurityContext)
+@ExtendWith(MockitoExtension.class)
+class SaleControllerStandaloneTest {
+
+    private static ValidatorFactory validatorFactory;
+
+    @Mock
+    private SaleService saleService;
+
+    @Mock
+    private SaleMapper saleMapper;
+
+    private MockMvc mvc;
+
+    @BeforeAll
+    static void initValidator() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+    }
+
+    @AfterAll
+    static void closeValidator() {
+        validatorFactory.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        Validator validator = validatorFactory.getValidator();
+        SaleController controller = new SaleController(saleService, saleMapper, objectMapper, validator);
+        ReflectionTestUtils.setField(controller, "batchChunkSize", 2);
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void clearSecurity() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void authenticate(String role, String branch) {
+        Account account = new Account();
+        account.setEmail("user@corp.com");
+        account.setRole(role);
+        account.setBranch(branch);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(account, null, List.of()));
+    }
+
+    private void saveChunksAssigningIds() {
+        when(saleMapper.toSale(any(SaleRequest.class))).thenAnswer(inv -> new Sale());
+        when(saleService.createSales(anyList())).thenAnswer(inv -> {
+            List<Sale> chunk = inv.getArgument(0);
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setId("id-" + i);
+            }
+            return List.copyOf(chunk);
+        });
+    }
+
+    private static String line(String sku, int units, String branch) {
+        return "{\"sku\":\"" + sku + "\",\"units\":" + units + ",\"price\":3.5,\"branch\":\"" + branch
+                + "\",\"soldAt\":\"2025-01-10T10:00:00\"}";
+    }
+
+    @Test
+    @DisplayName("should ingest NDJSON batch returning per-line accept/reject results")
+    void shouldIngestNdjsonBatchWithPerLineResults() throws Exception {
+
+        authenticate("BRANCH", "Surco");
+        saveChunksAssigningIds();
+
+        String body = String.join("\n",
+                line("SKU-1", 2, "Surco"),
+                line("SKU-2", 0, "Surco"),
+                line("SKU-3", 1, "Miraflores"),
+                line("SKU-4", 5, "surco"));
+
+        mvc.perform(post("/api/sales/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(2)))
+                .andExpect(jsonPath("$.rejected", is(2)))
+                .andExpect(jsonPath("$.results[0].line", is(1)))
+                .andExpect(jsonPath("$.results[0].status", is("ACCEPTED")))
+                .andExpect(jsonPath("$.results[1].status", is("REJECTED")))
+                .andExpect(jsonPath("$.results[1].error", is("Units debe ser mayor que 0")))
+                .andExpect(jsonPath("$.results[2].status", is("REJECTED")))
+                .andExpect(jsonPath("$.results[3].status", is("ACCEPTED")));
+
+        // Un solo lote para las dos líneas válidas
+        verify(saleService, times(1)).createSales(anyList());
+    }
+
+    @Test
+    @DisplayName("should ingest JSON array in chunks and reject only the element with a type error")
+    void shouldIngestJsonArrayInChunksRejectingBadElement() throws Exception {
+
+        authenticate("CENTRAL", null);
+        saveChunksAssigningIds();
+
+        String body = "[" + String.join(",",
+                line("SKU-1", 1, "Surco"),
+                "{\"sku\":\"SKU-2\",\"units\":\"muchas\",\"price\":3.5,\"branch\":\"Surco\",\"soldAt\":\"2025-01-10T10:00:00\"}",
+                line("SKU-3", 2, "Lima"),
+                line("SKU-4", 3, "Lima")) + "]";
+
+        mvc.perform(post("/api/sales/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(3)))
+                .andExpect(jsonPath("$.rejected", is(1)))
+                .andExpect(jsonPath("$.results[1].line", is(2)))
+                .andExpect(jsonPath("$.results[1].error", startsWith("JSON inválido")));
+
+        // chunkSize = 2: un lote lleno y el resto al final
+        verify(saleService, times(2)).createSales(anyList());
+    }
+
+    @Test
+    @DisplayName("should keep earlier chunks accepted and reject the chunk whose commit fails")
+    void shouldRejectChunkWhenCommitFails() throws Exception {
+
+        authenticate("CENTRAL", null);
+        when(saleMapper.toSale(any(SaleRequest.class))).thenAnswer(inv -> new Sale());
+        when(saleService.createSales(anyList()))
+                .thenAnswer(inv -> {
+                    List<Sale> chunk = inv.getArgument(0);
+                    chunk.forEach(sale -> sale.setId("id-ok"));
+                    return List.copyOf(chunk);
+                })
+                .thenThrow(new UnexpectedRollbackException("Transaction silently rolled back"));
+
+        String body = "[" + String.join(",",
+                line("SKU-1", 1, "Lima"),
+                line("SKU-2", 2, "Lima"),
+                line("SKU-3", 3, "Lima")) + "]";
+
+        mvc.perform(post("/api/sales/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(2)))
+                .andExpect(jsonPath("$.rejected", is(1)))
+                .andExpect(jsonPath("$.results[0].status", is("ACCEPTED")))
+                .andExpect(jsonPath("$.results[2].line", is(3)))
+                .andExpect(jsonPath("$.results[2].status", is("REJECTED")))
+                .andExpect(jsonPath("$.results[2].error", startsWith("Error guardando el lote")));
+    }
+
+    @Test
+    @DisplayName("should use keyset pagination when a cursor is given and return the next cursor")
+    void shouldUseKeysetPaginationWhenCursorGiven() throws Exception {
+
+        authenticate("CENTRAL", null);
+
+        SaleCursor after = new SaleCursor(LocalDateTime.of(2025, 5, 10, 8, 0), "id-9");
+        SaleCursor next = new SaleCursor(LocalDateTime.of(2025, 5, 9, 8, 0), "id-8");
+        Sale s = new Sale();
+        s.setId("id-8");
+        when(saleService.scrollSales(isNull(), isNull(), isNull(), eq(after), eq(1), eq(false)))
+                .thenReturn(new SaleWindow(List.of(s), next, null));
+        when(saleMapper.toResponse(eq(s))).thenReturn(new SaleResponse());
+
+        mvc.perform(get("/api/sales")
+                        .param("cursor", after.encode())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext", is(true)))
+                .andExpect(jsonPath("$.nextCursor", is(next.encode())))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+
+        verify(saleService, never()).findSales(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("should force the BRANCH user's branch on keyset pages and report a total when asked")
+    void shouldForceBranchOnKeysetPagesWithTotal() throws Exception {
+
+        authenticate("BRANCH", "Surco");
+        when(saleService.scrollSales(isNull(), isNull(), eq("Surco"), isNull(), eq(10), eq(true)))
+                .thenReturn(new SaleWindow(List.of(), null, 0L));
+
+        mvc.perform(get("/api/sales")
+                        .param("paging", "keyset")
+                        .param("branch", "Miraflores")
+                        .param("includeTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext", is(false)))
+                .andExpect(jsonPath("$.totalElements", is(0)));
+    }
+}
@@ -7,13 +7,13 @@ import com.example.hack1base.JWT.domain.Account;
 import com.example.hack1base.Sale.application.SaleController;
 import com.example.hack1base.Sale.domain.Sale;
 import com.example.hack1base.Sale.domain.SaleService;
+import com.example.hack1base.Sale.web.SaleMapper;
 import com.example.hack1base.Sale.web.SaleRequest;
 import com.example.hack1base.Sale.web.SaleResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
 import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -54,7 +54,7 @@ class SaleControllerTest {
     private SaleService saleService;
 
     @MockitoBean
-    private ModelMapper modelMapper;
+    private SaleMapper saleMapper;
 
     // ---------- Advice para mapear excepciones a HTTP ----------
     @RestControllerAdvice
@@ -90,7 +90,7 @@ class SaleControllerTest {
         SecurityContextHolder.setContext(ctx);
     }
 
-    private Sale mkSale(Long id, String sku, int units, double price, String branch, LocalDateTime soldAt) {
+    private Sale mkSale(String id, String sku, int units, double price, String branch, LocalDateTime soldAt) {
         Sale s = new Sale();
         s.setId(id);
         s.setSku(sku);
@@ -119,15 +119,15 @@ class SaleControllerTest {
         req.setSoldAt(LocalDateTime.of(2025, 1, 10, 12, 0));
 
         Sale entityToCreate = mkSale(null, "SKU-1", 3, 10.0, "Miraflores", req.getSoldAt());
-        Sale created = mkSale(100L, "SKU-1", 3, 10.0, "Miraflores", req.getSoldAt());
+        Sale created = mkSale("100", "SKU-1", 3, 10.0, "Miraflores", req.getSoldAt());
         SaleResponse resp = new SaleResponse(
-                100L, "SKU-1", 3, 10.0, "Miraflores",
+                "100", "SKU-1", 3, 10.0, "Miraflores",
                 req.getSoldAt(), "userX", LocalDateTime.of(2025, 1, 10, 12, 5)
         );
 
-        when(modelMapper.map(any(SaleRequest.class), eq(Sale.class))).thenReturn(entityToCreate);
+        when(saleMapper.toSale(any(SaleRequest.class))).thenReturn(entityToCreate);
         when(saleService.createSale(entityToCreate)).thenReturn(created);
-        when(modelMapper.map(created, SaleResponse.class)).thenReturn(resp);
+        when(saleMapper.toResponse(created)).thenReturn(resp);
 
         mvc.perform(post("/api/sales")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -176,13 +176,13 @@ class SaleControllerTest {
         var end = LocalDate.of(2025, 1, 31).atTime(LocalTime.MAX);
 
         Pageable pageable = PageRequest.of(0, 10);
-        Sale s = mkSale(1L, "SKU-X", 2, 11.0, "Surco", start.plusDays(1));
+        Sale s = mkSale("1", "SKU-X", 2, 11.0, "Surco", start.plusDays(1));
         Page<Sale> page = new PageImpl<>(java.util.List.of(s), pageable, 1);
         when(saleService.findSales(eq(start), eq(end), any(String.class), eq(pageable))).thenReturn(page);
 
-        SaleResponse mapped = new SaleResponse(1L, "SKU-X", 2, 11.0, "Surco",
+        SaleResponse mapped = new SaleResponse("1", "SKU-X", 2, 11.0, "Surco",
                 s.getSoldAt(), "userX", LocalDateTime.now());
-        when(modelMapper.map(eq(s), eq(SaleResponse.class))).thenReturn(mapped);
+        when(saleMapper.toResponse(eq(s))).thenReturn(mapped);
 
         mvc.perform(get("/api/sales")
                         .param("from", "2025-01-01")
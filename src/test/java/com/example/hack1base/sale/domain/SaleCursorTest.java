@@ -0,0 +1,33 @@
+package com.example.hack1base.sale.domain;
+
+import com.example.hack1base.Sale.domain.SaleCursor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SaleCursorTest {
+
+    @Test
+    @DisplayName("should round-trip soldAt and id through the opaque token")
+    void shouldRoundTripThroughToken() {
+        SaleCursor cursor = new SaleCursor(LocalDateTime.of(2025, 9, 12, 16, 30, 5), "3f1c-uuid|x");
+
+        String token = cursor.encode();
+
+        assertThat(token).doesNotContain("2025");
+        assertThat(SaleCursor.decode(token)).isEqualTo(cursor);
+    }
+
+    @Test
+    @DisplayName("should reject malformed tokens with IllegalArgumentException")
+    void shouldRejectMalformedTokens() {
+        assertThatThrownBy(() -> SaleCursor.decode("%%%"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor inválido");
+        assertThatThrownBy(() -> SaleCursor.decode("bm90LWEtY3Vyc29y"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
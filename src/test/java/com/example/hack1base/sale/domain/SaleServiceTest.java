@@ -1,22 +1,38 @@
 package com.example.hack1base.sale.domain;
 
 import com.example.hack1base.Sale.domain.Sale;
+import com.example.hack1base.Sale.domain.SaleCursor;
 import com.example.hack1base.Sale.domain.SaleService;
+import com.example.hack1base.Sale.domain.SaleWindow;
 import com.example.hack1base.Sale.estructure.SaleRepository;
+import com.example.hack1base.Sale.web.SaleRow;
 import com.example.hack1base.User.domain.Role;
 import com.example.hack1base.User.domain.User;
+import com.example.hack1base.salesaggregation.domain.SalesAggregatesCache;
+import com.example.hack1base.salesaggregation.domain.SalesRollupService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,6 +43,12 @@ class SaleServiceTest {
     @Mock
     private SaleRepository saleRepository;
 
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @Mock
+    private SalesAggregatesCache aggregatesCache;
+
     @InjectMocks
     private SaleService saleService;
 
@@ -66,7 +88,22 @@ class SaleServiceTest {
         assertThat(result.getCreatedBy().getUsername()).isEqualTo("miraflores.user");
 
         verify(saleRepository, times(1)).save(any(Sale.class));
-        verifyNoMoreInteractions(saleRepository);
+        verify(salesRollupService, times(1)).recordSale(result);
+        verifyNoMoreInteractions(saleRepository, salesRollupService);
+    }
+
+    @Test
+    @DisplayName("should save a batch with saveAll and record it in rollup once")
+    void shouldSaveBatchAndRecordRollupOnce() {
+        List<Sale> batch = List.of(saleBase, new Sale());
+        when(saleRepository.saveAll(batch)).thenReturn(batch);
+
+        List<Sale> result = saleService.createSales(batch);
+
+        assertThat(result).hasSize(2);
+        verify(saleRepository, times(1)).saveAll(batch);
+        verify(salesRollupService, times(1)).recordSales(batch);
+        verifyNoMoreInteractions(saleRepository, salesRollupService);
     }
 
     @Test
@@ -167,6 +204,42 @@ class SaleServiceTest {
         assertThat(updated.getSku()).isEqualTo("OREO_THINS");
     }
 
+    @Test
+    @DisplayName("should retract previous values from rollup and record new ones on update")
+    void shouldRetractAndRecordRollupOnUpdate() {
+        Sale existing = new Sale();
+        existing.setSku("OREO_CLASSIC_12");
+        existing.setUnits(10);
+        existing.setPrice(2.0);
+        existing.setBranch("Miraflores");
+        existing.setSoldAt(LocalDateTime.of(2025, 9, 1, 9, 0));
+
+        when(saleRepository.findById(11L)).thenReturn(Optional.of(existing));
+        when(saleRepository.save(any(Sale.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Sale details = new Sale();
+        details.setSku("OREO_CLASSIC_12");
+        details.setUnits(4);
+        details.setPrice(2.0);
+        details.setBranch("Surco");
+        details.setSoldAt(LocalDateTime.of(2025, 9, 2, 9, 0));
+
+        // Al retirar, la venta todavía debe tener branch/día originales
+        doAnswer(inv -> {
+            Sale s = inv.getArgument(0);
+            assertThat(s.getBranch()).isEqualTo("Miraflores");
+            assertThat(s.getUnits()).isEqualTo(10);
+            return null;
+        }).when(salesRollupService).retractSale(existing);
+
+        saleService.updateSale(11L, details);
+
+        InOrder inOrder = inOrder(salesRollupService, saleRepository);
+        inOrder.verify(salesRollupService).retractSale(existing);
+        inOrder.verify(saleRepository).save(existing);
+        inOrder.verify(salesRollupService).recordSale(existing);
+    }
+
     @Test
     @DisplayName("should throw when updating non-existing sale")
     void shouldThrowWhenUpdatingNonExistingSale() {
@@ -178,16 +251,165 @@ class SaleServiceTest {
 
         verify(saleRepository, times(1)).findById(999L);
         verifyNoMoreInteractions(saleRepository);
+        verifyNoInteractions(salesRollupService);
     }
 
     @Test
-    @DisplayName("should delete sale by id")
+    @DisplayName("should delete sale by id and retract it from rollup")
     void shouldDeleteSaleById() {
-        doNothing().when(saleRepository).deleteById(77L);
+        when(saleRepository.findById(77L)).thenReturn(Optional.of(saleBase));
 
         saleService.deleteSale(77L);
 
-        verify(saleRepository, times(1)).deleteById(77L);
+        verify(saleRepository, times(1)).findById(77L);
+        verify(salesRollupService, times(1)).retractSale(saleBase);
+        verify(saleRepository, times(1)).delete(saleBase);
         verifyNoMoreInteractions(saleRepository);
     }
+
+    @Test
+    @DisplayName("should do nothing when deleting non-existing sale")
+    void shouldDoNothingWhenDeletingNonExistingSale() {
+        when(saleRepository.findById(78L)).thenReturn(Optional.empty());
+
+        saleService.deleteSale(78L);
+
+        verify(saleRepository, times(1)).findById(78L);
+        verifyNoMoreInteractions(saleRepository);
+        verifyNoInteractions(salesRollupService);
+    }
+
+    @Test
+    @DisplayName("should stream export rows to the sink and close the cursor")
+    void shouldStreamExportRowsAndCloseCursor() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 1, 31, 23, 59);
+        SaleRow row = new SaleRow("a1", "OREO_12", 1, 1.0, "Surco", start, "user", start);
+        AtomicBoolean closed = new AtomicBoolean(false);
+        when(saleRepository.streamRowsForBranchBetween("Surco", start, end))
+                .thenReturn(Stream.of(row).onClose(() -> closed.set(true)));
+
+        List<SaleRow> received = new ArrayList<>();
+        saleService.exportSales(start, end, "Surco", received::add);
+
+        assertThat(received).containsExactly(row);
+        assertThat(closed).isTrue();
+        verify(saleRepository, never()).streamRowsBetween(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("should return next cursor from the last row when there is an extra row")
+    void shouldReturnNextCursorWhenMoreRowsExist() {
+        Sale s1 = new Sale();
+        s1.setId("c");
+        s1.setSoldAt(LocalDateTime.of(2025, 9, 3, 10, 0));
+        Sale s2 = new Sale();
+        s2.setId("b");
+        s2.setSoldAt(LocalDateTime.of(2025, 9, 2, 10, 0));
+        Sale s3 = new Sale();
+        s3.setId("a");
+        s3.setSoldAt(LocalDateTime.of(2025, 9, 1, 10, 0));
+        when(saleRepository.findBy(any(Specification.class), any())).thenReturn(List.of(s1, s2, s3));
+
+        SaleWindow window = saleService.scrollSales(null, null, "Miraflores", null, 2, false);
+
+        assertThat(window.content()).containsExactly(s1, s2);
+        assertThat(window.hasNext()).isTrue();
+        assertThat(window.next()).isEqualTo(new SaleCursor(s2.getSoldAt(), "b"));
+        assertThat(window.totalElements()).isNull();
+        verify(saleRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("should count only when includeTotal is requested")
+    void shouldCountOnlyWhenIncludeTotal() {
+        when(saleRepository.findBy(any(Specification.class), any())).thenReturn(List.of());
+        when(saleRepository.count(any(Specification.class))).thenReturn(0L);
+
+        SaleWindow window = saleService.scrollSales(null, null, null,
+                new SaleCursor(LocalDateTime.of(2025, 9, 1, 0, 0), "x"), 10, true);
+
+        assertThat(window.content()).isEmpty();
+        assertThat(window.hasNext()).isFalse();
+        assertThat(window.totalElements()).isZero();
+    }
+
+    @Test
+    @DisplayName("should use the count-free Slice query for branch and date range")
+    void shouldUseSliceQueryForBranchAndRange() {
+        LocalDateTime start = LocalDateTime.of(2025, 9, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 9, 30, 23, 59);
+        Pageable pageable = PageRequest.of(0, 20);
+        Slice<Sale> slice = new SliceImpl<>(List.of(new Sale()), pageable, true);
+        when(saleRepository.findSliceByBranchAndSoldAtBetween("Miraflores", start, end, pageable)).thenReturn(slice);
+
+        Slice<Sale> result = saleService.findSalesSlice(start, end, "Miraflores", pageable);
+
+        assertThat(result.hasNext()).isTrue();
+        verify(saleRepository, never()).findByBranchAndSoldAtBetween("Miraflores", start, end, pageable);
+        verify(saleRepository, never()).count();
+    }
+
+    @Test
+    @DisplayName("should invalidate cached aggregates covering the day and branch of a created sale")
+    void shouldInvalidateAggregatesOnCreate() {
+        saleService.setAggregatesCache(aggregatesCache);
+        when(saleRepository.save(any(Sale.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        saleService.createSale(saleBase);
+
+        verify(aggregatesCache).invalidateSale(LocalDate.of(2025, 9, 12), "Miraflores");
+    }
+
+    @Test
+    @DisplayName("should invalidate both the previous and the new window when a sale moves on update")
+    void shouldInvalidateOldAndNewWindowsOnUpdate() {
+        saleService.setAggregatesCache(aggregatesCache);
+        Sale existing = new Sale();
+        existing.setBranch("Miraflores");
+        existing.setSoldAt(LocalDateTime.of(2025, 9, 1, 9, 0));
+        when(saleRepository.findById(11L)).thenReturn(Optional.of(existing));
+        when(saleRepository.save(any(Sale.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Sale details = new Sale();
+        details.setBranch("Surco");
+        details.setSoldAt(LocalDateTime.of(2025, 9, 20, 9, 0));
+        saleService.updateSale(11L, details);
+
+        verify(aggregatesCache).invalidateSale(LocalDate.of(2025, 9, 1), "Miraflores");
+        verify(aggregatesCache).invalidateSale(LocalDate.of(2025, 9, 20), "Surco");
+    }
+
+    @Test
+    @DisplayName("should invalidate cached aggregates of a deleted sale")
+    void shouldInvalidateAggregatesOnDelete() {
+        saleService.setAggregatesCache(aggregatesCache);
+        when(saleRepository.findById(77L)).thenReturn(Optional.of(saleBase));
+
+        saleService.deleteSale(77L);
+
+        verify(aggregatesCache).invalidateSale(LocalDate.of(2025, 9, 12), "Miraflores");
+    }
+
+    @Test
+    @DisplayName("should invalidate each distinct day and branch of a batch once")
+    void shouldInvalidateDistinctSlotsOncePerBatch() {
+        saleService.setAggregatesCache(aggregatesCache);
+        Sale sameSlot = new Sale();
+        sameSlot.setBranch("Miraflores");
+        sameSlot.setSoldAt(LocalDateTime.of(2025, 9, 12, 9, 0));
+        Sale otherBranch = new Sale();
+        otherBranch.setBranch("Surco");
+        otherBranch.setSoldAt(LocalDateTime.of(2025, 9, 12, 9, 0));
+        when(saleRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        saleService.createSales(List.of(saleBase, sameSlot, otherBranch));
+
+        verify(aggregatesCache).invalidateSales(Set.of(
+                new SalesAggregatesCache.SaleSlot(LocalDate.of(2025, 9, 12), "Miraflores"),
+                new SalesAggregatesCache.SaleSlot(LocalDate.of(2025, 9, 12), "Surco")));
+        verify(aggregatesCache, never()).invalidateSale(any(), any());
+    }
 }
@@ -0,0 +1,138 @@
+package com.example.hack1base.sale.estructure;
+
+import com.example.hack1base.Sale.domain.Sale;
+import com.example.hack1base.Sale.domain.SaleService;
+import com.example.hack1base.Sale.domain.SaleWindow;
+import com.example.hack1base.Sale.estructure.SaleRepository;
+import com.example.hack1base.User.domain.Role;
+import com.example.hack1base.User.domain.User;
+import com.example.hack1base.salesaggregation.domain.SalesRollupService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+// Cuenta sentencias JDBC por página: debe ser constante sin importar el tamaño (sin N+1 en createdBy)
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(SaleService.class)
+class SaleListingQueryCountTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 9, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2025, 9, 30, 23, 59);
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private SalesRollupService salesRollupService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        // Un creador distinto por venta: con carga perezosa cada fila dispararía su propio select
+        for (int i = 0; i < 40; i++) {
+            User user = new User();
+            user.setUsername("user" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setPassword("Secret123!");
+            user.setRole(Role.BRANCH);
+            user.setBranch("Miraflores");
+            entityManager.persist(user);
+
+            Sale sale = new Sale();
+            sale.setSku("SKU-" + i);
+            sale.setUnits(1 + i);
+            sale.setPrice(2.5);
+            sale.setBranch("Miraflores");
+            sale.setSoldAt(START.plusHours(i));
+            sale.setCreatedBy(user);
+            entityManager.persist(sale);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private long statementsFor(Runnable listing) {
+        entityManager.clear();
+        statistics.clear();
+        listing.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static void touchCreators(List<Sale> sales) {
+        sales.forEach(s -> assertThat(s.getCreatedBy().getUsername()).startsWith("user"));
+    }
+
+    @Test
+    @DisplayName("Page: select + count regardless of page size")
+    void pageListingIssuesConstantStatements() {
+        long small = statementsFor(() -> {
+            Page<Sale> page = saleRepository.findByBranchAndSoldAtBetween("Miraflores", START, END, PageRequest.of(0, 5));
+            touchCreators(page.getContent());
+        });
+        long large = statementsFor(() -> {
+            Page<Sale> page = saleRepository.findByBranchAndSoldAtBetween("Miraflores", START, END, PageRequest.of(0, 30));
+            touchCreators(page.getContent());
+        });
+
+        assertThat(small).isEqualTo(2);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    @DisplayName("Slice: single select regardless of page size")
+    void sliceListingIssuesSingleStatement() {
+        long statements = statementsFor(() -> {
+            Slice<Sale> slice = saleRepository.findSliceBySoldAtBetween(START, END, PageRequest.of(0, 30));
+            touchCreators(slice.getContent());
+        });
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Keyset: single select without total, one more with includeTotal")
+    void keysetListingIssuesConstantStatements() {
+        long withoutTotal = statementsFor(() -> {
+            SaleWindow window = saleService.scrollSales(START, END, "Miraflores", null, 30, false);
+            touchCreators(window.content());
+        });
+        long withTotal = statementsFor(() -> {
+            SaleWindow window = saleService.scrollSales(START, END, null, null, 10, true);
+            touchCreators(window.content());
+        });
+
+        assertThat(withoutTotal).isEqualTo(1);
+        assertThat(withTotal).isEqualTo(2);
+    }
+}
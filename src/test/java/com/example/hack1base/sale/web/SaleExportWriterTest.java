@@ -0,0 +1,62 @@
+package com.example.hack1base.sale.web;
+
+import com.example.hack1base.Sale.web.SaleExportWriter;
+import com.example.hack1base.Sale.web.SaleRow;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaleExportWriterTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private SaleRow row(String id, String sku, String createdBy) {
+        return new SaleRow(id, sku, 3, 2.5, "Miraflores",
+                LocalDateTime.of(2025, 1, 10, 12, 0), createdBy, LocalDateTime.of(2025, 1, 10, 12, 5));
+    }
+
+    @Test
+    @DisplayName("CSV: escribe cabecera y una línea por venta, escapando comas y comillas")
+    void shouldWriteCsvWithHeaderAndEscaping() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SaleExportWriter writer = new SaleExportWriter(SaleExportWriter.Format.CSV, out, mapper.getFactory());
+
+        writer.accept(row("a1", "OREO_12", "user"));
+        writer.accept(row("a2", "OREO, \"MINI\"", null));
+        writer.finish();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,sku,units,price,branch,soldAt,createdBy,createdAt", lines[0]);
+        assertEquals("a1,OREO_12,3,2.5,Miraflores,2025-01-10T12:00,user,2025-01-10T12:05", lines[1]);
+        assertEquals("a2,\"OREO, \"\"MINI\"\"\",3,2.5,Miraflores,2025-01-10T12:00,,2025-01-10T12:05", lines[2]);
+    }
+
+    @Test
+    @DisplayName("NDJSON: escribe un objeto JSON por línea")
+    void shouldWriteOneJsonObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SaleExportWriter writer = new SaleExportWriter(SaleExportWriter.Format.NDJSON, out, mapper.getFactory());
+
+        writer.accept(row("a1", "OREO_12", "user"));
+        writer.accept(row("a2", "OREO_6", null));
+        writer.finish();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = mapper.readTree(lines[0]);
+        assertEquals("a1", first.get("id").asText());
+        assertEquals(3, first.get("units").asInt());
+        assertEquals("user", first.get("createdBy").asText());
+        JsonNode second = mapper.readTree(lines[1]);
+        assertEquals("OREO_6", second.get("sku").asText());
+        assertTrue(second.get("createdBy").isNull());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.hack1base.sale.web;
+
+import com.example.hack1base.Sale.domain.Sale;
+import com.example.hack1base.Sale.web.SaleMapper;
+import com.example.hack1base.Sale.web.SaleRequest;
+import com.example.hack1base.Sale.web.SaleResponse;
+import com.example.hack1base.User.domain.Role;
+import com.example.hack1base.User.domain.User;
+import com.example.hack1base.User.domain.UserMapper;
+import com.example.hack1base.User.domain.UserResponse;
+import org.modelmapper.Converter;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.PropertyMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Compara los mappers escritos a mano con ModelMapper configurado como lo estaba el antiguo ModelConfig.
+// Ejecutar: mvn test-compile && java -cp target/test-classes:<classpath de test> \
+//   com.example.hack1base.sale.web.SaleMapperBenchmark  (usar -prof gc para ver asignaciones)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaleMapperBenchmark {
+
+    private ModelMapper modelMapper;
+    private SaleMapper saleMapper;
+    private UserMapper userMapper;
+
+    private SaleRequest request;
+    private Sale sale;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        modelMapper = modelMapper();
+        saleMapper = new SaleMapper();
+        userMapper = new UserMapper();
+
+        request = new SaleRequest();
+        request.setSku("OREO_CLASSIC_12");
+        request.setUnits(25);
+        request.setPrice(1.99);
+        request.setBranch("Miraflores");
+        request.setSoldAt(LocalDateTime.of(2025, 9, 12, 16, 30));
+
+        user = new User();
+        user.setId("9b7c1c1e-0000-4000-8000-000000000001");
+        user.setUsername("branch.miraflores");
+        user.setEmail("miraflores@oreo.com");
+        user.setRole(Role.BRANCH);
+        user.setBranch("Miraflores");
+
+        sale = saleMapper.toSale(request);
+        sale.setId("3f1c7e4a-0000-4000-8000-000000000002");
+        sale.setCreatedBy(user);
+    }
+
+    @Benchmark
+    public Sale requestToSaleModelMapper() {
+        return modelMapper.map(request, Sale.class);
+    }
+
+    @Benchmark
+    public Sale requestToSaleHandWritten() {
+        return saleMapper.toSale(request);
+    }
+
+    @Benchmark
+    public SaleResponse saleToResponseModelMapper() {
+        return modelMapper.map(sale, SaleResponse.class);
+    }
+
+    @Benchmark
+    public SaleResponse saleToResponseHandWritten() {
+        return saleMapper.toResponse(sale);
+    }
+
+    @Benchmark
+    public UserResponse userToResponseModelMapper() {
+        return modelMapper.map(user, UserResponse.class);
+    }
+
+    @Benchmark
+    public UserResponse userToResponseHandWritten() {
+        return userMapper.toResponse(user);
+    }
+
+    // Misma configuracion que tenia el bean de ModelConfig antes de los mappers a mano
+    private static ModelMapper modelMapper() {
+        ModelMapper mapper = new ModelMapper();
+
+        Converter<Enum<?>, String> enumToStringConverter = ctx ->
+                ctx.getSource() != null ? ctx.getSource().name() : null;
+
+        mapper.addMappings(new PropertyMap<User, UserResponse>() {
+            @Override
+            protected void configure() {
+                using(enumToStringConverter).map(source.getRole(), destination.getRole());
+            }
+        });
+
+        mapper.addMappings(new PropertyMap<Sale, SaleResponse>() {
+            @Override
+            protected void configure() {
+                using(ctx -> {
+                    User createdBy = (User) ctx.getSource();
+                    return createdBy != null ? createdBy.getUsername() : null;
+                }).map(source.getCreatedBy(), destination.getCreatedBy());
+            }
+        });
+
+        return mapper;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SaleMapperBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
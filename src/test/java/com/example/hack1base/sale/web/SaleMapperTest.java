@@ -0,0 +1,70 @@
+package com.example.hack1base.sale.web;
+
+import com.example.hack1base.Sale.domain.Sale;
+import com.example.hack1base.Sale.web.SaleMapper;
+import com.example.hack1base.Sale.web.SaleRequest;
+import com.example.hack1base.Sale.web.SaleResponse;
+import com.example.hack1base.User.domain.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaleMapperTest {
+
+    private final SaleMapper mapper = new SaleMapper();
+
+    @Test
+    @DisplayName("toSale: copia los campos del request sin id ni creador")
+    void shouldMapRequestToSale() {
+        SaleRequest request = new SaleRequest();
+        request.setSku("SKU-1");
+        request.setUnits(3);
+        request.setPrice(10.5);
+        request.setBranch("Miraflores");
+        request.setSoldAt(LocalDateTime.of(2025, 9, 1, 10, 0));
+
+        Sale sale = mapper.toSale(request);
+
+        assertAll(
+                () -> assertNull(sale.getId()),
+                () -> assertEquals("SKU-1", sale.getSku()),
+                () -> assertEquals(3, sale.getUnits()),
+                () -> assertEquals(10.5, sale.getPrice()),
+                () -> assertEquals("Miraflores", sale.getBranch()),
+                () -> assertEquals(request.getSoldAt(), sale.getSoldAt()),
+                () -> assertNull(sale.getCreatedBy())
+        );
+    }
+
+    @Test
+    @DisplayName("toResponse: usa el username del creador y tolera creador nulo")
+    void shouldMapSaleToResponse() {
+        User user = new User();
+        user.setUsername("branch.surco");
+        Sale sale = new Sale();
+        sale.setId("abc");
+        sale.setSku("SKU-2");
+        sale.setUnits(4);
+        sale.setPrice(2.0);
+        sale.setBranch("Surco");
+        sale.setSoldAt(LocalDateTime.of(2025, 9, 2, 9, 0));
+        sale.setCreatedBy(user);
+
+        SaleResponse response = mapper.toResponse(sale);
+
+        assertAll(
+                () -> assertEquals("abc", response.getId()),
+                () -> assertEquals("SKU-2", response.getSku()),
+                () -> assertEquals(4, response.getUnits()),
+                () -> assertEquals("Surco", response.getBranch()),
+                () -> assertEquals("branch.surco", response.getCreatedBy()),
+                () -> assertEquals(sale.getCreatedAt(), response.getCreatedAt())
+        );
+
+        sale.setCreatedBy(null);
+        assertNull(mapper.toResponse(sale).getCreatedBy());
+    }
+}
@@ -15,7 +15,7 @@ class SaleResponseTest {
     @DisplayName("AllArgsConstructor: asigna correctamente todos los campos")
     void shouldCreateWithAllArgsConstructor() {
 
-        Long id = 1L;
+        String id = "1";
         String sku = "SKU-100";
         int units = 5;
         double price = 19.99;
@@ -50,7 +50,7 @@ class SaleResponseTest {
         LocalDateTime soldAt = LocalDateTime.now();
         LocalDateTime createdAt = LocalDateTime.now();
 
-        response.setId(2L);
+        response.setId("2");
         response.setSku("SKU-XYZ");
         response.setUnits(10);
         response.setPrice(50.5);
@@ -60,7 +60,7 @@ class SaleResponseTest {
         response.setCreatedAt(createdAt);
 
         assertAll(
-                () -> assertEquals(2L, response.getId()),
+                () -> assertEquals("2", response.getId()),
                 () -> assertEquals("SKU-XYZ", response.getSku()),
                 () -> assertEquals(10, response.getUnits()),
                 () -> assertEquals(50.5, response.getPrice()),
@@ -0,0 +1,56 @@
+-- Benchmark de índices sobre sales (PostgreSQL).
+-- Uso: psql -f sales-indexes.sql contra una base descartable.
+-- 1) siembra 10M filas, 2) mide sin índices, 3) crea los índices de Sale, 4) mide de nuevo.
+
+\timing on
+
+-- Usuario dueño de las ventas sembradas
+insert into users (id, username, email, password, role, branch, created_at)
+values ('bench-user', 'bench', 'bench@example.com', 'x', 'CENTRAL', 'Miraflores', now())
+on conflict do nothing;
+
+insert into sales (id, sku, units, price, branch, sold_at, user_id, created_at)
+select gen_random_uuid()::text,
+       'SKU-' || (g % 500),
+       1 + (g % 20),
+       round((5 + (g % 1000) / 10.0)::numeric, 2),
+       (array['Miraflores', 'San Isidro', 'Surco', 'Barranco', 'La Molina'])[1 + g % 5],
+       timestamp '2024-01-01' + (g % 31536000) * interval '1 second',
+       'bench-user',
+       now()
+from generate_series(1, 10000000) g;
+
+analyze sales;
+
+drop index if exists idx_sales_branch_sold_at;
+drop index if exists idx_sales_sold_at;
+drop index if exists idx_sales_aggregation;
+
+-- Antes: listados (Page + count, Slice), keyset y agregación
+explain (analyze, buffers)
+select * from sales where branch = 'Surco' and sold_at between '2024-03-01' and '2024-03-31 23:59:59'
+order by sold_at desc, id desc limit 21;
+explain (analyze, buffers)
+select count(*) from sales where branch = 'Surco' and sold_at between '2024-03-01' and '2024-03-31 23:59:59';
+explain (analyze, buffers)
+select * from sales where sold_at between '2024-03-01' and '2024-03-31 23:59:59' order by sold_at desc, id desc limit 21;
+explain (analyze, buffers)
+select sku, branch, sum(units), sum(units * price) from sales
+where sold_at between '2024-03-01' and '2024-03-31 23:59:59' group by sku, branch;
+
+create index idx_sales_branch_sold_at on sales (branch, sold_at, id);
+create index idx_sales_sold_at on sales (sold_at, id);
+create index idx_sales_aggregation on sales (sold_at, branch, sku, units, price);
+vacuum analyze sales;
+
+-- Después: las mismas consultas
+explain (analyze, buffers)
+select * from sales where branch = 'Surco' and sold_at between '2024-03-01' and '2024-03-31 23:59:59'
+order by sold_at desc, id desc limit 21;
+explain (analyze, buffers)
+select count(*) from sales where branch = 'Surco' and sold_at between '2024-03-01' and '2024-03-31 23:59:59';
+explain (analyze, buffers)
+select * from sales where sold_at between '2024-03-01' and '2024-03-31 23:59:59' order by sold_at desc, id desc limit 21;
+explain (analyze, buffers)
+select sku, branch, sum(units), sum(units * price) from sales
+where sold_at between '2024-03-01' and '2024-03-31 23:59:59' group by sku, branch;